@@ -0,0 +1,106 @@
+package com.library.management.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.management.entity.Book;
+import com.library.management.event.BookChangedEvent;
+import com.library.management.event.BookSnapshot;
+import com.library.management.repository.BookRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache for book lookups by id and by ISBN.
+ * <p>
+ * Caffeine's W-TinyLFU admission keeps the frequently borrowed titles resident while a scan
+ * over the long tail cannot flush them. The ISBN cache only maps to ids, so each book is held
+ * once. Entries are dropped when the transaction that changed the book completes, including
+ * on rollback, so a book loaded and modified inside a failed transaction is not served later.
+ * Hit, miss and eviction counts are published as {@code cache.*} metrics with
+ * {@code cache=books.byId} and {@code cache=books.byIsbn}.
+ */
+@Component
+public class BookCache {
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${library.cache.books.maximum-size:10000}")
+    private long maximumSize;
+    
+    @Value("${library.cache.books.expire-after-write-seconds:600}")
+    private long expireAfterWriteSeconds;
+    
+    private Cache<Long, Book> byId;
+    private Cache<String, Long> idByIsbn;
+    
+    @PostConstruct
+    public void init() {
+        byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build();
+        idByIsbn = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "books.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, idByIsbn, "books.byIsbn");
+    }
+    
+    public Optional<Book> findById(Long id) {
+        return Optional.ofNullable(byId.get(id, key -> bookRepository.findById(key).orElse(null)));
+    }
+    
+    /**
+     * Looks several books up at once, loading the ones not cached with a single query. Ids
+     * with no book are left out of the map.
+     */
+    public Map<Long, Book> findAllById(Collection<Long> ids) {
+        return byId.getAll(ids, missing -> bookRepository.findAllById(List.copyOf(missing)).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity())));
+    }
+    
+    // The book itself is only ever loaded inside byId's own mapping function, which an
+    // invalidation of the same id waits for, so a concurrent change cannot be overwritten by
+    // the entity read before it
+    public Optional<Book> findByIsbn(String isbn) {
+        Long id = idByIsbn.get(isbn, key -> bookRepository.findIdByIsbn(key).orElse(null));
+        return id != null ? findById(id) : Optional.empty();
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onBookChanged(BookChangedEvent event) {
+        byId.invalidate(event.getBookId());
+        invalidateIsbn(event.getPrevious());
+        invalidateIsbn(event.getCurrent());
+    }
+    
+    private void invalidateIsbn(BookSnapshot snapshot) {
+        if (snapshot != null && snapshot.getIsbn() != null) {
+            idByIsbn.invalidate(snapshot.getIsbn());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.library.management.cache;
+
+import com.library.management.event.BookChangedEvent;
+import com.library.management.event.BookSnapshot;
+import com.library.management.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Top-rated and most-reviewed leaderboards, seeded at startup from the indexed queries and
+ * updated from {@link BookChangedEvent}s. Also tracks the catalog size so pages served from
+ * the boards need no count query.
+ */
+@Component
+public class BookLeaderboards {
+    
+    private static final Logger log = LoggerFactory.getLogger(BookLeaderboards.class);
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Value("${library.leaderboard.capacity:200}")
+    private int capacity;
+    
+    private Leaderboard topRated;
+    private Leaderboard mostReviewed;
+    private final AtomicLong totalBooks = new AtomicLong();
+    private volatile boolean ready;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        ready = false;
+        topRated = new Leaderboard(capacity);
+        mostReviewed = new Leaderboard(capacity);
+        seedTopRated();
+        seedMostReviewed();
+        totalBooks.set(bookRepository.count());
+        ready = true;
+        log.info("Book leaderboards seeded with up to {} entries in {} ms",
+                capacity, System.currentTimeMillis() - start);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookChanged(BookChangedEvent event) {
+        if (!ready) {
+            return;
+        }
+        if (event.isDeleted()) {
+            topRated.remove(event.getBookId());
+            mostReviewed.remove(event.getBookId());
+            totalBooks.decrementAndGet();
+        } else {
+            if (event.getPrevious() == null) {
+                totalBooks.incrementAndGet();
+            }
+            update(topRated, event, BookSnapshot::getRating);
+            update(mostReviewed, event, snapshot -> snapshot.getReviewCount());
+        }
+        
+        if (topRated.needsReseed()) {
+            seedTopRated();
+        }
+        if (mostReviewed.needsReseed()) {
+            seedMostReviewed();
+        }
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public Leaderboard getTopRated() {
+        return topRated;
+    }
+    
+    public Leaderboard getMostReviewed() {
+        return mostReviewed;
+    }
+    
+    public long getTotalBooks() {
+        return totalBooks.get();
+    }
+    
+    private static void update(Leaderboard board, BookChangedEvent event, ToDoubleFunction<BookSnapshot> score) {
+        double current = score.applyAsDouble(event.getCurrent());
+        if (event.getPrevious() == null || score.applyAsDouble(event.getPrevious()) != current) {
+            board.update(event.getBookId(), current);
+        }
+    }
+    
+    private void seedTopRated() {
+        seed(topRated, bookRepository.findTopRatedSnapshots(PageRequest.of(0, capacity + 1)),
+                BookSnapshot::getRating);
+    }
+    
+    private void seedMostReviewed() {
+        seed(mostReviewed, bookRepository.findMostReviewedSnapshots(PageRequest.of(0, capacity + 1)),
+                snapshot -> snapshot.getReviewCount());
+    }
+    
+    private static void seed(Leaderboard board, List<BookSnapshot> top, ToDoubleFunction<BookSnapshot> score) {
+        List<Long> ids = new ArrayList<>(top.size());
+        List<Double> scores = new ArrayList<>(top.size());
+        for (BookSnapshot snapshot : top) {
+            ids.add(snapshot.getId());
+            scores.add(score.applyAsDouble(snapshot));
+        }
+        board.seed(ids, scores);
+    }
+}
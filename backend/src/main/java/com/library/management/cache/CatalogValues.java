@@ -0,0 +1,75 @@
+package com.library.management.cache;
+
+import com.library.management.event.BookChangedEvent;
+import com.library.management.event.BookSnapshot;
+import com.library.management.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-memory lists of the distinct categories and authors in the catalog, replacing the
+ * {@code SELECT DISTINCT} queries. Seeded at startup and kept current from
+ * {@link BookChangedEvent}s with a reference count per value.
+ */
+@Component
+public class CatalogValues {
+    
+    private static final Logger log = LoggerFactory.getLogger(CatalogValues.class);
+    
+    private static final int LOAD_BATCH_SIZE = 5000;
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    private final ValueDirectory categories = new ValueDirectory();
+    private final ValueDirectory authors = new ValueDirectory();
+    private volatile boolean ready;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        ready = false;
+        categories.clear();
+        authors.clear();
+        bookRepository.forEachSnapshot(LOAD_BATCH_SIZE, this::add);
+        ready = true;
+        log.info("Catalog values loaded: {} categories, {} authors in {} ms",
+                categories.all().size(), authors.all().size(), System.currentTimeMillis() - start);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookChanged(BookChangedEvent event) {
+        if (event.getPrevious() != null) {
+            categories.remove(event.getPrevious().getCategory());
+            authors.remove(event.getPrevious().getAuthor());
+        }
+        if (event.getCurrent() != null) {
+            add(event.getCurrent());
+        }
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public ValueDirectory getCategories() {
+        return categories;
+    }
+    
+    public ValueDirectory getAuthors() {
+        return authors;
+    }
+    
+    private void add(BookSnapshot snapshot) {
+        categories.add(snapshot.getCategory());
+        authors.add(snapshot.getAuthor());
+    }
+}
@@ -0,0 +1,50 @@
+package com.library.management.cache;
+
+import com.library.management.event.BookChangedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the book catalog, used as the entity tag of the catalog read endpoints.
+ * <p>
+ * Every {@code BookService} mutation publishes a {@link BookChangedEvent}; the version moves
+ * once that transaction has completed and after {@link BookCache} has dropped its entries, so
+ * a reader that sees the new version can no longer be served the old data. The tag also
+ * carries the start time of this instance, so tags handed out before a restart never match.
+ */
+@Component
+public class CatalogVersion {
+    
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onBookChanged(BookChangedEvent event) {
+        version.incrementAndGet();
+    }
+    
+    public long getVersion() {
+        return version.get();
+    }
+    
+    /**
+     * Strong entity tag for the current version.
+     */
+    public String etag() {
+        return "\"" + epoch + "-" + version.get() + "\"";
+    }
+    
+    /**
+     * Strong entity tag for a version counted elsewhere, such as that of a {@link ValueDirectory}.
+     * {@code kind} keeps it from ever matching a tag of the whole catalog.
+     */
+    public String etag(String kind, long version) {
+        return "\"" + epoch + "-" + kind + "-" + version + "\"";
+    }
+}
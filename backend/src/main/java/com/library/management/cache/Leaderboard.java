@@ -0,0 +1,140 @@
+package com.library.management.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Bounded ranking of the highest scoring ids, highest first and ties broken by the higher id.
+ * <p>
+ * Only the top of the catalog is held. {@code floor} is an upper bound on the score of any
+ * id that is not on the board: it is set when seeding and raised whenever an entry is
+ * evicted. Entries scoring above it are known to be in their final rank; entries at or below
+ * it may be outranked by ids the board has not seen, so pages reaching into that region are
+ * left to the database. When a board member loses score or is deleted the trusted prefix
+ * shrinks, and the owner reseeds once it falls under half the capacity. Thread-safe.
+ */
+public class Leaderboard {
+    
+    // Same order as the fallback queries, which a backward scan of the (score, id) index serves
+    private static final Comparator<Entry> ORDER = Comparator.comparingDouble((Entry entry) -> entry.score)
+            .thenComparingLong(entry -> entry.id)
+            .reversed();
+    
+    private final int capacity;
+    private final TreeSet<Entry> ranking = new TreeSet<>(ORDER);
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private double floor = Double.NEGATIVE_INFINITY;
+    private int trustedAtSeed;
+    
+    public Leaderboard(int capacity) {
+        this.capacity = capacity;
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    /**
+     * Replaces the board. {@code ids} and {@code scores} must be the best {@code capacity + 1}
+     * ids in rank order, or the whole catalog when it is smaller.
+     */
+    public synchronized void seed(List<Long> ids, List<Double> scores) {
+        ranking.clear();
+        entries.clear();
+        floor = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < ids.size(); i++) {
+            if (i == capacity) {
+                floor = scores.get(i);
+                break;
+            }
+            put(ids.get(i), scores.get(i));
+        }
+        trustedAtSeed = trusted();
+    }
+    
+    public synchronized void update(Long id, double score) {
+        Entry existing = entries.remove(id);
+        if (existing != null) {
+            ranking.remove(existing);
+        } else if (score <= floor && ranking.size() >= capacity) {
+            // Still below something we dropped earlier; the board has nothing to say about it
+            return;
+        }
+        put(id, score);
+        while (ranking.size() > capacity) {
+            Entry evicted = ranking.pollLast();
+            entries.remove(evicted.id);
+            floor = Math.max(floor, evicted.score);
+        }
+    }
+    
+    public synchronized void remove(Long id) {
+        Entry existing = entries.remove(id);
+        if (existing != null) {
+            ranking.remove(existing);
+        }
+    }
+    
+    /**
+     * Returns the ids ranked {@code offset} to {@code offset + size}, or null when that range
+     * is not fully known and the caller has to ask the database.
+     */
+    public synchronized List<Long> page(long offset, int size) {
+        List<Long> ids = new ArrayList<>(size);
+        long rank = 0;
+        for (Entry entry : ranking) {
+            if (entry.score <= floor || ids.size() == size) {
+                break;
+            }
+            if (rank++ >= offset) {
+                ids.add(entry.id);
+            }
+        }
+        boolean complete = floor == Double.NEGATIVE_INFINITY;
+        return ids.size() == size || complete ? ids : null;
+    }
+    
+    /**
+     * True when fewer than half of the slots are trusted and ids below the board may exist.
+     * A catalog where many ids tie at the floor score can leave fewer trusted slots than that
+     * right after seeding, so only trust lost since the last seed counts.
+     */
+    public synchronized boolean needsReseed() {
+        if (floor == Double.NEGATIVE_INFINITY) {
+            return false;
+        }
+        int trusted = trusted();
+        return trusted < capacity / 2 && trusted < trustedAtSeed;
+    }
+    
+    private int trusted() {
+        int trusted = 0;
+        for (Entry entry : ranking) {
+            if (entry.score <= floor) {
+                break;
+            }
+            trusted++;
+        }
+        return trusted;
+    }
+    
+    private void put(Long id, double score) {
+        Entry entry = new Entry(id, score);
+        entries.put(id, entry);
+        ranking.add(entry);
+    }
+    
+    private static final class Entry {
+        private final long id;
+        private final double score;
+        
+        private Entry(long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.library.management.cache;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Distinct string values with a reference count each, kept in case-insensitive order.
+ * <p>
+ * A value exists while at least one book refers to it. The sorted array is only rebuilt, on
+ * the next read, when a value appears or disappears, so prefix lookups and pages are binary
+ * searches and array slices. Thread-safe.
+ */
+public class ValueDirectory {
+    
+    private static final Comparator<String> ORDER =
+            String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+    
+    private final Map<String, Integer> counts = new HashMap<>();
+    private String[] sorted = new String[0];
+    private boolean dirty;
+    private long version;
+    
+    public synchronized void add(String value) {
+        if (value == null) {
+            return;
+        }
+        if (counts.merge(value, 1, Integer::sum) == 1) {
+            dirty = true;
+            version++;
+        }
+    }
+    
+    public synchronized void remove(String value) {
+        Integer count = counts.get(value);
+        if (count == null) {
+            return;
+        }
+        if (count == 1) {
+            counts.remove(value);
+            dirty = true;
+            version++;
+        } else {
+            counts.put(value, count - 1);
+        }
+    }
+    
+    public synchronized void clear() {
+        counts.clear();
+        dirty = true;
+        version++;
+    }
+    
+    /**
+     * Incremented whenever a value appears or disappears, so it tags the list returned by
+     * {@link #all} when read before it.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+    
+    public List<String> all() {
+        return Collections.unmodifiableList(Arrays.asList(snapshot()));
+    }
+    
+    /**
+     * Values starting with {@code prefix}, ignoring case, one page at a time.
+     */
+    public Page<String> page(String prefix, Pageable pageable) {
+        String[] values = snapshot();
+        int from = 0;
+        int to = values.length;
+        if (prefix != null && !prefix.isEmpty()) {
+            from = lowerBound(values, prefix);
+            to = endOfPrefix(values, from, prefix);
+        }
+        int total = to - from;
+        int start = (int) Math.min(pageable.getOffset(), total);
+        int end = Math.min(start + pageable.getPageSize(), total);
+        return new PageImpl<>(Arrays.asList(values).subList(from + start, from + end), pageable, total);
+    }
+    
+    private synchronized String[] snapshot() {
+        if (dirty) {
+            String[] values = counts.keySet().toArray(new String[0]);
+            Arrays.sort(values, ORDER);
+            sorted = values;
+            dirty = false;
+        }
+        return sorted;
+    }
+    
+    private static int lowerBound(String[] values, String prefix) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (String.CASE_INSENSITIVE_ORDER.compare(values[mid], prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private static int endOfPrefix(String[] values, int from, String prefix) {
+        // Matches are contiguous from the lower bound on, so the first mismatch ends the range
+        int low = from;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid].regionMatches(true, 0, prefix, 0, prefix.length())) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
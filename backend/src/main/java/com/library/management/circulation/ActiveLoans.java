@@ -0,0 +1,141 @@
+package com.library.management.circulation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The books each user has on loan, so the borrow limit and the "already borrowed" checks do
+ * not count {@code borrow_records} on every checkout.
+ * <p>
+ * {@code users.active_borrow_count} holds the number of loans (borrowed or overdue) and this
+ * class caches the ids of the books. Every change to a user's loans first locks the user's
+ * row, so one user's checkouts and returns are serialized while other users' are not. A
+ * cached set whose size disagrees with the locked count is stale and is reloaded, which also
+ * fills in the count of users that never had one. The cache is updated just before commit,
+ * while the row is still locked, and dropped again if the commit fails.
+ */
+@Component
+public class ActiveLoans {
+    
+    private static final String LOCK_SQL = "SELECT active_borrow_count FROM users WHERE id = ? FOR UPDATE";
+    private static final String LOCK_ALL_SQL = "SELECT id FROM users WHERE id IN (%s) ORDER BY id FOR UPDATE";
+    private static final String LOAD_SQL = "SELECT book_id FROM borrow_records " +
+            "WHERE user_id = ? AND status IN ('BORROWED', 'OVERDUE') FOR UPDATE";
+    private static final String SET_COUNT_SQL = "UPDATE users SET active_borrow_count = ? WHERE id = ?";
+    private static final String ADD_SQL =
+            "UPDATE users SET active_borrow_count = active_borrow_count + ? WHERE id = ?";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${library.cache.active-loans.maximum-size:50000}")
+    private long maximumSize;
+    
+    // User id -> ids of the books on loan; the sets are immutable
+    private Cache<Long, Set<Long>> loans;
+    
+    @PostConstruct
+    public void init() {
+        loans = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, loans, "users.activeLoans");
+    }
+    
+    /**
+     * Locks the user's loans until the current transaction ends and returns the ids of the
+     * books on loan; the size of the set is the user's loan count.
+     */
+    public Set<Long> lock(Long userId) {
+        List<Integer> counts = jdbcTemplate.query(LOCK_SQL, (rs, rowNum) -> rs.getObject(1, Integer.class), userId);
+        if (counts.isEmpty()) {
+            throw new RuntimeException("User not found");
+        }
+        Integer count = counts.get(0);
+        Set<Long> bookIds = loans.getIfPresent(userId);
+        if (bookIds == null || count == null || bookIds.size() != count) {
+            // A locking read sees the latest committed loans, whatever this transaction's snapshot
+            bookIds = Set.copyOf(jdbcTemplate.queryForList(LOAD_SQL, Long.class, userId));
+            loans.put(userId, bookIds);
+            if (count == null || count != bookIds.size()) {
+                jdbcTemplate.update(SET_COUNT_SQL, bookIds.size(), userId);
+            }
+        }
+        return bookIds;
+    }
+    
+    /**
+     * Locks the loans of several users in id order, so batch returns cannot deadlock with
+     * each other or with checkouts.
+     */
+    public void lockAll(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(", ", userIds.stream().map(id -> "?").toList());
+        jdbcTemplate.queryForList(String.format(LOCK_ALL_SQL, placeholders), Long.class, userIds.toArray());
+    }
+    
+    /**
+     * Records new loans of a user whose loans are locked by the current transaction.
+     */
+    public void borrowed(Long userId, Collection<Long> bookIds) {
+        change(userId, bookIds, true);
+    }
+    
+    /**
+     * Records that a user's loans ended, by return or loss. Takes the lock if the current
+     * transaction does not hold it yet.
+     */
+    public void released(Long userId, Collection<Long> bookIds) {
+        change(userId, bookIds, false);
+    }
+    
+    private void change(Long userId, Collection<Long> bookIds, boolean added) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        // A null count stays null and is filled in by the next lock
+        jdbcTemplate.update(ADD_SQL, added ? bookIds.size() : -bookIds.size(), userId);
+        Set<Long> changed = Set.copyOf(bookIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                loans.asMap().computeIfPresent(userId, (id, current) -> {
+                    Set<Long> next = new HashSet<>(current);
+                    if (added) {
+                        next.addAll(changed);
+                    } else {
+                        next.removeAll(changed);
+                    }
+                    return Set.copyOf(next);
+                });
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    loans.invalidate(userId);
+                }
+            }
+        });
+    }
+}
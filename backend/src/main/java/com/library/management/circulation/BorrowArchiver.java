@@ -0,0 +1,149 @@
+package com.library.management.circulation;
+
+import com.library.management.entity.BorrowRecord;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves loans that were returned or lost more than {@code library.archive.horizon-days} ago
+ * from {@code borrow_records} to {@code borrow_record_history}, on
+ * {@code library.archive.cron}, so the table every circulation query reads only grows with
+ * the loans in progress and recent history.
+ * <p>
+ * Each chunk of up to {@code library.archive.chunk-size} records is locked, copied with one
+ * INSERT ... SELECT and deleted in its own short transaction, so a record is in exactly one
+ * of the two tables whenever anyone looks. Chunks are read in the order of the
+ * {@code (status, updated_at)} index and a moved record leaves it, so every chunk starts at
+ * the front of the index. A closed record is only changed again when a returned book is
+ * reported lost, which moves it back inside the horizon. Each run records its duration in
+ * {@code borrow.archive.duration} and the records it moved in {@code borrow.archive.rows}.
+ */
+@Component
+public class BorrowArchiver {
+    
+    private static final Logger log = LoggerFactory.getLogger(BorrowArchiver.class);
+    
+    private static final List<BorrowRecord.BorrowStatus> CLOSED =
+            List.of(BorrowRecord.BorrowStatus.RETURNED, BorrowRecord.BorrowStatus.LOST);
+    
+    private static final String SELECT_SQL = "SELECT id FROM borrow_records " +
+            "WHERE status = ? AND updated_at < ? ORDER BY status, updated_at LIMIT ? FOR UPDATE";
+    private static final String COPY_SQL = "INSERT INTO borrow_record_history (id, user_id, book_id, borrow_date, " +
+            "due_date, return_date, status, fine_amount, notes, created_at, updated_at, archived_at) " +
+            "SELECT id, user_id, book_id, borrow_date, due_date, return_date, status, fine_amount, notes, " +
+            "created_at, updated_at, ? FROM borrow_records WHERE id IN (%s)";
+    private static final String DELETE_SQL = "DELETE FROM borrow_records WHERE id IN (%s)";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${library.archive.horizon-days:90}")
+    private int horizonDays;
+    
+    @Value("${library.archive.chunk-size:1000}")
+    private int chunkSize;
+    
+    private TransactionTemplate transactionTemplate;
+    private Timer duration;
+    private DistributionSummary rows;
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        duration = Timer.builder("borrow.archive.duration")
+                .description("Time taken by one archive run")
+                .register(meterRegistry);
+        rows = DistributionSummary.builder("borrow.archive.rows")
+                .description("Borrow records moved to the history table by one archive run")
+                .register(meterRegistry);
+    }
+    
+    @Scheduled(cron = "${library.archive.cron:0 45 0 * * *}")
+    public void scheduledArchive() {
+        archive();
+    }
+    
+    /**
+     * Moves every record closed before the horizon to the history table and returns how many
+     * records moved and how long it took.
+     */
+    public synchronized ArchiveResult archive() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(horizonDays));
+        long start = System.nanoTime();
+        int total = 0;
+        int chunks = 0;
+        for (BorrowRecord.BorrowStatus closed : CLOSED) {
+            while (true) {
+                Integer moved = transactionTemplate.execute(status -> archiveChunk(closed, cutoff));
+                total += moved;
+                if (moved == 0) {
+                    break;
+                }
+                chunks++;
+                if (moved < chunkSize) {
+                    break;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        duration.record(elapsed, TimeUnit.NANOSECONDS);
+        rows.record(total);
+        long millis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+        if (total > 0) {
+            log.info("Archived {} closed borrow records in {} chunks in {} ms", total, chunks, millis);
+        }
+        return new ArchiveResult(total, millis);
+    }
+    
+    private int archiveChunk(BorrowRecord.BorrowStatus closed, Timestamp cutoff) {
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_SQL, Long.class, closed.name(), cutoff, chunkSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(", ", ids.stream().map(id -> "?").toList());
+        Object[] args = new Object[ids.size() + 1];
+        args[0] = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < ids.size(); i++) {
+            args[i + 1] = ids.get(i);
+        }
+        jdbcTemplate.update(String.format(COPY_SQL, placeholders), args);
+        jdbcTemplate.update(String.format(DELETE_SQL, placeholders), ids.toArray());
+        return ids.size();
+    }
+    
+    public static class ArchiveResult {
+        private final int archived;
+        private final long durationMs;
+        
+        ArchiveResult(int archived, long durationMs) {
+            this.archived = archived;
+            this.durationMs = durationMs;
+        }
+        
+        public int getArchived() { return archived; }
+        
+        public long getDurationMs() { return durationMs; }
+    }
+}
@@ -0,0 +1,111 @@
+package com.library.management.circulation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Available copies of one hot title, spread over independent counters.
+ * <p>
+ * Each thread starts at its own stripe and only moves on to the others when that one is
+ * empty, so concurrent borrowers mostly compare-and-set different cache lines instead of one
+ * shared count. The stripes never go below zero, so the sum never oversells. Callers bracket
+ * every take or put with {@link #enter()} and {@link #leave()}; {@link #close()} stops new
+ * callers and {@link #awaitIdle} waits for the ones already inside. Thread-safe and lock-free.
+ */
+public class CopyStripes {
+    
+    // Ints per stripe, so that two stripes never share a 64-byte cache line
+    private static final int PADDING = 16;
+    
+    private final AtomicIntegerArray counts;
+    private final int mask;
+    private final LongAdder inFlight = new LongAdder();
+    private volatile boolean closed;
+    
+    /**
+     * @param stripes rounded up to a power of two
+     */
+    public CopyStripes(int available, int stripes) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        mask = size - 1;
+        counts = new AtomicIntegerArray(size * PADDING);
+        for (int i = 0; i < size; i++) {
+            counts.set(i * PADDING, available / size + (i < available % size ? 1 : 0));
+        }
+    }
+    
+    /**
+     * Takes one copy, trying the caller's own stripe first. Returns false when every stripe
+     * is empty.
+     */
+    public boolean take() {
+        int home = home();
+        for (int i = 0; i <= mask; i++) {
+            int index = ((home + i) & mask) * PADDING;
+            int count;
+            while ((count = counts.get(index)) > 0) {
+                if (counts.compareAndSet(index, count, count - 1)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    public void put() {
+        counts.incrementAndGet(home() * PADDING);
+    }
+    
+    public int available() {
+        int sum = 0;
+        for (int i = 0; i <= mask; i++) {
+            sum += counts.get(i * PADDING);
+        }
+        return sum;
+    }
+    
+    /**
+     * Registers a caller. Returns false once the title is closed; the caller must then not
+     * use these counts.
+     */
+    public boolean enter() {
+        inFlight.increment();
+        if (closed) {
+            inFlight.decrement();
+            return false;
+        }
+        return true;
+    }
+    
+    public void leave() {
+        inFlight.decrement();
+    }
+    
+    public void close() {
+        closed = true;
+    }
+    
+    public void reopen() {
+        closed = false;
+    }
+    
+    /**
+     * Waits until every caller that entered before {@link #close()} has left. Returns false
+     * on timeout.
+     */
+    public boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (inFlight.sum() > 0) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+    
+    private int home() {
+        return (int) Thread.currentThread().getId() & mask;
+    }
+}
@@ -0,0 +1,143 @@
+package com.library.management.circulation;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The deadlines of the loans that are still borrowed, in a {@link TimingWheel}, so each loan
+ * is marked overdue as soon as its due date has passed instead of when a scan finds it.
+ * <p>
+ * {@code BorrowService} schedules a deadline when a loan is created or renewed and cancels it
+ * when the loan ends; the changes take effect once the transaction commits. The wheel is
+ * rebuilt at startup from the borrowed records, through the {@code (status, due_date)} index,
+ * so it only ever holds the active loans. A loan is overdue from the midnight after its due
+ * date, in the server's time zone, and is marked within one {@code library.due-dates.tick-ms}
+ * of it. The wheel lives in this JVM; with several instances each one marks the loans it
+ * knows about, and the conditional update makes the others a no-op.
+ */
+@Component
+public class DueDateWheel {
+    
+    private static final Logger log = LoggerFactory.getLogger(DueDateWheel.class);
+    
+    private static final String LOAD_SQL = "SELECT id, due_date FROM borrow_records WHERE status = 'BORROWED'";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private OverdueSweeper overdueSweeper;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${library.due-dates.tick-ms:1000}")
+    private long tickMs;
+    
+    @Value("${library.due-dates.wheel-size:64}")
+    private int wheelSize;
+    
+    // Borrow record id -> start of the first day the loan is overdue; guarded by itself
+    private TimingWheel<Long> wheel;
+    
+    @PostConstruct
+    public void init() {
+        wheel = new TimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+        Gauge.builder("due-dates.pending", this, DueDateWheel::pending)
+                .description("Loans waiting for their due date to pass")
+                .register(meterRegistry);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        List<long[]> deadlines = new ArrayList<>();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            deadlines.add(new long[] {rs.getLong(1), deadline(rs.getDate(2).toLocalDate())});
+        });
+        synchronized (wheel) {
+            for (long[] deadline : deadlines) {
+                wheel.schedule(deadline[0], deadline[1]);
+            }
+        }
+        log.info("Due-date wheel loaded: {} loans in {} ms", deadlines.size(), System.currentTimeMillis() - start);
+    }
+    
+    /**
+     * Schedules the loan to turn overdue after {@code dueDate} once the current transaction
+     * commits, replacing its previous due date.
+     */
+    public void scheduled(Long recordId, LocalDate dueDate) {
+        long deadline = deadline(dueDate);
+        afterCommit(() -> {
+            synchronized (wheel) {
+                wheel.schedule(recordId, deadline);
+            }
+        });
+    }
+    
+    /**
+     * Drops the loan's deadline once the current transaction commits, because the loan ended.
+     */
+    public void cancelled(Long recordId) {
+        afterCommit(() -> {
+            synchronized (wheel) {
+                wheel.cancel(recordId);
+            }
+        });
+    }
+    
+    @Scheduled(fixedRateString = "${library.due-dates.tick-ms:1000}")
+    public void tick() {
+        List<Long> due;
+        synchronized (wheel) {
+            due = wheel.advance(System.currentTimeMillis());
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        int marked = overdueSweeper.markOverdue(due);
+        log.debug("{} loan deadlines passed, {} marked overdue", due.size(), marked);
+    }
+    
+    private int pending() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+    
+    // A loan due on a day is overdue from the start of the next one
+    private static long deadline(LocalDate dueDate) {
+        return dueDate.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+    
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,242 @@
+package com.library.management.circulation;
+
+import com.library.management.entity.FineLedgerEntry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Brings the fines of loans still out past their due date up to date, nightly, through
+ * {@link FineLedger}.
+ * <p>
+ * The open overdue loans are split into {@code library.fines.partitions} partitions by user
+ * id, which run in parallel and never lock the same user. Each partition reads its loans once
+ * through the {@code (status, due_date)} index and works through them in chunks of up to
+ * {@code library.fines.chunk-size}, each in its own transaction: the chunk's users are locked
+ * in id order, as checkouts and returns lock them, the fines are re-read under the locks, and
+ * the raised fines, their ledger entries and the balances are each written as one batch.
+ * Records are updated in id order, the order {@link OverdueSweeper#markOverdue} locks them in.
+ * A loan's fine is set to what it should be on the day rather than increased by a day, so a
+ * missed night is caught up and a second run on the same day changes nothing. Each run
+ * records its duration in {@code fines.accrual.duration} and the entries it wrote in
+ * {@code fines.accrual.entries}.
+ */
+@Component
+public class FineAccrual {
+    
+    private static final Logger log = LoggerFactory.getLogger(FineAccrual.class);
+    
+    private static final String SELECT_SQL = "SELECT id, user_id, due_date FROM borrow_records " +
+            "WHERE status IN ('BORROWED', 'OVERDUE') AND due_date < ? AND MOD(user_id, ?) = ? ORDER BY id";
+    private static final String RECHECK_SQL = "SELECT id, fine_amount FROM borrow_records " +
+            "WHERE id IN (%s) AND status IN ('BORROWED', 'OVERDUE')";
+    private static final String UPDATE_SQL = "UPDATE borrow_records SET fine_amount = ?, updated_at = ? WHERE id = ?";
+    
+    private static final RowMapper<Loan> LOAN_MAPPER =
+            (rs, rowNum) -> new Loan(rs.getLong(1), rs.getLong(2), rs.getDate(3).toLocalDate());
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ActiveLoans activeLoans;
+    
+    @Autowired
+    private FineLedger fineLedger;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${library.fines.partitions:4}")
+    private int partitions;
+    
+    @Value("${library.fines.chunk-size:1000}")
+    private int chunkSize;
+    
+    private TransactionTemplate transactionTemplate;
+    private ExecutorService workers;
+    private Timer duration;
+    private DistributionSummary entries;
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger threads = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(partitions, runnable -> {
+            Thread thread = new Thread(runnable, "fine-accrual-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        duration = Timer.builder("fines.accrual.duration")
+                .description("Time taken by one fine accrual run")
+                .register(meterRegistry);
+        entries = DistributionSummary.builder("fines.accrual.entries")
+                .description("Fine ledger entries written by one accrual run")
+                .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+    
+    @Scheduled(cron = "${library.fines.accrual-cron:0 15 0 * * *}")
+    public void scheduledAccrual() {
+        accrue();
+    }
+    
+    /**
+     * Raises the fine of every loan still out past its due date to what it is today, and
+     * returns how many fines changed, by how much in total and how long it took.
+     */
+    public synchronized AccrualResult accrue() {
+        LocalDate today = LocalDate.now();
+        long start = System.nanoTime();
+        List<Future<List<FineLedger.Posting>>> results = new ArrayList<>();
+        for (int partition = 0; partition < partitions; partition++) {
+            int p = partition;
+            results.add(workers.submit(() -> accruePartition(p, today)));
+        }
+        int total = 0;
+        BigDecimal amount = BigDecimal.ZERO;
+        RuntimeException failure = null;
+        for (Future<List<FineLedger.Posting>> result : results) {
+            try {
+                for (FineLedger.Posting posting : result.get()) {
+                    total++;
+                    amount = amount.add(posting.getAmount());
+                }
+            } catch (ExecutionException e) {
+                log.error("Fine accrual partition failed", e.getCause());
+                failure = new RuntimeException("Fine accrual failed: " + e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Fine accrual interrupted", e);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        duration.record(elapsed, TimeUnit.NANOSECONDS);
+        entries.record(total);
+        if (failure != null) {
+            // The chunks that committed stay; the next run picks up the rest
+            throw failure;
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+        if (total > 0) {
+            log.info("Fine accrual raised {} fines by {} in {} partitions in {} ms", total, amount, partitions, millis);
+        }
+        return new AccrualResult(total, amount, millis);
+    }
+    
+    private List<FineLedger.Posting> accruePartition(int partition, LocalDate today) {
+        List<Loan> loans = jdbcTemplate.query(SELECT_SQL, LOAN_MAPPER, Date.valueOf(today), partitions, partition);
+        List<FineLedger.Posting> posted = new ArrayList<>();
+        for (int from = 0; from < loans.size(); from += chunkSize) {
+            List<Loan> chunk = loans.subList(from, Math.min(from + chunkSize, loans.size()));
+            posted.addAll(transactionTemplate.execute(status -> accrueChunk(chunk, today)));
+        }
+        return posted;
+    }
+    
+    private List<FineLedger.Posting> accrueChunk(List<Loan> chunk, LocalDate today) {
+        TreeSet<Long> userIds = new TreeSet<>();
+        for (Loan loan : chunk) {
+            userIds.add(loan.userId);
+        }
+        // Users, then records: the order every checkout and return locks them in
+        activeLoans.lockAll(userIds);
+        
+        // With the users locked no return or loss can change these loans; some may have ended
+        // since the partition was read. A loan past its due date cannot be renewed.
+        String placeholders = String.join(", ", chunk.stream().map(loan -> "?").toList());
+        Map<Long, BigDecimal> fines = new HashMap<>();
+        jdbcTemplate.query(String.format(RECHECK_SQL, placeholders), rs -> {
+            BigDecimal fine = rs.getBigDecimal(2);
+            fines.put(rs.getLong(1), fine != null ? fine : BigDecimal.ZERO);
+        }, chunk.stream().map(loan -> loan.recordId).toArray());
+        
+        List<Object[]> updates = new ArrayList<>();
+        List<FineLedger.Posting> postings = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Loan loan : chunk) {
+            BigDecimal fine = fines.get(loan.recordId);
+            if (fine == null) {
+                continue;
+            }
+            BigDecimal target = FineLedger.fineFor(loan.dueDate, today);
+            if (target.compareTo(fine) <= 0) {
+                continue;
+            }
+            updates.add(new Object[] {target, now, loan.recordId});
+            postings.add(new FineLedger.Posting(loan.recordId, loan.userId, FineLedgerEntry.EntryType.ACCRUAL,
+                    target.subtract(fine), today));
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+            fineLedger.postAll(postings);
+        }
+        return postings;
+    }
+    
+    public static class AccrualResult {
+        private final int accrued;
+        private final BigDecimal amount;
+        private final long durationMs;
+        
+        AccrualResult(int accrued, BigDecimal amount, long durationMs) {
+            this.accrued = accrued;
+            this.amount = amount;
+            this.durationMs = durationMs;
+        }
+        
+        public int getAccrued() { return accrued; }
+        
+        public BigDecimal getAmount() { return amount; }
+        
+        public long getDurationMs() { return durationMs; }
+    }
+    
+    private static class Loan {
+        private final long recordId;
+        private final long userId;
+        private final LocalDate dueDate;
+        
+        Loan(long recordId, long userId, LocalDate dueDate) {
+            this.recordId = recordId;
+            this.userId = userId;
+            this.dueDate = dueDate;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.library.management.circulation;
+
+import com.library.management.entity.FineLedgerEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Fines as a ledger: every change to a borrow record's fine is appended to
+ * {@code fine_ledger_entries} and added to the user's {@code users.fine_balance} in the same
+ * transaction, so what a user owes is one primary-key read instead of a scan of their loans.
+ * <p>
+ * Callers change {@code borrow_records.fine_amount} and post the difference here. They hold
+ * the user's lock from {@link ActiveLoans} while doing so, which keeps the balance in step
+ * with the fines. A balance that was never needed is null and is worked out from the fines
+ * the first time it is read.
+ */
+@Component
+public class FineLedger {
+    
+    public static final BigDecimal FINE_PER_DAY = new BigDecimal("1.00");
+    // Usually the cost of the book
+    public static final BigDecimal LOST_FINE = new BigDecimal("50.00");
+    
+    private static final String INSERT_SQL = "INSERT INTO fine_ledger_entries " +
+            "(borrow_record_id, user_id, type, amount, accrual_date, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String ADD_SQL = "UPDATE users SET fine_balance = fine_balance + ? WHERE id = ?";
+    private static final String BALANCE_SQL = "SELECT fine_balance FROM users WHERE id = ?";
+    private static final String LOCK_SQL = "SELECT fine_balance FROM users WHERE id = ? FOR UPDATE";
+    private static final String FINES_SQL =
+            "SELECT fine_amount FROM borrow_records WHERE user_id = ? AND fine_amount > 0 FOR UPDATE";
+    private static final String ARCHIVED_FINES_SQL =
+            "SELECT fine_amount FROM borrow_record_history WHERE user_id = ? AND fine_amount > 0 FOR UPDATE";
+    private static final String SET_BALANCE_SQL = "UPDATE users SET fine_balance = ? WHERE id = ?";
+    private static final String FINE_SQL = "SELECT fine_amount FROM borrow_records WHERE id = ? FOR UPDATE";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * The fine for a loan due on {@code dueDate} that is still out, or came back, on
+     * {@code asOf}.
+     */
+    public static BigDecimal fineFor(LocalDate dueDate, LocalDate asOf) {
+        if (!asOf.isAfter(dueDate)) {
+            return BigDecimal.ZERO;
+        }
+        return FINE_PER_DAY.multiply(BigDecimal.valueOf(asOf.toEpochDay() - dueDate.toEpochDay()));
+    }
+    
+    /**
+     * The fine a borrow record carries now, read with a lock so it is the latest committed
+     * one whatever this transaction's snapshot.
+     */
+    public BigDecimal currentFine(Long recordId) {
+        List<BigDecimal> fines = jdbcTemplate.queryForList(FINE_SQL, BigDecimal.class, recordId);
+        return fines.isEmpty() || fines.get(0) == null ? BigDecimal.ZERO : fines.get(0);
+    }
+    
+    /**
+     * Records a change to the fine of one borrow record; nothing is written for no change.
+     */
+    public void post(Long recordId, Long userId, FineLedgerEntry.EntryType type, BigDecimal amount) {
+        postAll(List.of(new Posting(recordId, userId, type, amount, LocalDate.now())));
+    }
+    
+    /**
+     * Appends the postings as one JDBC batch and applies them to the balances with one update
+     * per user, in user id order.
+     */
+    public void postAll(List<Posting> postings) {
+        List<Object[]> entries = new ArrayList<>();
+        Map<Long, BigDecimal> deltas = new TreeMap<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Posting posting : postings) {
+            if (posting.amount.signum() == 0) {
+                continue;
+            }
+            entries.add(new Object[] {posting.recordId, posting.userId, posting.type.name(), posting.amount,
+                    Date.valueOf(posting.accrualDate), now});
+            deltas.merge(posting.userId, posting.amount, BigDecimal::add);
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries);
+        List<Object[]> balances = new ArrayList<>();
+        // A null balance stays null and is worked out on the next read
+        deltas.forEach((userId, delta) -> balances.add(new Object[] {delta, userId}));
+        jdbcTemplate.batchUpdate(ADD_SQL, balances);
+    }
+    
+    /**
+     * What the user owes. Needs a transaction the first time, to fill in the balance.
+     */
+    public BigDecimal balance(Long userId) {
+        List<BigDecimal> balances = jdbcTemplate.queryForList(BALANCE_SQL, BigDecimal.class, userId);
+        if (balances.isEmpty()) {
+            throw new RuntimeException("User not found");
+        }
+        if (balances.get(0) != null) {
+            return balances.get(0);
+        }
+        BigDecimal balance = jdbcTemplate.queryForObject(LOCK_SQL, BigDecimal.class, userId);
+        if (balance != null) {
+            return balance;
+        }
+        // A locking read sees the latest committed fines, whatever this transaction's snapshot.
+        // The current records come first: one being archived meanwhile is waited for there
+        // and then found in the history table.
+        balance = BigDecimal.ZERO;
+        for (BigDecimal fine : jdbcTemplate.queryForList(FINES_SQL, BigDecimal.class, userId)) {
+            balance = balance.add(fine);
+        }
+        for (BigDecimal fine : jdbcTemplate.queryForList(ARCHIVED_FINES_SQL, BigDecimal.class, userId)) {
+            balance = balance.add(fine);
+        }
+        jdbcTemplate.update(SET_BALANCE_SQL, balance, userId);
+        return balance;
+    }
+    
+    public static class Posting {
+        private final Long recordId;
+        private final Long userId;
+        private final FineLedgerEntry.EntryType type;
+        private final BigDecimal amount;
+        private final LocalDate accrualDate;
+        
+        public Posting(Long recordId, Long userId, FineLedgerEntry.EntryType type, BigDecimal amount,
+                       LocalDate accrualDate) {
+            this.recordId = recordId;
+            this.userId = userId;
+            this.type = type;
+            this.amount = amount;
+            this.accrualDate = accrualDate;
+        }
+        
+        public BigDecimal getAmount() { return amount; }
+    }
+}
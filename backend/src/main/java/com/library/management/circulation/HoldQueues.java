@@ -0,0 +1,89 @@
+package com.library.management.circulation;
+
+import com.library.management.entity.Hold;
+import com.library.management.event.HoldChangedEvent;
+import com.library.management.repository.HoldRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The waiting holds of every book in queue order, so a patron's position is answered from
+ * memory instead of counting rows on every poll. Seeded at startup and kept current from
+ * {@link HoldChangedEvent}s once their transaction commits.
+ */
+@Component
+public class HoldQueues {
+    
+    private static final Logger log = LoggerFactory.getLogger(HoldQueues.class);
+    
+    @Autowired
+    private HoldRepository holdRepository;
+    
+    // Book id -> waiting hold ids. Hold ids grow with time, so their order is queue order. The
+    // sets are only touched inside compute calls, which lock their entry of the map
+    private final Map<Long, NavigableSet<Long>> queues = new ConcurrentHashMap<>();
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        queues.clear();
+        int holds = 0;
+        for (Hold hold : holdRepository.findAllWaiting()) {
+            add(hold.getBook().getId(), hold.getId());
+            holds++;
+        }
+        log.info("Hold queues loaded: {} holds on {} books", holds, queues.size());
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHoldChanged(HoldChangedEvent event) {
+        if (event.isWaiting()) {
+            add(event.getBookId(), event.getHoldId());
+        } else {
+            queues.computeIfPresent(event.getBookId(), (bookId, queue) -> {
+                queue.remove(event.getHoldId());
+                return queue.isEmpty() ? null : queue;
+            });
+        }
+    }
+    
+    /**
+     * 1-based position of a waiting hold, or 0 when it is not waiting.
+     */
+    public int position(Long bookId, Long holdId) {
+        int[] position = {0};
+        queues.computeIfPresent(bookId, (id, queue) -> {
+            if (queue.contains(holdId)) {
+                position[0] = queue.headSet(holdId, false).size() + 1;
+            }
+            return queue;
+        });
+        return position[0];
+    }
+    
+    public int length(Long bookId) {
+        int[] length = {0};
+        queues.computeIfPresent(bookId, (id, queue) -> {
+            length[0] = queue.size();
+            return queue;
+        });
+        return length[0];
+    }
+    
+    private void add(Long bookId, Long holdId) {
+        queues.compute(bookId, (id, queue) -> {
+            NavigableSet<Long> updated = queue != null ? queue : new TreeSet<>();
+            updated.add(holdId);
+            return updated;
+        });
+    }
+}
@@ -0,0 +1,309 @@
+package com.library.management.circulation;
+
+import com.library.management.event.BookChangedEvent;
+import com.library.management.event.BookSnapshot;
+import com.library.management.repository.BookRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out the copies of hot titles from in-memory {@link CopyStripes} instead of the
+ * {@code books} row, so a title that hundreds of borrowers want at once is not serialized on
+ * one row lock.
+ * <p>
+ * A take or return only inserts a {@code copy_ledger_entries} row in the caller's
+ * transaction, next to its borrow record; the counts move in memory when that transaction
+ * completes. {@link #flush()} applies the entries to {@code books.available_copies} in
+ * batches and deletes them in the same transaction, so entries left by a crash are replayed
+ * on the next startup before any counts are seeded. While {@code books.hot_title} is set, the
+ * conditional updates in {@code BookRepository} leave the row alone. The counts live in this
+ * JVM, so hot-title mode assumes a single application instance.
+ */
+@Component
+public class HotTitleLedger {
+    
+    private static final Logger log = LoggerFactory.getLogger(HotTitleLedger.class);
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO copy_ledger_entries (book_id, delta, created_at) VALUES (?, ?, ?)";
+    private static final String SELECT_SQL = "SELECT id, book_id, delta FROM copy_ledger_entries ORDER BY id LIMIT ?";
+    private static final String APPLY_SQL =
+            "UPDATE books SET available_copies = available_copies + ?, updated_at = ? WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM copy_ledger_entries WHERE id = ?";
+    private static final String SET_FLAG_SQL = "UPDATE books SET hot_title = ?, updated_at = ? WHERE id = ?";
+    
+    public enum Result {
+        /** The book is not in hot-title mode; use the database path. */
+        NOT_HOT,
+        TAKEN,
+        NONE_LEFT,
+        RETURNED
+    }
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Value("${library.hot-titles.stripes:0}")
+    private int stripes;
+    
+    @Value("${library.hot-titles.flush-batch-size:5000}")
+    private int flushBatchSize;
+    
+    @Value("${library.hot-titles.switch-timeout-ms:5000}")
+    private long switchTimeoutMillis;
+    
+    private final Map<Long, CopyStripes> titles = new ConcurrentHashMap<>();
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        if (stripes <= 0) {
+            stripes = Runtime.getRuntime().availableProcessors();
+        }
+    }
+    
+    /**
+     * Replays the entries a previous run left behind, then seeds the counts of every hot
+     * title from the now exact {@code books} rows.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void load() {
+        int replayed = flush();
+        jdbcTemplate.query("SELECT id, available_copies FROM books WHERE hot_title = true",
+                rs -> { titles.put(rs.getLong(1), new CopyStripes(rs.getInt(2), stripes)); });
+        log.info("Hot-title ledger loaded: {} titles, {} entries replayed", titles.size(), replayed);
+    }
+    
+    public boolean isHot(Long bookId) {
+        return titles.containsKey(bookId);
+    }
+    
+    /**
+     * In-memory copies left of a hot title, or null when the book is not in hot-title mode.
+     */
+    public Integer available(Long bookId) {
+        CopyStripes copies = titles.get(bookId);
+        return copies != null ? copies.available() : null;
+    }
+    
+    /**
+     * Takes a copy of {@code bookId} for the current transaction, which gets it back if it
+     * rolls back. Returns {@link Result#NOT_HOT} when the book is not in hot-title mode.
+     */
+    public Result take(Long bookId) {
+        CopyStripes copies = enter(bookId);
+        if (copies == null) {
+            return Result.NOT_HOT;
+        }
+        PendingCopy pending = new PendingCopy(copies, -1);
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        if (!copies.take()) {
+            return Result.NONE_LEFT;
+        }
+        pending.moved = true;
+        record(bookId, -1);
+        return Result.TAKEN;
+    }
+    
+    /**
+     * Returns a copy of {@code bookId}; it can be borrowed again once the current transaction
+     * commits. Returns {@link Result#NOT_HOT} when the book is not in hot-title mode.
+     */
+    public Result release(Long bookId) {
+        CopyStripes copies = enter(bookId);
+        if (copies == null) {
+            return Result.NOT_HOT;
+        }
+        PendingCopy pending = new PendingCopy(copies, 1);
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        record(bookId, 1);
+        pending.moved = true;
+        return Result.RETURNED;
+    }
+    
+    /**
+     * Puts a book into hot-title mode and seeds its counts from the row. Returns the copies
+     * available.
+     */
+    public synchronized int enable(Long bookId) {
+        CopyStripes existing = titles.get(bookId);
+        if (existing != null) {
+            return existing.available();
+        }
+        return transactionTemplate.execute(status -> {
+            // Once the flag is set no conditional update touches the row, so the count read
+            // under its lock stays exact until the ledger takes over after commit
+            if (jdbcTemplate.update(SET_FLAG_SQL, true, Timestamp.valueOf(LocalDateTime.now()), bookId) == 0) {
+                throw new RuntimeException("Book not found");
+            }
+            BookSnapshot current = bookRepository.findSnapshotById(bookId)
+                    .orElseThrow(() -> new RuntimeException("Book not found"));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    titles.put(bookId, new CopyStripes(current.getAvailableCopies(), stripes));
+                }
+            });
+            eventPublisher.publishEvent(BookChangedEvent.updated(current, current));
+            return current.getAvailableCopies();
+        });
+    }
+    
+    /**
+     * Takes a book out of hot-title mode: waits for the loans in progress, applies the
+     * pending entries and hands the count back to the row. Borrowers of the title are asked
+     * to retry in the meantime.
+     */
+    public synchronized void disable(Long bookId) {
+        CopyStripes copies = titles.get(bookId);
+        if (copies == null) {
+            return;
+        }
+        copies.close();
+        try {
+            if (!copies.awaitIdle(switchTimeoutMillis)) {
+                copies.reopen();
+                throw new RuntimeException("Hot title is busy, please try again");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            copies.reopen();
+            throw new RuntimeException("Interrupted while switching hot-title mode off");
+        }
+        flush();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(SET_FLAG_SQL, false, Timestamp.valueOf(LocalDateTime.now()), bookId);
+            bookRepository.findSnapshotById(bookId).ifPresent(current ->
+                    eventPublisher.publishEvent(BookChangedEvent.updated(current, current)));
+        });
+        titles.remove(bookId);
+    }
+    
+    @Scheduled(fixedDelayString = "${library.hot-titles.flush-interval-ms:200}")
+    public void flushPending() {
+        if (!titles.isEmpty()) {
+            flush();
+        }
+    }
+    
+    /**
+     * Applies every pending entry to {@code books.available_copies}, one transaction per
+     * batch, and returns how many were applied.
+     */
+    public synchronized int flush() {
+        int applied = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> flushBatch());
+            applied += batch;
+        } while (batch == flushBatchSize);
+        return applied;
+    }
+    
+    private int flushBatch() {
+        List<long[]> entries = jdbcTemplate.query(SELECT_SQL,
+                (rs, rowNum) -> new long[] { rs.getLong(1), rs.getLong(2), rs.getInt(3) }, flushBatchSize);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        
+        // Id order, like the batch checkout, so the row locks are always taken in one order
+        Map<Long, Integer> deltas = new TreeMap<>();
+        for (long[] entry : entries) {
+            deltas.merge(entry[1], (int) entry[2], Integer::sum);
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(APPLY_SQL, deltas.entrySet(), deltas.size(), (ps, delta) -> {
+            ps.setInt(1, delta.getValue());
+            ps.setTimestamp(2, now);
+            ps.setLong(3, delta.getKey());
+        });
+        // Deleted by id: a range delete would also remove entries committed after the select
+        jdbcTemplate.batchUpdate(DELETE_SQL, entries, entries.size(), (ps, entry) -> ps.setLong(1, entry[0]));
+        
+        if (!deltas.isEmpty()) {
+            for (BookSnapshot current : bookRepository.findSnapshotsByIdIn(deltas.keySet())) {
+                int delta = deltas.get(current.getId());
+                eventPublisher.publishEvent(BookChangedEvent.updated(
+                        current.withAvailableCopies(current.getAvailableCopies() - delta), current));
+            }
+        }
+        return entries.size();
+    }
+    
+    private CopyStripes enter(Long bookId) {
+        CopyStripes copies = titles.get(bookId);
+        if (copies == null || !copies.enter()) {
+            return null;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            copies.leave();
+            throw new IllegalStateException("Hot-title copies can only be moved inside a transaction");
+        }
+        return copies;
+    }
+    
+    private void record(Long bookId, int delta) {
+        jdbcTemplate.update(INSERT_SQL, bookId, delta, Timestamp.valueOf(LocalDateTime.now()));
+    }
+    
+    /**
+     * Settles one take or return when its transaction completes: a take is undone unless the
+     * transaction committed, a return only counts once it has.
+     */
+    private static class PendingCopy implements TransactionSynchronization {
+        
+        private final CopyStripes copies;
+        private final int delta;
+        private boolean moved;
+        
+        PendingCopy(CopyStripes copies, int delta) {
+            this.copies = copies;
+            this.delta = delta;
+        }
+        
+        @Override
+        public void afterCompletion(int status) {
+            boolean committed = status == STATUS_COMMITTED;
+            if (moved && (delta < 0 ? !committed : committed)) {
+                copies.put();
+            }
+            copies.leave();
+        }
+    }
+}
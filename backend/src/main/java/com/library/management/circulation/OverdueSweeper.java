@@ -0,0 +1,197 @@
+package com.library.management.circulation;
+
+import com.library.management.entity.BorrowRecord;
+import com.library.management.event.BorrowStatusChangedEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marks borrowed records whose due date has passed as overdue. {@link DueDateWheel} does so
+ * for each loan the moment its deadline passes, through {@link #markOverdue}; the scheduled
+ * sweep is a daily safety net for anything the wheel did not see.
+ * <p>
+ * Each chunk of up to {@code library.overdue.chunk-size} records is locked and flipped with
+ * one UPDATE in its own short transaction, so a sweep over a large backlog never holds more
+ * than one chunk's locks and keeps no entities in memory. Chunks are read in the order of the
+ * {@code (status, due_date)} index, and a flipped record leaves that range, so every chunk
+ * starts at the front of the index without sorting or skipping rows. The overdue lists
+ * and counts also take past-due borrowed records into account, so they stay right between
+ * sweeps; the flag is what the status filter and the change stream see. Each sweep records
+ * its duration in {@code overdue.sweep.duration} and the records it changed in
+ * {@code overdue.sweep.rows}.
+ */
+@Component
+public class OverdueSweeper {
+    
+    private static final Logger log = LoggerFactory.getLogger(OverdueSweeper.class);
+    
+    private static final String SELECT_SQL = "SELECT id, user_id, book_id FROM borrow_records " +
+            "WHERE status = 'BORROWED' AND due_date < ? ORDER BY due_date, id LIMIT ? FOR UPDATE";
+    private static final String SELECT_IDS_SQL = "SELECT id, user_id, book_id FROM borrow_records " +
+            "WHERE id IN (%s) AND status = 'BORROWED' AND due_date < ? ORDER BY id FOR UPDATE";
+    private static final String UPDATE_SQL =
+            "UPDATE borrow_records SET status = 'OVERDUE', updated_at = ? WHERE id IN (%s)";
+    
+    private static final RowMapper<Loan> LOAN_MAPPER =
+            (rs, rowNum) -> new Loan(rs.getLong(1), rs.getLong(2), rs.getLong(3));
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${library.overdue.chunk-size:1000}")
+    private int chunkSize;
+    
+    private TransactionTemplate transactionTemplate;
+    private Timer duration;
+    private DistributionSummary rows;
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        duration = Timer.builder("overdue.sweep.duration")
+                .description("Time taken by one overdue sweep")
+                .register(meterRegistry);
+        rows = DistributionSummary.builder("overdue.sweep.rows")
+                .description("Borrow records marked overdue by one sweep")
+                .register(meterRegistry);
+    }
+    
+    @Scheduled(fixedDelayString = "${library.overdue.sweep-interval-ms:86400000}",
+               initialDelayString = "${library.overdue.initial-delay-ms:60000}")
+    public void scheduledSweep() {
+        sweep();
+    }
+    
+    /**
+     * Marks every borrowed record due before today as overdue and returns how many records
+     * changed and how long it took.
+     */
+    public synchronized SweepResult sweep() {
+        LocalDate today = LocalDate.now();
+        long start = System.nanoTime();
+        int total = 0;
+        int chunks = 0;
+        while (true) {
+            List<Loan> chunk = transactionTemplate.execute(status -> sweepChunk(today));
+            total += chunk.size();
+            if (chunk.isEmpty()) {
+                break;
+            }
+            chunks++;
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        duration.record(elapsed, TimeUnit.NANOSECONDS);
+        rows.record(total);
+        long millis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+        if (total > 0) {
+            log.info("Overdue sweep marked {} borrow records in {} chunks in {} ms", total, chunks, millis);
+        }
+        return new SweepResult(total, millis);
+    }
+    
+    /**
+     * Marks the given records overdue if they are still borrowed and past due, in chunks of
+     * their own transactions; returns how many changed. For deadlines that have just passed.
+     */
+    public int markOverdue(List<Long> recordIds) {
+        LocalDate today = LocalDate.now();
+        int total = 0;
+        for (int from = 0; from < recordIds.size(); from += chunkSize) {
+            List<Long> ids = recordIds.subList(from, Math.min(from + chunkSize, recordIds.size()));
+            total += transactionTemplate.execute(status -> markChunk(ids, today)).size();
+        }
+        return total;
+    }
+    
+    private List<Loan> sweepChunk(LocalDate today) {
+        return flip(jdbcTemplate.query(SELECT_SQL, LOAN_MAPPER, Date.valueOf(today), chunkSize));
+    }
+    
+    private List<Loan> markChunk(List<Long> ids, LocalDate today) {
+        String placeholders = String.join(", ", ids.stream().map(id -> "?").toList());
+        Object[] args = new Object[ids.size() + 1];
+        for (int i = 0; i < ids.size(); i++) {
+            args[i] = ids.get(i);
+        }
+        args[ids.size()] = Date.valueOf(today);
+        return flip(jdbcTemplate.query(String.format(SELECT_IDS_SQL, placeholders), LOAN_MAPPER, args));
+    }
+    
+    // Marks loans locked by the current transaction overdue
+    private List<Loan> flip(List<Loan> chunk) {
+        if (chunk.isEmpty()) {
+            return chunk;
+        }
+        String placeholders = String.join(", ", chunk.stream().map(loan -> "?").toList());
+        Object[] args = new Object[chunk.size() + 1];
+        args[0] = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < chunk.size(); i++) {
+            args[i + 1] = chunk.get(i).recordId;
+        }
+        jdbcTemplate.update(String.format(UPDATE_SQL, placeholders), args);
+        // Delivered when the chunk commits
+        for (Loan loan : chunk) {
+            eventPublisher.publishEvent(new BorrowStatusChangedEvent(loan.recordId, loan.userId, loan.bookId,
+                    BorrowRecord.BorrowStatus.BORROWED, BorrowRecord.BorrowStatus.OVERDUE));
+        }
+        return chunk;
+    }
+    
+    public static class SweepResult {
+        private final int updated;
+        private final long durationMs;
+        
+        SweepResult(int updated, long durationMs) {
+            this.updated = updated;
+            this.durationMs = durationMs;
+        }
+        
+        public int getUpdated() { return updated; }
+        
+        public long getDurationMs() { return durationMs; }
+    }
+    
+    private static class Loan {
+        private final long recordId;
+        private final long userId;
+        private final long bookId;
+        
+        Loan(long recordId, long userId, long bookId) {
+            this.recordId = recordId;
+            this.userId = userId;
+            this.bookId = bookId;
+        }
+    }
+}
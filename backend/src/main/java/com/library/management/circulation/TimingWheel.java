@@ -0,0 +1,161 @@
+package com.library.management.circulation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel: deadlines for keys, handed back once their time has passed.
+ * <p>
+ * The first level has {@code wheelSize} buckets of {@code tickMs} each; every further level
+ * has as many buckets, each as wide as the whole level below, and is only created when a
+ * deadline is that far out. Scheduling and cancelling are constant time, and advancing the
+ * clock only looks at the buckets it passes. A bucket of a higher level is emptied into the
+ * levels below when the clock reaches it, so memory stays proportional to the pending
+ * deadlines. A deadline is reported at the end of its tick, never before it. Not thread-safe.
+ */
+public class TimingWheel<K> {
+    
+    private final int wheelSize;
+    private final List<Level> levels = new ArrayList<>();
+    private final Map<K, Timeout<K>> timeouts = new HashMap<>();
+    // Deadlines that had already passed when they were scheduled
+    private final Set<Timeout<K>> expired = new HashSet<>();
+    
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        this.wheelSize = wheelSize;
+        levels.add(new Level(tickMs, startMs - startMs % tickMs));
+    }
+    
+    /**
+     * Schedules {@code key} at {@code deadlineMs}, replacing any deadline it already had.
+     */
+    public void schedule(K key, long deadlineMs) {
+        cancel(key);
+        Timeout<K> timeout = new Timeout<>(key, deadlineMs);
+        timeouts.put(key, timeout);
+        place(timeout);
+    }
+    
+    public boolean cancel(K key) {
+        Timeout<K> timeout = timeouts.remove(key);
+        if (timeout == null) {
+            return false;
+        }
+        timeout.bucket.remove(timeout);
+        return true;
+    }
+    
+    /**
+     * Moves the clock to {@code nowMs} and returns the keys whose deadlines have passed; they
+     * are no longer scheduled.
+     */
+    public List<K> advance(long nowMs) {
+        List<Timeout<K>> due = new ArrayList<>(expired);
+        expired.clear();
+        
+        // The first level reports the ticks that have ended
+        Level first = levels.get(0);
+        long now = nowMs - nowMs % first.tickMs;
+        long ticks = Math.min((now - first.currentTime) / first.tickMs, wheelSize);
+        for (long i = 0; i < ticks; i++) {
+            due.addAll(first.drain(first.currentTime + i * first.tickMs));
+        }
+        first.currentTime = Math.max(first.currentTime, now);
+        
+        // Higher levels hand the bucket the clock has just reached down to the levels below
+        for (int l = 1; l < levels.size(); l++) {
+            Level level = levels.get(l);
+            long levelNow = nowMs - nowMs % level.tickMs;
+            long levelTicks = Math.min((levelNow - level.currentTime) / level.tickMs, wheelSize);
+            level.currentTime = Math.max(level.currentTime, levelNow);
+            for (long i = levelTicks - 1; i >= 0; i--) {
+                for (Timeout<K> timeout : level.drain(levelNow - i * level.tickMs)) {
+                    place(timeout);
+                }
+            }
+        }
+        due.addAll(expired);
+        expired.clear();
+        
+        List<K> keys = new ArrayList<>(due.size());
+        for (Timeout<K> timeout : due) {
+            timeouts.remove(timeout.key);
+            keys.add(timeout.key);
+        }
+        return keys;
+    }
+    
+    public int size() {
+        return timeouts.size();
+    }
+    
+    private void place(Timeout<K> timeout) {
+        Level first = levels.get(0);
+        if (timeout.deadline < first.currentTime) {
+            timeout.bucket = expired;
+            expired.add(timeout);
+            return;
+        }
+        for (int l = 0; ; l++) {
+            if (l == levels.size()) {
+                Level below = levels.get(l - 1);
+                long tick = below.tickMs * wheelSize;
+                levels.add(new Level(tick, first.currentTime - first.currentTime % tick));
+            }
+            Level level = levels.get(l);
+            if (timeout.deadline < level.currentTime + level.tickMs * wheelSize) {
+                level.add(timeout);
+                return;
+            }
+        }
+    }
+    
+    private class Level {
+        private final long tickMs;
+        private final Set<Timeout<K>>[] buckets;
+        // Start of the current tick
+        private long currentTime;
+        
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Level(long tickMs, long currentTime) {
+            this.tickMs = tickMs;
+            this.currentTime = currentTime;
+            this.buckets = new Set[wheelSize];
+        }
+        
+        void add(Timeout<K> timeout) {
+            int index = (int) ((timeout.deadline / tickMs) % wheelSize);
+            if (buckets[index] == null) {
+                buckets[index] = new HashSet<>();
+            }
+            timeout.bucket = buckets[index];
+            timeout.bucket.add(timeout);
+        }
+        
+        // Empties the bucket of the tick starting at tickStart
+        Set<Timeout<K>> drain(long tickStart) {
+            int index = (int) ((tickStart / tickMs) % wheelSize);
+            Set<Timeout<K>> bucket = buckets[index];
+            if (bucket == null) {
+                return Set.of();
+            }
+            buckets[index] = null;
+            return bucket;
+        }
+    }
+    
+    private static class Timeout<K> {
+        private final K key;
+        private final long deadline;
+        private Set<Timeout<K>> bucket;
+        
+        Timeout(K key, long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+    }
+}
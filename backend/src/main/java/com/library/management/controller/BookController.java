@@ -1,17 +1,44 @@
 package com.library.management.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.management.cache.CatalogVersion;
+import com.library.management.circulation.HotTitleLedger;
+import com.library.management.dto.BookBrowseResponse;
+import com.library.management.dto.BookCardDto;
+import com.library.management.dto.SuggestionDto;
 import com.library.management.entity.Book;
+import com.library.management.pagination.CursorCodec;
+import com.library.management.pagination.SlicePage;
+import com.library.management.search.BookSearchIndex;
+import com.library.management.search.BookSuggester;
+import com.library.management.service.BookImportService;
 import com.library.management.service.BookService;
+import com.library.management.service.ExportService;
+import com.library.management.transfer.TransferFormat;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,43 +51,103 @@ public class BookController {
     @Autowired
     private BookService bookService;
     
+    @Autowired
+    private BookSuggester bookSuggester;
+    
+    @Autowired
+    private CursorCodec cursorCodec;
+    
+    @Autowired
+    private CatalogVersion catalogVersion;
+    
+    @Autowired
+    private BookImportService bookImportService;
+    
+    @Autowired
+    private ExportService exportService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private HotTitleLedger hotTitleLedger;
+    
     @GetMapping
-    public ResponseEntity<Page<Book>> getAllBooks(
+    public ResponseEntity<?> getAllBooks(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "title") String sortBy,
+            @RequestParam(required = false) String sortBy,
             @RequestParam(defaultValue = "asc") String sortDir,
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String author,
-            @RequestParam(defaultValue = "false") boolean availableOnly) {
+            @RequestParam(defaultValue = "false") boolean availableOnly,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "exact") String count,
+            WebRequest request) {
         
-        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
-            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
-        Pageable pageable = PageRequest.of(page, size, sort);
+        if (request.checkNotModified(catalogVersion.etag())) {
+            return notModified();
+        }
         
-        Page<Book> books;
+        search = trimToNull(search);
+        category = trimToNull(category);
+        author = trimToNull(author);
+        if (after != null) {
+            try {
+                // There is no relevance column to seek on, so cursor pages default to title order
+                Sort sort = sort(sortBy != null ? sortBy : "title", sortDir, search);
+                ScrollPosition position = cursorCodec.decode(after, Book.class, sort);
+                return revalidated(cursorCodec.page(bookService.scrollBooks(
+                        search, category, author, availableOnly, sort, position, size)));
+            } catch (Exception e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", e.getMessage());
+                return ResponseEntity.badRequest().body(error);
+            }
+        }
         
-        if (search != null && !search.trim().isEmpty()) {
-            books = bookService.searchBooks(search.trim(), pageable);
-        } else if (category != null && !category.trim().isEmpty()) {
-            books = bookService.findBooksByCategory(category.trim(), pageable);
-        } else if (author != null && !author.trim().isEmpty()) {
-            books = bookService.findBooksByAuthor(author.trim(), pageable);
-        } else if (availableOnly) {
-            books = bookService.findAvailableBooks(pageable);
-        } else {
-            books = bookService.findAllBooks(pageable);
+        Pageable pageable = PageRequest.of(page, size, sort(sortBy, sortDir, search));
+        
+        // count=none or count=approximate skip the exact COUNT query
+        if (!count.equalsIgnoreCase("exact")) {
+            Slice<BookCardDto> slice = bookService.findBookSlice(search, category, author, availableOnly, pageable);
+            Long total = count.equalsIgnoreCase("approximate")
+                    ? bookService.approximateBookCount(search, category, author, availableOnly) : null;
+            return revalidated(new SlicePage<>(slice, total));
         }
         
-        return ResponseEntity.ok(books);
+        Page<BookCardDto> books = bookService.findBooks(search, category, author, availableOnly, pageable);
+        return revalidated(books);
+    }
+    
+    @GetMapping("/browse")
+    public ResponseEntity<BookBrowseResponse> browseBooks(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String author,
+            @RequestParam(defaultValue = "false") boolean availableOnly,
+            @RequestParam(defaultValue = "20") int facetLimit) {
+        
+        search = trimToNull(search);
+        Pageable pageable = PageRequest.of(page, size, sort(sortBy, sortDir, search));
+        
+        return ResponseEntity.ok(bookService.browseBooks(search, trimToNull(category), trimToNull(author),
+                availableOnly, pageable, Math.min(Math.max(facetLimit, 1), 100)));
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<Book> getBookById(@PathVariable Long id) {
+    public ResponseEntity<Book> getBookById(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(catalogVersion.etag())) {
+            return notModified();
+        }
         try {
             Book book = bookService.findById(id);
-            return ResponseEntity.ok(book);
+            return revalidated(book);
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
@@ -76,22 +163,78 @@ public class BookController {
         }
     }
     
+    /**
+     * Streams the whole catalog as CSV or NDJSON, in id order.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    public ResponseEntity<StreamingResponseBody> exportBooks(@RequestParam(defaultValue = "csv") String format) {
+        TransferFormat transferFormat;
+        try {
+            transferFormat = TransferFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(output -> objectMapper.writeValue(output, error));
+        }
+        
+        StreamingResponseBody body = output -> exportService.exportBooks(output, transferFormat);
+        return ResponseEntity.ok()
+                .contentType(transferFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("books." + transferFormat.getExtension()).build().toString())
+                .body(body);
+    }
+    
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDto>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(bookSuggester.suggest(prefix, Math.min(Math.max(limit, 1), 20)));
+    }
+    
     @GetMapping("/top-rated")
-    public ResponseEntity<Page<Book>> getTopRatedBooks(
+    public ResponseEntity<Page<BookCardDto>> getTopRatedBooks(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         Pageable pageable = PageRequest.of(page, size);
         return ResponseEntity.ok(bookService.findTopRatedBooks(pageable));
     }
     
+    // Tagged with the version of the list itself, which a borrow or an edited title leaves alone
     @GetMapping("/categories")
-    public ResponseEntity<List<String>> getAllCategories() {
-        return ResponseEntity.ok(bookService.getAllCategories());
+    public ResponseEntity<List<String>> getAllCategories(WebRequest request) {
+        if (request.checkNotModified(valuesEtag("categories", bookService.getCategoriesVersion()))) {
+            return notModified();
+        }
+        return revalidated(bookService.getAllCategories());
     }
     
     @GetMapping("/authors")
-    public ResponseEntity<List<String>> getAllAuthors() {
-        return ResponseEntity.ok(bookService.getAllAuthors());
+    public ResponseEntity<List<String>> getAllAuthors(WebRequest request) {
+        if (request.checkNotModified(valuesEtag("authors", bookService.getAuthorsVersion()))) {
+            return notModified();
+        }
+        return revalidated(bookService.getAllAuthors());
+    }
+    
+    @GetMapping("/categories/search")
+    public ResponseEntity<Page<String>> searchCategories(
+            @RequestParam(required = false) String prefix,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        Pageable pageable = PageRequest.of(page, Math.min(Math.max(size, 1), 500));
+        return ResponseEntity.ok(bookService.findCategories(trimToNull(prefix), pageable));
+    }
+    
+    @GetMapping("/authors/search")
+    public ResponseEntity<Page<String>> searchAuthors(
+            @RequestParam(required = false) String prefix,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        Pageable pageable = PageRequest.of(page, Math.min(Math.max(size, 1), 500));
+        return ResponseEntity.ok(bookService.findAuthors(trimToNull(prefix), pageable));
     }
     
     @PostMapping
@@ -107,6 +250,23 @@ public class BookController {
         }
     }
     
+    /**
+     * Imports books from a CSV (with a header row) or NDJSON body. The response is NDJSON,
+     * streamed while the import runs: one line per rejected row, a progress line per chunk
+     * and a final summary line.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson", "application/json"})
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    public ResponseEntity<StreamingResponseBody> importBooks(HttpServletRequest request) throws IOException {
+        TransferFormat format = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(TransferFormat.CSV.getMediaType()) ? TransferFormat.CSV : TransferFormat.NDJSON;
+        InputStream input = request.getInputStream();
+        
+        StreamingResponseBody body = output -> bookImportService.importBooks(input, format,
+                result -> writeLine(output, result));
+        return ResponseEntity.ok().contentType(TransferFormat.NDJSON.getMediaType()).body(body);
+    }
+    
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
     public ResponseEntity<?> updateBook(@PathVariable Long id, @Valid @RequestBody Book book) {
@@ -157,4 +317,73 @@ public class BookController {
             return ResponseEntity.badRequest().body(error);
         }
     }
+    
+    /**
+     * Switches hot-title mode for a book: while on, its copies are handed out from memory and
+     * written to the books table in batches. Meant for titles many borrowers want at once,
+     * such as a newly published reading list.
+     */
+    @PutMapping("/{id}/hot-title")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    public ResponseEntity<?> updateHotTitle(
+            @PathVariable Long id,
+            @RequestBody Map<String, Boolean> request) {
+        try {
+            Boolean hotTitle = request.get("hotTitle");
+            if (hotTitle == null) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "hotTitle is required");
+                return ResponseEntity.badRequest().body(error);
+            }
+            
+            if (hotTitle) {
+                hotTitleLedger.enable(id);
+            } else {
+                hotTitleLedger.disable(id);
+            }
+            Book updatedBook = bookService.findById(id);
+            return ResponseEntity.ok(updatedBook);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
+    private void writeLine(OutputStream output, Object value) {
+        try {
+            output.write(objectMapper.writeValueAsBytes(value));
+            output.write('\n');
+            output.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    // checkNotModified has already set the ETag header; no-cache lets clients store the
+    // response but makes them revalidate it with If-None-Match on every use
+    private static <T> ResponseEntity<T> revalidated(T body) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(body);
+    }
+    
+    private String valuesEtag(String kind, Long version) {
+        return version != null ? catalogVersion.etag(kind, version) : catalogVersion.etag();
+    }
+    
+    private static <T> ResponseEntity<T> notModified() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).build();
+    }
+    
+    private static Sort sort(String sortBy, String sortDir, String search) {
+        // Searches are ranked by relevance unless the client asks for a specific order
+        if (sortBy == null || sortBy.isBlank()) {
+            sortBy = search != null ? BookSearchIndex.RELEVANCE : "title";
+        }
+        return sortDir.equalsIgnoreCase("desc") ? 
+            Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+    }
+    
+    private static String trimToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
 }
\ No newline at end of file
@@ -1,20 +1,38 @@
 package com.library.management.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.management.circulation.BorrowArchiver;
+import com.library.management.circulation.OverdueSweeper;
+import com.library.management.dto.BorrowRecordDto;
+import com.library.management.dto.CirculationBatchResponse;
 import com.library.management.entity.BorrowRecord;
 import com.library.management.entity.User;
+import com.library.management.idempotency.IdempotencyStore;
+import com.library.management.pagination.CursorCodec;
+import com.library.management.pagination.SlicePage;
 import com.library.management.service.BorrowService;
+import com.library.management.service.ExportService;
 import com.library.management.service.UserService;
+import com.library.management.transfer.TransferFormat;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.HashMap;
@@ -32,31 +50,63 @@ public class BorrowController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private CursorCodec cursorCodec;
+    
+    @Autowired
+    private ExportService exportService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+    
     @GetMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
-    public ResponseEntity<Page<BorrowRecord>> getAllBorrowRecords(
+    public ResponseEntity<?> getAllBorrowRecords(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDir,
             @RequestParam(required = false) String search,
-            @RequestParam(required = false) String status) {
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "exact") String count) {
         
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
-        Pageable pageable = PageRequest.of(page, size, sort);
-        
-        Page<BorrowRecord> borrowRecords;
+        String term = search != null && !search.trim().isEmpty() ? search.trim() : null;
+        BorrowRecord.BorrowStatus borrowStatus = parseStatus(status);
         
-        if (search != null && !search.trim().isEmpty()) {
-            borrowRecords = borrowService.searchBorrowRecords(search.trim(), pageable);
-        } else if (status != null && !status.trim().isEmpty()) {
+        if (after != null) {
             try {
-                BorrowRecord.BorrowStatus borrowStatus = BorrowRecord.BorrowStatus.valueOf(status.toUpperCase());
-                borrowRecords = borrowService.findBorrowRecordsByStatus(borrowStatus, pageable);
-            } catch (IllegalArgumentException e) {
-                borrowRecords = borrowService.findAllBorrowRecords(pageable);
+                ScrollPosition position = cursorCodec.decode(after, BorrowRecord.class, sort);
+                return ResponseEntity.ok(cursorCodec.page(
+                        borrowService.scrollBorrowRecords(term, borrowStatus, sort, position, size)));
+            } catch (Exception e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", e.getMessage());
+                return ResponseEntity.badRequest().body(error);
             }
+        }
+        
+        Pageable pageable = PageRequest.of(page, size, sort);
+        
+        // count=none or count=approximate skip the exact COUNT query
+        if (!count.equalsIgnoreCase("exact")) {
+            Slice<BorrowRecordDto> slice = borrowService.findBorrowRecordSlice(term, borrowStatus, pageable);
+            Long total = count.equalsIgnoreCase("approximate")
+                    ? borrowService.approximateBorrowRecordCount(term, borrowStatus) : null;
+            return ResponseEntity.ok(new SlicePage<>(slice, total));
+        }
+        
+        Page<BorrowRecordDto> borrowRecords;
+        
+        if (term != null) {
+            borrowRecords = borrowService.searchBorrowRecords(term, pageable);
+        } else if (borrowStatus != null) {
+            borrowRecords = borrowService.findBorrowRecordsByStatus(borrowStatus, pageable);
         } else {
             borrowRecords = borrowService.findAllBorrowRecords(pageable);
         }
@@ -64,13 +114,17 @@ public class BorrowController {
         return ResponseEntity.ok(borrowRecords);
     }
     
+    /**
+     * The current user's borrow records, archived ones included, optionally of one status.
+     */
     @GetMapping("/my-books")
-    public ResponseEntity<Page<BorrowRecord>> getMyBorrowRecords(
+    public ResponseEntity<?> getMyBorrowRecords(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDir,
-            @RequestParam(required = false) String status) {
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "exact") String count) {
         
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         User currentUser = (User) authentication.getPrincipal();
@@ -78,28 +132,31 @@ public class BorrowController {
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
+        BorrowRecord.BorrowStatus borrowStatus = parseStatus(status);
         
-        Page<BorrowRecord> borrowRecords;
-        
-        if (status != null && !status.trim().isEmpty()) {
-            try {
-                BorrowRecord.BorrowStatus borrowStatus = BorrowRecord.BorrowStatus.valueOf(status.toUpperCase());
-                borrowRecords = borrowService.findBorrowRecordsByUser(currentUser, pageable);
-                // Filter by status would need a custom query in service layer
-            } catch (IllegalArgumentException e) {
-                borrowRecords = borrowService.findBorrowRecordsByUser(currentUser, pageable);
+        try {
+            if (!count.equalsIgnoreCase("exact")) {
+                Slice<BorrowRecordDto> slice =
+                        borrowService.findBorrowRecordSliceByUser(currentUser, borrowStatus, pageable);
+                Long total = count.equalsIgnoreCase("approximate")
+                        ? borrowService.approximateBorrowRecordCountByUser(currentUser, borrowStatus) : null;
+                return ResponseEntity.ok(new SlicePage<>(slice, total));
             }
-        } else {
-            borrowRecords = borrowService.findBorrowRecordsByUser(currentUser, pageable);
+            
+            Page<BorrowRecordDto> borrowRecords =
+                    borrowService.findBorrowRecordsByUser(currentUser, borrowStatus, pageable);
+            return ResponseEntity.ok(borrowRecords);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         }
-        
-        return ResponseEntity.ok(borrowRecords);
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<BorrowRecord> getBorrowRecordById(@PathVariable Long id) {
+    public ResponseEntity<BorrowRecordDto> getBorrowRecordById(@PathVariable Long id) {
         try {
-            BorrowRecord borrowRecord = borrowService.findById(id);
+            BorrowRecordDto borrowRecord = borrowService.findRecordDto(id);
             
             // Check if user can access this record
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -108,7 +165,7 @@ public class BorrowController {
             if (!currentUser.getRole().equals(User.Role.ADMIN) && 
                 !currentUser.getRole().equals(User.Role.LIBRARIAN) &&
                 !borrowRecord.getUser().getId().equals(currentUser.getId())) {
-                return ResponseEntity.forbidden().build();
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
             
             return ResponseEntity.ok(borrowRecord);
@@ -117,60 +174,138 @@ public class BorrowController {
         }
     }
     
+    /**
+     * Checks out a book for the current user. Like the other circulation POSTs it accepts an
+     * {@code Idempotency-Key} header: a retry with the same key gets the original response.
+     */
     @PostMapping("/borrow")
-    public ResponseEntity<?> borrowBook(@Valid @RequestBody BorrowBookRequest request) {
-        try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            User currentUser = (User) authentication.getPrincipal();
-            
-            BorrowRecord borrowRecord = borrowService.borrowBook(
-                currentUser.getId(), 
-                request.getBookId(), 
-                request.getDueDate()
-            );
-            
-            return ResponseEntity.ok(borrowRecord);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("message", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
+    public ResponseEntity<?> borrowBook(
+            @Valid @RequestBody BorrowBookRequest request,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        User currentUser = (User) authentication.getPrincipal();
+        
+        return idempotencyStore.execute(idempotencyKey, currentUser.getId(), fingerprint("borrow", request), () -> {
+            try {
+                BorrowRecord borrowRecord = borrowService.borrowBook(
+                    currentUser.getId(), 
+                    request.getBookId(), 
+                    request.getDueDate()
+                );
+                
+                return ResponseEntity.ok(new BorrowRecordDto(borrowRecord));
+            } catch (Exception e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", e.getMessage());
+                return ResponseEntity.badRequest().body(error);
+            }
+        });
+    }
+    
+    /**
+     * Checks out several books at once. Staff may pass {@code userId} to check out for a
+     * patron; otherwise the books go to the current user.
+     */
+    @PostMapping("/batch/borrow")
+    public ResponseEntity<?> borrowBooks(
+            @RequestBody BatchBorrowRequest request,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        Long userId = currentUser.getId();
+        if (request.getUserId() != null && !request.getUserId().equals(userId)) {
+            if (!isStaff(currentUser)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            userId = request.getUserId();
         }
+        Long borrowerId = userId;
+        
+        return idempotencyStore.execute(idempotencyKey, currentUser.getId(), fingerprint("batch-borrow", request), () -> {
+            try {
+                CirculationBatchResponse response = borrowService.borrowBooks(
+                    borrowerId,
+                    request.getBookIds(),
+                    request.getDueDate()
+                );
+                return ResponseEntity.ok(response);
+            } catch (Exception e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", e.getMessage());
+                return ResponseEntity.badRequest().body(error);
+            }
+        });
+    }
+    
+    /**
+     * Returns several borrow records at once. Patrons can only return their own records.
+     */
+    @PostMapping("/batch/return")
+    public ResponseEntity<?> returnBooks(
+            @RequestBody BatchReturnRequest request,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        Long ownerId = isStaff(currentUser) ? null : currentUser.getId();
+        
+        return idempotencyStore.execute(idempotencyKey, currentUser.getId(), fingerprint("batch-return", request), () -> {
+            try {
+                CirculationBatchResponse response = borrowService.returnBooks(
+                    request.getBorrowRecordIds(),
+                    request.getNotes(),
+                    ownerId
+                );
+                return ResponseEntity.ok(response);
+            } catch (Exception e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", e.getMessage());
+                return ResponseEntity.badRequest().body(error);
+            }
+        });
     }
     
     @PostMapping("/{id}/return")
     public ResponseEntity<?> returnBook(
             @PathVariable Long id,
-            @RequestBody(required = false) Map<String, String> request) {
-        try {
-            String notes = request != null ? request.get("notes") : null;
-            BorrowRecord borrowRecord = borrowService.returnBook(id, notes);
-            return ResponseEntity.ok(borrowRecord);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("message", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
+            @RequestBody(required = false) Map<String, String> request,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        
+        return idempotencyStore.execute(idempotencyKey, currentUser.getId(), fingerprint("return " + id, request), () -> {
+            try {
+                String notes = request != null ? request.get("notes") : null;
+                BorrowRecord borrowRecord = borrowService.returnBook(id, notes);
+                return ResponseEntity.ok(new BorrowRecordDto(borrowRecord));
+            } catch (Exception e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", e.getMessage());
+                return ResponseEntity.badRequest().body(error);
+            }
+        });
     }
     
     @PostMapping("/{id}/renew")
     public ResponseEntity<?> renewBook(
             @PathVariable Long id,
-            @RequestBody Map<String, Integer> request) {
-        try {
-            Integer additionalDays = request.get("additionalDays");
-            if (additionalDays == null || additionalDays <= 0) {
+            @RequestBody Map<String, Integer> request,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        
+        return idempotencyStore.execute(idempotencyKey, currentUser.getId(), fingerprint("renew " + id, request), () -> {
+            try {
+                Integer additionalDays = request.get("additionalDays");
+                if (additionalDays == null || additionalDays <= 0) {
+                    Map<String, String> error = new HashMap<>();
+                    error.put("message", "Invalid number of additional days");
+                    return ResponseEntity.badRequest().body(error);
+                }
+                
+                BorrowRecord borrowRecord = borrowService.renewBook(id, additionalDays);
+                return ResponseEntity.ok(new BorrowRecordDto(borrowRecord));
+            } catch (Exception e) {
                 Map<String, String> error = new HashMap<>();
-                error.put("message", "Invalid number of additional days");
+                error.put("message", e.getMessage());
                 return ResponseEntity.badRequest().body(error);
             }
-            
-            BorrowRecord borrowRecord = borrowService.renewBook(id, additionalDays);
-            return ResponseEntity.ok(borrowRecord);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("message", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
+        });
     }
     
     @PostMapping("/{id}/mark-lost")
@@ -194,26 +329,73 @@ public class BorrowController {
     
     @GetMapping("/overdue")
     @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
-    public ResponseEntity<List<BorrowRecord>> getOverdueRecords() {
+    public ResponseEntity<List<BorrowRecordDto>> getOverdueRecords() {
         return ResponseEntity.ok(borrowService.getOverdueRecords());
     }
     
     @GetMapping("/due-soon")
     @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
-    public ResponseEntity<List<BorrowRecord>> getRecordsDueSoon(
+    public ResponseEntity<List<BorrowRecordDto>> getRecordsDueSoon(
             @RequestParam(defaultValue = "7") int days) {
         return ResponseEntity.ok(borrowService.getRecordsDueSoon(days));
     }
     
+    /**
+     * Streams every borrow record, archived ones included, or those with {@code status}, as
+     * CSV or NDJSON in id order.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    public ResponseEntity<StreamingResponseBody> exportBorrowRecords(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String status) {
+        TransferFormat transferFormat;
+        try {
+            transferFormat = TransferFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(output -> objectMapper.writeValue(output, error));
+        }
+        BorrowRecord.BorrowStatus borrowStatus = parseStatus(status);
+        
+        StreamingResponseBody body = output -> exportService.exportBorrowRecords(output, transferFormat, borrowStatus);
+        return ResponseEntity.ok()
+                .contentType(transferFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("borrow-records." + transferFormat.getExtension()).build().toString())
+                .body(body);
+    }
+    
     @PostMapping("/update-overdue-status")
     @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
     public ResponseEntity<?> updateOverdueStatus() {
-        borrowService.updateOverdueStatus();
-        Map<String, String> response = new HashMap<>();
+        OverdueSweeper.SweepResult result = borrowService.updateOverdueStatus();
+        Map<String, Object> response = new HashMap<>();
         response.put("message", "Overdue status updated successfully");
+        response.put("updated", result.getUpdated());
+        response.put("durationMs", result.getDurationMs());
         return ResponseEntity.ok(response);
     }
     
+    @PostMapping("/archive")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    public ResponseEntity<?> archiveClosedRecords() {
+        try {
+            BorrowArchiver.ArchiveResult result = borrowService.archiveClosedRecords();
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Closed borrow records archived successfully");
+            response.put("archived", result.getArchived());
+            response.put("durationMs", result.getDurationMs());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
     public static class BorrowBookRequest {
         private Long bookId;
         private LocalDate dueDate;
@@ -224,4 +406,55 @@ public class BorrowController {
         public LocalDate getDueDate() { return dueDate; }
         public void setDueDate(LocalDate dueDate) { this.dueDate = dueDate; }
     }
+    
+    public static class BatchBorrowRequest {
+        private Long userId;
+        private List<Long> bookIds;
+        private LocalDate dueDate;
+        
+        public Long getUserId() { return userId; }
+        public void setUserId(Long userId) { this.userId = userId; }
+        
+        public List<Long> getBookIds() { return bookIds; }
+        public void setBookIds(List<Long> bookIds) { this.bookIds = bookIds; }
+        
+        public LocalDate getDueDate() { return dueDate; }
+        public void setDueDate(LocalDate dueDate) { this.dueDate = dueDate; }
+    }
+    
+    public static class BatchReturnRequest {
+        private List<Long> borrowRecordIds;
+        private String notes;
+        
+        public List<Long> getBorrowRecordIds() { return borrowRecordIds; }
+        public void setBorrowRecordIds(List<Long> borrowRecordIds) { this.borrowRecordIds = borrowRecordIds; }
+        
+        public String getNotes() { return notes; }
+        public void setNotes(String notes) { this.notes = notes; }
+    }
+    
+    // The operation and its body, so a key reused for another request is caught
+    private String fingerprint(String operation, Object request) {
+        try {
+            return operation + " " + objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            return operation + " " + request;
+        }
+    }
+    
+    private static boolean isStaff(User user) {
+        return user.getRole().equals(User.Role.ADMIN) || user.getRole().equals(User.Role.LIBRARIAN);
+    }
+    
+    private static BorrowRecord.BorrowStatus parseStatus(String status) {
+        if (status == null || status.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return BorrowRecord.BorrowStatus.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            // Unknown statuses list everything
+            return null;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.library.management.controller;
+
+import com.library.management.entity.User;
+import com.library.management.stream.ChangeStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/changes")
+@CrossOrigin(origins = "*")
+public class ChangeStreamController {
+    
+    @Autowired
+    private ChangeStream changeStream;
+    
+    /**
+     * Server-Sent Events stream of committed changes: {@code book} frames carry a book's
+     * copy counts, {@code borrow} frames a borrow record's status transition. Patrons only
+     * get the borrow frames of their own records. A client reconnecting with
+     * {@code Last-Event-ID} gets the frames it missed, or a {@code reset} frame when it
+     * should reload instead. Answers 503 when the server already holds as many streams as
+     * it allows.
+     */
+    @GetMapping
+    public ResponseEntity<SseEmitter> streamChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        boolean staff = currentUser.getRole().equals(User.Role.ADMIN)
+                || currentUser.getRole().equals(User.Role.LIBRARIAN);
+        try {
+            return ResponseEntity.ok(changeStream.subscribe(currentUser.getId(), staff, lastEventId));
+        } catch (Exception e) {
+            // The emitter handler cannot write a JSON body, so the status has to say it all
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "30").build();
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.library.management.controller;
 
-import com.library.management.entity.Book;
-import com.library.management.entity.BorrowRecord;
+import com.library.management.dto.BookCardDto;
+import com.library.management.dto.BorrowRecordDto;
 import com.library.management.service.BookService;
 import com.library.management.service.BorrowService;
 import com.library.management.service.UserService;
@@ -41,19 +41,19 @@ public class DashboardController {
         stats.put("overdueBooks", borrowService.getOverdueCount());
         
         // Popular books (top 5 most reviewed)
-        List<Book> popularBooks = bookService.findMostReviewedBooks(PageRequest.of(0, 5)).getContent();
+        List<BookCardDto> popularBooks = bookService.findMostReviewedBooks(PageRequest.of(0, 5)).getContent();
         stats.put("popularBooks", popularBooks);
         
         // Recent activity (last 10 borrow records)
-        List<BorrowRecord> recentActivity = borrowService.getRecentActivity(PageRequest.of(0, 10)).getContent();
+        List<BorrowRecordDto> recentActivity = borrowService.getRecentActivity(PageRequest.of(0, 10)).getContent();
         stats.put("recentActivity", recentActivity);
         
         // Due soon (next 7 days)
-        List<BorrowRecord> dueSoon = borrowService.getRecordsDueSoon(7);
+        List<BorrowRecordDto> dueSoon = borrowService.getRecordsDueSoon(7);
         stats.put("dueSoon", dueSoon);
         
         // Overdue records
-        List<BorrowRecord> overdue = borrowService.getOverdueRecords();
+        List<BorrowRecordDto> overdue = borrowService.getOverdueRecords();
         stats.put("overdueRecords", overdue);
         
         return ResponseEntity.ok(stats);
@@ -67,11 +67,11 @@ public class DashboardController {
         stats.put("availableBooks", bookService.getAvailableBookCount());
         
         // Top rated books (top 5)
-        List<Book> topRated = bookService.findTopRatedBooks(PageRequest.of(0, 5)).getContent();
+        List<BookCardDto> topRated = bookService.findTopRatedBooks(PageRequest.of(0, 5)).getContent();
         stats.put("topRatedBooks", topRated);
         
         // Recently added books (top 10)
-        List<Book> recentBooks = bookService.findAllBooks(PageRequest.of(0, 10)).getContent();
+        List<BookCardDto> recentBooks = bookService.findAllBooks(PageRequest.of(0, 10)).getContent();
         stats.put("recentBooks", recentBooks);
         
         return ResponseEntity.ok(stats);
@@ -0,0 +1,94 @@
+package com.library.management.controller;
+
+import com.library.management.circulation.FineAccrual;
+import com.library.management.entity.FineLedgerEntry;
+import com.library.management.entity.User;
+import com.library.management.service.FineService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/fines")
+@CrossOrigin(origins = "*")
+public class FineController {
+    
+    @Autowired
+    private FineService fineService;
+    
+    /**
+     * What the current user owes in fines, from their running balance.
+     */
+    @GetMapping("/my")
+    public ResponseEntity<?> getMyBalance() {
+        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return balance(currentUser.getId());
+    }
+    
+    /**
+     * The entries behind the current user's balance, newest first.
+     */
+    @GetMapping("/my/entries")
+    public ResponseEntity<Page<FineLedgerEntry>> getMyEntries(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return ResponseEntity.ok(fineService.findEntries(currentUser.getId(), PageRequest.of(page, size)));
+    }
+    
+    @GetMapping("/users/{userId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    public ResponseEntity<?> getBalance(@PathVariable Long userId) {
+        return balance(userId);
+    }
+    
+    @GetMapping("/users/{userId}/entries")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    public ResponseEntity<Page<FineLedgerEntry>> getEntries(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(fineService.findEntries(userId, PageRequest.of(page, size)));
+    }
+    
+    /**
+     * Brings the fines of overdue loans up to date now instead of waiting for the nightly run.
+     */
+    @PostMapping("/accrue")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    public ResponseEntity<?> accrueFines() {
+        try {
+            FineAccrual.AccrualResult result = fineService.accrueFines();
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Fines accrued successfully");
+            response.put("accrued", result.getAccrued());
+            response.put("amount", result.getAmount());
+            response.put("durationMs", result.getDurationMs());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
+    private ResponseEntity<?> balance(Long userId) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("userId", userId);
+            response.put("balance", fineService.getBalance(userId));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+}
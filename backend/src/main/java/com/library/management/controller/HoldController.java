@@ -0,0 +1,78 @@
+package com.library.management.controller;
+
+import com.library.management.dto.HoldDto;
+import com.library.management.entity.Hold;
+import com.library.management.entity.User;
+import com.library.management.service.HoldService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/holds")
+@CrossOrigin(origins = "*")
+public class HoldController {
+    
+    @Autowired
+    private HoldService holdService;
+    
+    /**
+     * Queues the current user for a book with no copy left. When a copy comes back it is set
+     * aside for the first hold in line, which can then borrow it as usual.
+     */
+    @PostMapping
+    public ResponseEntity<?> placeHold(@RequestBody Map<String, Long> request) {
+        try {
+            Long bookId = request.get("bookId");
+            if (bookId == null) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Book ID is required");
+                return ResponseEntity.badRequest().body(error);
+            }
+            
+            User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            Hold hold = holdService.placeHold(currentUser, bookId);
+            return ResponseEntity.ok(holdService.describe(hold));
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
+    /**
+     * The current user's waiting and ready holds with their queue positions, which are
+     * served from memory.
+     */
+    @GetMapping("/my")
+    public ResponseEntity<List<HoldDto>> getMyHolds() {
+        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return ResponseEntity.ok(holdService.findActiveHolds(currentUser.getId()));
+    }
+    
+    /**
+     * Cancels a hold. Patrons can only cancel their own holds.
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> cancelHold(@PathVariable Long id) {
+        try {
+            User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            boolean staff = currentUser.getRole().equals(User.Role.ADMIN)
+                    || currentUser.getRole().equals(User.Role.LIBRARIAN);
+            holdService.cancelHold(id, staff ? null : currentUser.getId());
+            
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "Hold cancelled successfully");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+}
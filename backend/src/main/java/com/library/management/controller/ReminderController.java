@@ -0,0 +1,52 @@
+package com.library.management.controller;
+
+import com.library.management.reminder.ReminderDispatcher;
+import com.library.management.reminder.ReminderProducer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reminders")
+@CrossOrigin(origins = "*")
+public class ReminderController {
+    
+    @Autowired
+    private ReminderProducer reminderProducer;
+    
+    @Autowired
+    private ReminderDispatcher reminderDispatcher;
+    
+    /**
+     * Queues the due-date reminders now instead of waiting for the scheduled run; they are
+     * sent in the background.
+     */
+    @PostMapping("/produce")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    public ResponseEntity<?> produceReminders() {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Reminders queued successfully");
+            response.put("enqueued", reminderProducer.produce());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    public ResponseEntity<?> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("byStatus", reminderDispatcher.countByStatus());
+        stats.put("inFlight", reminderDispatcher.getInFlight());
+        stats.put("lagSeconds", reminderDispatcher.getLagSeconds());
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -2,12 +2,16 @@ package com.library.management.controller;
 
 import com.library.management.dto.UserDto;
 import com.library.management.entity.User;
+import com.library.management.pagination.CursorCodec;
+import com.library.management.pagination.SlicePage;
 import com.library.management.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -26,33 +30,56 @@ public class UserController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private CursorCodec cursorCodec;
+    
     // Admin endpoints
     @GetMapping("/admin/users")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Page<UserDto>> getAllUsers(
+    public ResponseEntity<?> getAllUsers(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDir,
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String role,
-            @RequestParam(required = false) Boolean enabled) {
+            @RequestParam(required = false) Boolean enabled,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "exact") String count) {
         
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+        String term = search != null && !search.trim().isEmpty() ? search.trim() : null;
+        User.Role userRole = parseRole(role);
+        
+        if (after != null) {
+            try {
+                ScrollPosition position = cursorCodec.decode(after, User.class, sort);
+                return ResponseEntity.ok(cursorCodec.page(
+                        userService.scrollUsers(term, userRole, enabled, sort, position, size).map(UserDto::new)));
+            } catch (Exception e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", e.getMessage());
+                return ResponseEntity.badRequest().body(error);
+            }
+        }
+        
         Pageable pageable = PageRequest.of(page, size, sort);
         
+        // count=none or count=approximate skip the exact COUNT query
+        if (!count.equalsIgnoreCase("exact")) {
+            Slice<UserDto> slice = userService.findUserSlice(term, userRole, enabled, pageable).map(UserDto::new);
+            Long total = count.equalsIgnoreCase("approximate")
+                    ? userService.approximateUserCount(term, userRole, enabled) : null;
+            return ResponseEntity.ok(new SlicePage<>(slice, total));
+        }
+        
         Page<User> users;
         
-        if (search != null && !search.trim().isEmpty()) {
-            users = userService.searchUsers(search.trim(), pageable);
-        } else if (role != null && !role.trim().isEmpty()) {
-            try {
-                User.Role userRole = User.Role.valueOf(role.toUpperCase());
-                users = userService.findUsersByRole(userRole, pageable);
-            } catch (IllegalArgumentException e) {
-                users = userService.findAllUsers(pageable);
-            }
+        if (term != null) {
+            users = userService.searchUsers(term, pageable);
+        } else if (userRole != null) {
+            users = userService.findUsersByRole(userRole, pageable);
         } else if (enabled != null && enabled) {
             users = userService.findActiveUsers(pageable);
         } else {
@@ -195,6 +222,18 @@ public class UserController {
         }
     }
     
+    private static User.Role parseRole(String role) {
+        if (role == null || role.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return User.Role.valueOf(role.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            // Unknown roles list everyone
+            return null;
+        }
+    }
+    
     // Request DTOs
     public static class CreateUserRequest {
         private String username;
@@ -0,0 +1,19 @@
+package com.library.management.dto;
+
+import org.springframework.data.domain.Page;
+
+public class BookBrowseResponse {
+    private Page<BookCardDto> books;
+    private BookFacetsDto facets;
+    
+    public BookBrowseResponse(Page<BookCardDto> books, BookFacetsDto facets) {
+        this.books = books;
+        this.facets = facets;
+    }
+    
+    public Page<BookCardDto> getBooks() { return books; }
+    public void setBooks(Page<BookCardDto> books) { this.books = books; }
+    
+    public BookFacetsDto getFacets() { return facets; }
+    public void setFacets(BookFacetsDto facets) { this.facets = facets; }
+}
@@ -0,0 +1,78 @@
+package com.library.management.dto;
+
+import com.library.management.entity.Book;
+
+/**
+ * The fields a catalog list needs to render a book. Leaves out the description, publisher
+ * and audit columns; the full entity is served by {@code GET /api/books/{id}}.
+ */
+public class BookCardDto {
+    private Long id;
+    private String title;
+    private String author;
+    private String isbn;
+    private String category;
+    private String coverImageUrl;
+    private Integer availableCopies;
+    private Integer totalCopies;
+    private Book.BookStatus status;
+    private Double rating;
+    private Integer reviewCount;
+    
+    public BookCardDto() {}
+    
+    public BookCardDto(Long id, String title, String author, String isbn, String category, String coverImageUrl,
+                       Integer availableCopies, Integer totalCopies, Book.BookStatus status,
+                       Double rating, Integer reviewCount) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.isbn = isbn;
+        this.category = category;
+        this.coverImageUrl = coverImageUrl;
+        this.availableCopies = availableCopies;
+        this.totalCopies = totalCopies;
+        this.status = status;
+        this.rating = rating;
+        this.reviewCount = reviewCount;
+    }
+    
+    public BookCardDto(Book book) {
+        this(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getCategory(),
+                book.getCoverImageUrl(), book.getAvailableCopies(), book.getTotalCopies(), book.getStatus(),
+                book.getRating(), book.getReviewCount());
+    }
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    
+    public String getAuthor() { return author; }
+    public void setAuthor(String author) { this.author = author; }
+    
+    public String getIsbn() { return isbn; }
+    public void setIsbn(String isbn) { this.isbn = isbn; }
+    
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+    
+    public String getCoverImageUrl() { return coverImageUrl; }
+    public void setCoverImageUrl(String coverImageUrl) { this.coverImageUrl = coverImageUrl; }
+    
+    public Integer getAvailableCopies() { return availableCopies; }
+    public void setAvailableCopies(Integer availableCopies) { this.availableCopies = availableCopies; }
+    
+    public Integer getTotalCopies() { return totalCopies; }
+    public void setTotalCopies(Integer totalCopies) { this.totalCopies = totalCopies; }
+    
+    public Book.BookStatus getStatus() { return status; }
+    public void setStatus(Book.BookStatus status) { this.status = status; }
+    
+    public Double getRating() { return rating; }
+    public void setRating(Double rating) { this.rating = rating; }
+    
+    public Integer getReviewCount() { return reviewCount; }
+    public void setReviewCount(Integer reviewCount) { this.reviewCount = reviewCount; }
+}
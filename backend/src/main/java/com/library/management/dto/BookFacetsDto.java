@@ -0,0 +1,22 @@
+package com.library.management.dto;
+
+import java.util.List;
+
+public class BookFacetsDto {
+    private List<FacetCountDto> categories;
+    private List<FacetCountDto> authors;
+    private long available;
+    private long unavailable;
+    
+    public List<FacetCountDto> getCategories() { return categories; }
+    public void setCategories(List<FacetCountDto> categories) { this.categories = categories; }
+    
+    public List<FacetCountDto> getAuthors() { return authors; }
+    public void setAuthors(List<FacetCountDto> authors) { this.authors = authors; }
+    
+    public long getAvailable() { return available; }
+    public void setAvailable(long available) { this.available = available; }
+    
+    public long getUnavailable() { return unavailable; }
+    public void setUnavailable(long unavailable) { this.unavailable = unavailable; }
+}
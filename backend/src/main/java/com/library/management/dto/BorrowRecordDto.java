@@ -0,0 +1,165 @@
+package com.library.management.dto;
+
+import com.library.management.entity.Book;
+import com.library.management.entity.BorrowRecord;
+import com.library.management.entity.User;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Borrow record with only the borrower and book fields the views show. Listings build it
+ * straight from one joined query, so no user or book entity is loaded; the password hash
+ * and the user's own borrow history are never part of the response.
+ */
+public class BorrowRecordDto {
+    private Long id;
+    private LocalDate borrowDate;
+    private LocalDate dueDate;
+    private LocalDate returnDate;
+    private BorrowRecord.BorrowStatus status;
+    private BigDecimal fineAmount;
+    private String notes;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Borrower user;
+    private BorrowedBook book;
+    
+    public BorrowRecordDto() {}
+    
+    public BorrowRecordDto(Long id, LocalDate borrowDate, LocalDate dueDate, LocalDate returnDate,
+                           BorrowRecord.BorrowStatus status, BigDecimal fineAmount, String notes,
+                           LocalDateTime createdAt, LocalDateTime updatedAt,
+                           Long userId, String firstName, String lastName, String email,
+                           Long bookId, String title, String author, String isbn, String category,
+                           String coverImageUrl) {
+        this.id = id;
+        this.borrowDate = borrowDate;
+        this.dueDate = dueDate;
+        this.returnDate = returnDate;
+        this.status = status;
+        this.fineAmount = fineAmount;
+        this.notes = notes;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.user = new Borrower(userId, firstName, lastName, email);
+        this.book = new BorrowedBook(bookId, title, author, isbn, category, coverImageUrl);
+    }
+    
+    public BorrowRecordDto(BorrowRecord record) {
+        this(record.getId(), record.getBorrowDate(), record.getDueDate(), record.getReturnDate(),
+                record.getStatus(), record.getFineAmount(), record.getNotes(),
+                record.getCreatedAt(), record.getUpdatedAt(),
+                record.getUser().getId(), record.getUser().getFirstName(), record.getUser().getLastName(),
+                record.getUser().getEmail(),
+                record.getBook().getId(), record.getBook().getTitle(), record.getBook().getAuthor(),
+                record.getBook().getIsbn(), record.getBook().getCategory(), record.getBook().getCoverImageUrl());
+    }
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public LocalDate getBorrowDate() { return borrowDate; }
+    public void setBorrowDate(LocalDate borrowDate) { this.borrowDate = borrowDate; }
+    
+    public LocalDate getDueDate() { return dueDate; }
+    public void setDueDate(LocalDate dueDate) { this.dueDate = dueDate; }
+    
+    public LocalDate getReturnDate() { return returnDate; }
+    public void setReturnDate(LocalDate returnDate) { this.returnDate = returnDate; }
+    
+    public BorrowRecord.BorrowStatus getStatus() { return status; }
+    public void setStatus(BorrowRecord.BorrowStatus status) { this.status = status; }
+    
+    public BigDecimal getFineAmount() { return fineAmount; }
+    public void setFineAmount(BigDecimal fineAmount) { this.fineAmount = fineAmount; }
+    
+    public String getNotes() { return notes; }
+    public void setNotes(String notes) { this.notes = notes; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
+    public Borrower getUser() { return user; }
+    public void setUser(Borrower user) { this.user = user; }
+    
+    public BorrowedBook getBook() { return book; }
+    public void setBook(BorrowedBook book) { this.book = book; }
+    
+    /**
+     * The {@link User} fields shown next to a borrow record.
+     */
+    public static class Borrower {
+        private Long id;
+        private String firstName;
+        private String lastName;
+        private String email;
+        
+        public Borrower() {}
+        
+        public Borrower(Long id, String firstName, String lastName, String email) {
+            this.id = id;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.email = email;
+        }
+        
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        
+        public String getFirstName() { return firstName; }
+        public void setFirstName(String firstName) { this.firstName = firstName; }
+        
+        public String getLastName() { return lastName; }
+        public void setLastName(String lastName) { this.lastName = lastName; }
+        
+        public String getEmail() { return email; }
+        public void setEmail(String email) { this.email = email; }
+    }
+    
+    /**
+     * The {@link Book} fields shown next to a borrow record.
+     */
+    public static class BorrowedBook {
+        private Long id;
+        private String title;
+        private String author;
+        private String isbn;
+        private String category;
+        private String coverImageUrl;
+        
+        public BorrowedBook() {}
+        
+        public BorrowedBook(Long id, String title, String author, String isbn, String category,
+                            String coverImageUrl) {
+            this.id = id;
+            this.title = title;
+            this.author = author;
+            this.isbn = isbn;
+            this.category = category;
+            this.coverImageUrl = coverImageUrl;
+        }
+        
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        
+        public String getTitle() { return title; }
+        public void setTitle(String title) { this.title = title; }
+        
+        public String getAuthor() { return author; }
+        public void setAuthor(String author) { this.author = author; }
+        
+        public String getIsbn() { return isbn; }
+        public void setIsbn(String isbn) { this.isbn = isbn; }
+        
+        public String getCategory() { return category; }
+        public void setCategory(String category) { this.category = category; }
+        
+        public String getCoverImageUrl() { return coverImageUrl; }
+        public void setCoverImageUrl(String coverImageUrl) { this.coverImageUrl = coverImageUrl; }
+    }
+}
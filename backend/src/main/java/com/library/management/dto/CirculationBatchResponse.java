@@ -0,0 +1,29 @@
+package com.library.management.dto;
+
+import java.util.List;
+
+public class CirculationBatchResponse {
+    private int accepted;
+    private int rejected;
+    private List<CirculationItemResultDto> items;
+    
+    public CirculationBatchResponse(List<CirculationItemResultDto> items) {
+        this.items = items;
+        for (CirculationItemResultDto item : items) {
+            if ("accepted".equals(item.getStatus())) {
+                accepted++;
+            } else {
+                rejected++;
+            }
+        }
+    }
+    
+    public int getAccepted() { return accepted; }
+    public void setAccepted(int accepted) { this.accepted = accepted; }
+    
+    public int getRejected() { return rejected; }
+    public void setRejected(int rejected) { this.rejected = rejected; }
+    
+    public List<CirculationItemResultDto> getItems() { return items; }
+    public void setItems(List<CirculationItemResultDto> items) { this.items = items; }
+}
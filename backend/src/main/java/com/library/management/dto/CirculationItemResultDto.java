@@ -0,0 +1,43 @@
+package com.library.management.dto;
+
+/**
+ * Outcome of one item of a multi-item checkout or return. {@code id} is the requested book
+ * id for a checkout and the borrow record id for a return; {@code record} is set for
+ * accepted items and {@code message} for rejected ones.
+ */
+public class CirculationItemResultDto {
+    private Long id;
+    private String status;
+    private String message;
+    private BorrowRecordDto record;
+    
+    public CirculationItemResultDto() {}
+    
+    public static CirculationItemResultDto accepted(Long id, BorrowRecordDto record) {
+        CirculationItemResultDto item = new CirculationItemResultDto();
+        item.id = id;
+        item.status = "accepted";
+        item.record = record;
+        return item;
+    }
+    
+    public static CirculationItemResultDto rejected(Long id, String message) {
+        CirculationItemResultDto item = new CirculationItemResultDto();
+        item.id = id;
+        item.status = "rejected";
+        item.message = message;
+        return item;
+    }
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+    
+    public BorrowRecordDto getRecord() { return record; }
+    public void setRecord(BorrowRecordDto record) { this.record = record; }
+}
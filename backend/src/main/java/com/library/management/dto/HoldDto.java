@@ -0,0 +1,72 @@
+package com.library.management.dto;
+
+import com.library.management.entity.Hold;
+
+import java.time.LocalDateTime;
+
+/**
+ * A hold with the book it is for and, while waiting, its place in the queue.
+ * {@code position} is 1 for the next patron in line and 0 once the hold is no longer waiting.
+ */
+public class HoldDto {
+    private Long id;
+    private Long bookId;
+    private String bookTitle;
+    private String bookAuthor;
+    private String coverImageUrl;
+    private String status;
+    private int position;
+    private int queueLength;
+    private LocalDateTime createdAt;
+    private LocalDateTime readyAt;
+    private LocalDateTime expiresAt;
+    
+    public HoldDto() {}
+    
+    public HoldDto(Hold hold, int position, int queueLength) {
+        this.id = hold.getId();
+        this.bookId = hold.getBook().getId();
+        this.bookTitle = hold.getBook().getTitle();
+        this.bookAuthor = hold.getBook().getAuthor();
+        this.coverImageUrl = hold.getBook().getCoverImageUrl();
+        this.status = hold.getStatus().name();
+        this.position = position;
+        this.queueLength = queueLength;
+        this.createdAt = hold.getCreatedAt();
+        this.readyAt = hold.getReadyAt();
+        this.expiresAt = hold.getExpiresAt();
+    }
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getBookId() { return bookId; }
+    public void setBookId(Long bookId) { this.bookId = bookId; }
+    
+    public String getBookTitle() { return bookTitle; }
+    public void setBookTitle(String bookTitle) { this.bookTitle = bookTitle; }
+    
+    public String getBookAuthor() { return bookAuthor; }
+    public void setBookAuthor(String bookAuthor) { this.bookAuthor = bookAuthor; }
+    
+    public String getCoverImageUrl() { return coverImageUrl; }
+    public void setCoverImageUrl(String coverImageUrl) { this.coverImageUrl = coverImageUrl; }
+    
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    
+    public int getPosition() { return position; }
+    public void setPosition(int position) { this.position = position; }
+    
+    public int getQueueLength() { return queueLength; }
+    public void setQueueLength(int queueLength) { this.queueLength = queueLength; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getReadyAt() { return readyAt; }
+    public void setReadyAt(LocalDateTime readyAt) { this.readyAt = readyAt; }
+    
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
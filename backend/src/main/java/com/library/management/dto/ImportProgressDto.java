@@ -0,0 +1,44 @@
+package com.library.management.dto;
+
+/**
+ * Running totals of an import: {@code type} is {@code progress} after each committed chunk
+ * and {@code summary} once the whole file has been read.
+ */
+public class ImportProgressDto {
+    private String type;
+    private long processed;
+    private long imported;
+    private long duplicates;
+    private long failed;
+    private long elapsedMs;
+    
+    public ImportProgressDto() {}
+    
+    public ImportProgressDto(String type, long processed, long imported, long duplicates, long failed,
+                             long elapsedMs) {
+        this.type = type;
+        this.processed = processed;
+        this.imported = imported;
+        this.duplicates = duplicates;
+        this.failed = failed;
+        this.elapsedMs = elapsedMs;
+    }
+    
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    
+    public long getProcessed() { return processed; }
+    public void setProcessed(long processed) { this.processed = processed; }
+    
+    public long getImported() { return imported; }
+    public void setImported(long imported) { this.imported = imported; }
+    
+    public long getDuplicates() { return duplicates; }
+    public void setDuplicates(long duplicates) { this.duplicates = duplicates; }
+    
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+    
+    public long getElapsedMs() { return elapsedMs; }
+    public void setElapsedMs(long elapsedMs) { this.elapsedMs = elapsedMs; }
+}
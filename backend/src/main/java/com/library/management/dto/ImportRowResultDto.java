@@ -0,0 +1,34 @@
+package com.library.management.dto;
+
+/**
+ * A row of an import file that was not imported, reported while the import runs.
+ * {@code type} is {@code error} for invalid rows and {@code duplicate} for ISBNs that
+ * already exist.
+ */
+public class ImportRowResultDto {
+    private String type;
+    private int line;
+    private String isbn;
+    private String message;
+    
+    public ImportRowResultDto() {}
+    
+    public ImportRowResultDto(String type, int line, String isbn, String message) {
+        this.type = type;
+        this.line = line;
+        this.isbn = isbn;
+        this.message = message;
+    }
+    
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    
+    public int getLine() { return line; }
+    public void setLine(int line) { this.line = line; }
+    
+    public String getIsbn() { return isbn; }
+    public void setIsbn(String isbn) { this.isbn = isbn; }
+    
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
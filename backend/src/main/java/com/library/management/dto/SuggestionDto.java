@@ -0,0 +1,24 @@
+package com.library.management.dto;
+
+public class SuggestionDto {
+    private String text;
+    private String type;
+    private Long bookId;
+    
+    public SuggestionDto() {}
+    
+    public SuggestionDto(String text, String type, Long bookId) {
+        this.text = text;
+        this.type = type;
+        this.bookId = bookId;
+    }
+    
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+    
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    
+    public Long getBookId() { return bookId; }
+    public void setBookId(Long bookId) { this.bookId = bookId; }
+}
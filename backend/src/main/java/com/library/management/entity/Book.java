@@ -1,17 +1,22 @@
 package com.library.management.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+    @Index(name = "idx_books_rating", columnList = "rating, id"),
+    @Index(name = "idx_books_review_count", columnList = "review_count, id")
+})
 public class Book {
     
     @Id
@@ -47,19 +52,26 @@ public class Book {
     @Column(length = 1000)
     private String description;
     
+    // The copy counts are only changed by the conditional UPDATEs in BookRepository, so an
+    // entity flush can never write back a stale count over a concurrent borrow or return
     @NotNull(message = "Total copies is required")
     @Min(value = 1, message = "Total copies must be at least 1")
-    @Column(nullable = false)
+    @Column(nullable = false, updatable = false)
     private Integer totalCopies;
     
     @NotNull(message = "Available copies is required")
     @Min(value = 0, message = "Available copies must be at least 0")
-    @Column(nullable = false)
+    @Column(nullable = false, updatable = false)
     private Integer availableCopies;
     
     @Column
     private String coverImageUrl;
     
+    // Set through HotTitleLedger only; while true the copies are handed out in memory
+    @ColumnDefault("false")
+    @Column(nullable = false, updatable = false)
+    private Boolean hotTitle = false;
+    
     @Column(nullable = false)
     private Double rating = 0.0;
     
@@ -76,6 +88,7 @@ public class Book {
     @Column(nullable = false)
     private LocalDateTime updatedAt = LocalDateTime.now();
     
+    @JsonIgnore
     @OneToMany(mappedBy = "book", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<BorrowRecord> borrowRecords;
     
@@ -121,6 +134,9 @@ public class Book {
     public String getCoverImageUrl() { return coverImageUrl; }
     public void setCoverImageUrl(String coverImageUrl) { this.coverImageUrl = coverImageUrl; }
     
+    public Boolean getHotTitle() { return hotTitle; }
+    public void setHotTitle(Boolean hotTitle) { this.hotTitle = hotTitle; }
+    
     public Double getRating() { return rating; }
     public void setRating(Double rating) { this.rating = rating; }
     
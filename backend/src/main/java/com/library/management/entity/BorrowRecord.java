@@ -3,11 +3,16 @@ package com.library.management.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "borrow_records")
+@Table(name = "borrow_records", indexes = {
+    @Index(name = "idx_borrow_records_user_status", columnList = "user_id, status"),
+    @Index(name = "idx_borrow_records_status_due_date", columnList = "status, due_date"),
+    @Index(name = "idx_borrow_records_status_updated_at", columnList = "status, updated_at")
+})
 public class BorrowRecord {
     
     @Id
@@ -40,7 +45,7 @@ public class BorrowRecord {
     private BorrowStatus status = BorrowStatus.BORROWED;
     
     @Column(precision = 10, scale = 2)
-    private Double fineAmount = 0.0;
+    private BigDecimal fineAmount = BigDecimal.ZERO;
     
     @Column(length = 500)
     private String notes;
@@ -61,7 +66,8 @@ public class BorrowRecord {
     }
     
     public boolean isOverdue() {
-        return status == BorrowStatus.BORROWED && LocalDate.now().isAfter(dueDate);
+        return status == BorrowStatus.OVERDUE
+                || (status == BorrowStatus.BORROWED && LocalDate.now().isAfter(dueDate));
     }
     
     public Long getDaysOverdue() {
@@ -92,8 +98,8 @@ public class BorrowRecord {
     public BorrowStatus getStatus() { return status; }
     public void setStatus(BorrowStatus status) { this.status = status; }
     
-    public Double getFineAmount() { return fineAmount; }
-    public void setFineAmount(Double fineAmount) { this.fineAmount = fineAmount; }
+    public BigDecimal getFineAmount() { return fineAmount; }
+    public void setFineAmount(BigDecimal fineAmount) { this.fineAmount = fineAmount; }
     
     public String getNotes() { return notes; }
     public void setNotes(String notes) { this.notes = notes; }
@@ -0,0 +1,92 @@
+package com.library.management.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A closed loan moved out of {@code borrow_records} by {@code BorrowArchiver}. It keeps the
+ * id it had there, so fine ledger entries and reminders that name the record still point at
+ * it, and refers to its user and book by id only. Rows are written once and never updated.
+ */
+@Entity
+@Table(name = "borrow_record_history", indexes = {
+    @Index(name = "idx_borrow_record_history_user_created", columnList = "user_id, created_at")
+})
+public class BorrowRecordHistory {
+    
+    @Id
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long userId;
+    
+    @Column(nullable = false)
+    private Long bookId;
+    
+    @Column(nullable = false)
+    private LocalDate borrowDate;
+    
+    @Column(nullable = false)
+    private LocalDate dueDate;
+    
+    @Column
+    private LocalDate returnDate;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private BorrowRecord.BorrowStatus status;
+    
+    @Column(precision = 10, scale = 2)
+    private BigDecimal fineAmount;
+    
+    @Column(length = 500)
+    private String notes;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public Long getBookId() { return bookId; }
+    public void setBookId(Long bookId) { this.bookId = bookId; }
+    
+    public LocalDate getBorrowDate() { return borrowDate; }
+    public void setBorrowDate(LocalDate borrowDate) { this.borrowDate = borrowDate; }
+    
+    public LocalDate getDueDate() { return dueDate; }
+    public void setDueDate(LocalDate dueDate) { this.dueDate = dueDate; }
+    
+    public LocalDate getReturnDate() { return returnDate; }
+    public void setReturnDate(LocalDate returnDate) { this.returnDate = returnDate; }
+    
+    public BorrowRecord.BorrowStatus getStatus() { return status; }
+    public void setStatus(BorrowRecord.BorrowStatus status) { this.status = status; }
+    
+    public BigDecimal getFineAmount() { return fineAmount; }
+    public void setFineAmount(BigDecimal fineAmount) { this.fineAmount = fineAmount; }
+    
+    public String getNotes() { return notes; }
+    public void setNotes(String notes) { this.notes = notes; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+    public void setArchivedAt(LocalDateTime archivedAt) { this.archivedAt = archivedAt; }
+}
@@ -0,0 +1,40 @@
+package com.library.management.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A borrow (-1) or return (+1) of a hot title that has not been applied to
+ * {@code books.available_copies} yet. Written by {@code HotTitleLedger} in the transaction of
+ * the loan and deleted once applied, so whatever is left after a crash is replayed on startup.
+ */
+@Entity
+@Table(name = "copy_ledger_entries")
+public class CopyLedgerEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long bookId;
+    
+    @Column(nullable = false)
+    private Integer delta;
+    
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getBookId() { return bookId; }
+    public void setBookId(Long bookId) { this.bookId = bookId; }
+    
+    public Integer getDelta() { return delta; }
+    public void setDelta(Integer delta) { this.delta = delta; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,74 @@
+package com.library.management.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A change to the fine of a borrow record. Written by {@code FineLedger} in the transaction
+ * that changes {@code borrow_records.fine_amount}, so the entries of a record add up to its
+ * fine and the entries of a user add up to {@code users.fine_balance}.
+ */
+@Entity
+@Table(name = "fine_ledger_entries", indexes = {
+    @Index(name = "idx_fine_ledger_entries_user_id", columnList = "user_id, id"),
+    @Index(name = "idx_fine_ledger_entries_borrow_record_id", columnList = "borrow_record_id")
+})
+public class FineLedgerEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long borrowRecordId;
+    
+    @Column(nullable = false)
+    private Long userId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EntryType type;
+    
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+    
+    // The day the fine was worked out for
+    @Column(nullable = false)
+    private LocalDate accrualDate;
+    
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+    
+    public enum EntryType {
+        // The nightly accrual on a loan still out past its due date
+        ACCRUAL,
+        // What was left to charge when the book came back
+        RETURN,
+        // The replacement charge for a lost book, less what had accrued
+        LOST
+    }
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getBorrowRecordId() { return borrowRecordId; }
+    public void setBorrowRecordId(Long borrowRecordId) { this.borrowRecordId = borrowRecordId; }
+    
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public EntryType getType() { return type; }
+    public void setType(EntryType type) { this.type = type; }
+    
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+    
+    public LocalDate getAccrualDate() { return accrualDate; }
+    public void setAccrualDate(LocalDate accrualDate) { this.accrualDate = accrualDate; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,102 @@
+package com.library.management.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A due-date reminder waiting to be sent, or the record that it was. Written by
+ * {@code ReminderProducer} and worked off by {@code ReminderDispatcher}; there is one per
+ * loan and due date, so a renewed loan is reminded again for its new date.
+ */
+@Entity
+@Table(name = "reminder_outbox", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_reminder_outbox_record_due_date", columnNames = {"borrow_record_id", "due_date"})
+}, indexes = {
+    @Index(name = "idx_reminder_outbox_status_next_attempt", columnList = "status, next_attempt_at")
+})
+public class ReminderOutboxEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long borrowRecordId;
+    
+    @Column(nullable = false)
+    private Long userId;
+    
+    @Column(nullable = false)
+    private String recipient;
+    
+    @Column(nullable = false)
+    private String bookTitle;
+    
+    @Column(nullable = false)
+    private LocalDate dueDate;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.PENDING;
+    
+    @Column(nullable = false)
+    private Integer attempts = 0;
+    
+    // When a pending reminder may be picked up: its first try, its next retry, or when the
+    // claim of a dispatcher that stopped runs out
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(length = 500)
+    private String lastError;
+    
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+    
+    @Column
+    private LocalDateTime sentAt;
+    
+    public enum Status {
+        PENDING, SENT, FAILED,
+        // The loan was returned, renewed or became overdue before the reminder went out
+        CANCELLED
+    }
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getBorrowRecordId() { return borrowRecordId; }
+    public void setBorrowRecordId(Long borrowRecordId) { this.borrowRecordId = borrowRecordId; }
+    
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public String getRecipient() { return recipient; }
+    public void setRecipient(String recipient) { this.recipient = recipient; }
+    
+    public String getBookTitle() { return bookTitle; }
+    public void setBookTitle(String bookTitle) { this.bookTitle = bookTitle; }
+    
+    public LocalDate getDueDate() { return dueDate; }
+    public void setDueDate(LocalDate dueDate) { this.dueDate = dueDate; }
+    
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+    
+    public Integer getAttempts() { return attempts; }
+    public void setAttempts(Integer attempts) { this.attempts = attempts; }
+    
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+    
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getSentAt() { return sentAt; }
+    public void setSentAt(LocalDateTime sentAt) { this.sentAt = sentAt; }
+}
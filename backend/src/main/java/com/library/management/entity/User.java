@@ -8,6 +8,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Collections;
@@ -54,6 +55,14 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private boolean enabled = true;
     
+    // Books on loan (borrowed or overdue), kept by ActiveLoans only; null until first needed
+    @Column(insertable = false, updatable = false)
+    private Integer activeBorrowCount;
+    
+    // Fines owed, kept by FineLedger only; null until first needed
+    @Column(precision = 10, scale = 2, insertable = false, updatable = false)
+    private BigDecimal fineBalance;
+    
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
     
@@ -123,6 +132,10 @@ public class User implements UserDetails {
     
     public void setEnabled(boolean enabled) { this.enabled = enabled; }
     
+    public Integer getActiveBorrowCount() { return activeBorrowCount; }
+    
+    public BigDecimal getFineBalance() { return fineBalance; }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
@@ -0,0 +1,38 @@
+package com.library.management.event;
+
+/**
+ * Published by {@code BookService} whenever a book row is created, updated or deleted.
+ * {@code previous} is null for creations and {@code current} is null for deletions.
+ */
+public class BookChangedEvent {
+    
+    private final BookSnapshot previous;
+    private final BookSnapshot current;
+    
+    public BookChangedEvent(BookSnapshot previous, BookSnapshot current) {
+        this.previous = previous;
+        this.current = current;
+    }
+    
+    public static BookChangedEvent created(BookSnapshot current) {
+        return new BookChangedEvent(null, current);
+    }
+    
+    public static BookChangedEvent updated(BookSnapshot previous, BookSnapshot current) {
+        return new BookChangedEvent(previous, current);
+    }
+    
+    public static BookChangedEvent deleted(BookSnapshot previous) {
+        return new BookChangedEvent(previous, null);
+    }
+    
+    public Long getBookId() {
+        return current != null ? current.getId() : previous.getId();
+    }
+    
+    public BookSnapshot getPrevious() { return previous; }
+    
+    public BookSnapshot getCurrent() { return current; }
+    
+    public boolean isDeleted() { return current == null; }
+}
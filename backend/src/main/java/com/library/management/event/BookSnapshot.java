@@ -0,0 +1,69 @@
+package com.library.management.event;
+
+import com.library.management.entity.Book;
+
+import java.time.LocalDate;
+
+/**
+ * Immutable copy of the catalog fields that in-memory indexes care about.
+ * Taken inside the mutating transaction so listeners never touch a managed entity.
+ */
+public class BookSnapshot {
+    
+    private final Long id;
+    private final String title;
+    private final String author;
+    private final String isbn;
+    private final String category;
+    private final LocalDate publicationDate;
+    private final int availableCopies;
+    private final int totalCopies;
+    private final double rating;
+    private final int reviewCount;
+    
+    public BookSnapshot(Long id, String title, String author, String isbn, String category,
+                        LocalDate publicationDate, Integer availableCopies, Integer totalCopies,
+                        Double rating, Integer reviewCount) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.isbn = isbn;
+        this.category = category;
+        this.publicationDate = publicationDate;
+        this.availableCopies = availableCopies != null ? availableCopies : 0;
+        this.totalCopies = totalCopies != null ? totalCopies : 0;
+        this.rating = rating != null ? rating : 0.0;
+        this.reviewCount = reviewCount != null ? reviewCount : 0;
+    }
+    
+    public static BookSnapshot of(Book book) {
+        return new BookSnapshot(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(),
+                book.getCategory(), book.getPublicationDate(), book.getAvailableCopies(),
+                book.getTotalCopies(), book.getRating(), book.getReviewCount());
+    }
+    
+    public BookSnapshot withAvailableCopies(int availableCopies) {
+        return new BookSnapshot(id, title, author, isbn, category, publicationDate, availableCopies,
+                totalCopies, rating, reviewCount);
+    }
+    
+    public Long getId() { return id; }
+    
+    public String getTitle() { return title; }
+    
+    public String getAuthor() { return author; }
+    
+    public String getIsbn() { return isbn; }
+    
+    public String getCategory() { return category; }
+    
+    public LocalDate getPublicationDate() { return publicationDate; }
+    
+    public int getAvailableCopies() { return availableCopies; }
+    
+    public int getTotalCopies() { return totalCopies; }
+    
+    public double getRating() { return rating; }
+    
+    public int getReviewCount() { return reviewCount; }
+}
@@ -0,0 +1,40 @@
+package com.library.management.event;
+
+import com.library.management.entity.BorrowRecord;
+
+/**
+ * Published by {@code BorrowService} whenever a borrow record is created or changes status.
+ * {@code previousStatus} is null for new records.
+ */
+public class BorrowStatusChangedEvent {
+    
+    private final Long recordId;
+    private final Long userId;
+    private final Long bookId;
+    private final BorrowRecord.BorrowStatus previousStatus;
+    private final BorrowRecord.BorrowStatus status;
+    
+    public BorrowStatusChangedEvent(Long recordId, Long userId, Long bookId,
+                                    BorrowRecord.BorrowStatus previousStatus, BorrowRecord.BorrowStatus status) {
+        this.recordId = recordId;
+        this.userId = userId;
+        this.bookId = bookId;
+        this.previousStatus = previousStatus;
+        this.status = status;
+    }
+    
+    public static BorrowStatusChangedEvent of(BorrowRecord record, BorrowRecord.BorrowStatus previousStatus) {
+        return new BorrowStatusChangedEvent(record.getId(), record.getUser().getId(), record.getBook().getId(),
+                previousStatus, record.getStatus());
+    }
+    
+    public Long getRecordId() { return recordId; }
+    
+    public Long getUserId() { return userId; }
+    
+    public Long getBookId() { return bookId; }
+    
+    public BorrowRecord.BorrowStatus getPreviousStatus() { return previousStatus; }
+    
+    public BorrowRecord.BorrowStatus getStatus() { return status; }
+}
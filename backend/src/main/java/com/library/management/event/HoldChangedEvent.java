@@ -0,0 +1,31 @@
+package com.library.management.event;
+
+import com.library.management.entity.Hold;
+
+/**
+ * Published by {@code HoldService} whenever a hold is placed or leaves the waiting state.
+ */
+public class HoldChangedEvent {
+    
+    private final Long holdId;
+    private final Long bookId;
+    private final Long userId;
+    private final Hold.HoldStatus status;
+    
+    public HoldChangedEvent(Hold hold) {
+        this.holdId = hold.getId();
+        this.bookId = hold.getBook().getId();
+        this.userId = hold.getUser().getId();
+        this.status = hold.getStatus();
+    }
+    
+    public Long getHoldId() { return holdId; }
+    
+    public Long getBookId() { return bookId; }
+    
+    public Long getUserId() { return userId; }
+    
+    public Hold.HoldStatus getStatus() { return status; }
+    
+    public boolean isWaiting() { return status == Hold.HoldStatus.WAITING; }
+}
@@ -0,0 +1,267 @@
+package com.library.management.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.management.entity.IdempotencyRecord;
+import com.library.management.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Responses of circulation POSTs made with an {@code Idempotency-Key} header, so a client
+ * that retries after a timeout gets the original response instead of a second checkout or
+ * an "already returned" error.
+ * <p>
+ * Keys are scoped to the user and kept in a bounded in-memory cache for
+ * {@code library.idempotency.ttl-hours}. The first request with a key claims it; a retry
+ * that arrives while it is still running waits for its response. Only successful responses
+ * are kept: after a failure nothing was changed, so the key is released and a retry runs
+ * again. A key reused for a different request is rejected. With
+ * {@code library.idempotency.persist} on, responses are also written to
+ * {@code idempotency_keys} so they survive a restart and are shared between instances.
+ */
+@Component
+public class IdempotencyStore {
+    
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+    private static final int MAX_KEY_LENGTH = 255;
+    
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${library.idempotency.ttl-hours:24}")
+    private long ttlHours;
+    
+    @Value("${library.idempotency.maximum-size:100000}")
+    private long maximumSize;
+    
+    @Value("${library.idempotency.wait-ms:10000}")
+    private long waitMs;
+    
+    @Value("${library.idempotency.persist:false}")
+    private boolean persist;
+    
+    // "<user id>:<key>" -> the request that claimed the key and its response once it has one
+    private Cache<String, Entry> entries;
+    
+    @PostConstruct
+    public void init() {
+        entries = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofHours(ttlHours))
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "idempotency.keys");
+    }
+    
+    /**
+     * Runs {@code action} once per user and key. {@code request} identifies the request,
+     * typically the operation and its body; without a key the action simply runs.
+     */
+    public ResponseEntity<?> execute(String key, Long userId, String request, Supplier<ResponseEntity<?>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return error(HttpStatus.BAD_REQUEST,
+                    HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String cacheKey = userId + ":" + key;
+        String fingerprint = digest(request);
+        
+        while (true) {
+            Entry claim = new Entry(fingerprint);
+            Entry existing = entries.asMap().putIfAbsent(cacheKey, claim);
+            if (existing == null) {
+                Optional<IdempotencyRecord> stored;
+                try {
+                    stored = persist
+                            ? idempotencyRecordRepository.findByUserIdAndIdempotencyKey(userId, key)
+                            : Optional.empty();
+                } catch (RuntimeException e) {
+                    release(cacheKey, claim);
+                    throw e;
+                }
+                if (stored.isPresent()) {
+                    // Keep the stored request's fingerprint, which need not be this one's
+                    Entry restored = new Entry(stored.get().getFingerprint());
+                    restored.response.complete(new StoredResponse(
+                            stored.get().getResponseStatus(), stored.get().getResponseBody()));
+                    entries.asMap().replace(cacheKey, claim, restored);
+                    claim.response.completeExceptionally(new IllegalStateException("Restored from the database"));
+                    return replay(restored, fingerprint);
+                }
+                return run(cacheKey, userId, key, claim, action);
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                return mismatch();
+            }
+            StoredResponse response;
+            try {
+                response = existing.response.get(waitMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                return error(HttpStatus.CONFLICT, "A request with this " + HEADER + " is still in progress");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return error(HttpStatus.CONFLICT, "A request with this " + HEADER + " is still in progress");
+            } catch (ExecutionException e) {
+                response = null;
+            }
+            if (response != null) {
+                return replay(existing, fingerprint);
+            }
+            // The first request failed and released the key, or it was restored from the
+            // database under a new entry; look again
+        }
+    }
+    
+    /**
+     * Drops persisted responses older than the TTL; the in-memory entries expire on their own.
+     */
+    @Scheduled(fixedDelayString = "${library.idempotency.cleanup-interval-ms:3600000}")
+    public void removeExpired() {
+        if (!persist) {
+            return;
+        }
+        int removed = idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(ttlHours));
+        if (removed > 0) {
+            logger.debug("Removed {} expired idempotency keys", removed);
+        }
+    }
+    
+    private ResponseEntity<?> run(String cacheKey, Long userId, String key, Entry claim,
+                                  Supplier<ResponseEntity<?>> action) {
+        ResponseEntity<?> result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            release(cacheKey, claim);
+            throw e;
+        }
+        StoredResponse response = null;
+        if (result.getStatusCode().is2xxSuccessful()) {
+            try {
+                response = new StoredResponse(result.getStatusCode().value(),
+                        objectMapper.writeValueAsString(result.getBody()));
+            } catch (JsonProcessingException e) {
+                logger.warn("Could not keep the response for idempotency key {}: {}", key, e.getMessage());
+            }
+        }
+        if (response == null) {
+            release(cacheKey, claim);
+            return result;
+        }
+        if (persist) {
+            save(userId, key, claim.fingerprint, response);
+        }
+        claim.response.complete(response);
+        return result;
+    }
+    
+    private void save(Long userId, String key, String fingerprint, StoredResponse response) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setUserId(userId);
+        record.setIdempotencyKey(key);
+        record.setFingerprint(fingerprint);
+        record.setResponseStatus(response.status);
+        record.setResponseBody(response.body);
+        try {
+            idempotencyRecordRepository.save(record);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance stored the key first; its request was a different one
+            logger.warn("Idempotency key {} of user {} was already stored", key, userId);
+        }
+    }
+    
+    private void release(String cacheKey, Entry claim) {
+        entries.asMap().remove(cacheKey, claim);
+        claim.response.completeExceptionally(new IllegalStateException("Request failed"));
+    }
+    
+    private ResponseEntity<?> replay(Entry entry, String fingerprint) {
+        if (!entry.fingerprint.equals(fingerprint)) {
+            return mismatch();
+        }
+        StoredResponse response = entry.response.join();
+        return ResponseEntity.status(response.status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(REPLAYED_HEADER, "true")
+                .body(response.body);
+    }
+    
+    // Batch requests can be long, so entries keep a SHA-256 of the request instead
+    private static String digest(String request) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(request.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static ResponseEntity<?> mismatch() {
+        return error(HttpStatus.UNPROCESSABLE_ENTITY, HEADER + " was already used for a different request");
+    }
+    
+    private static ResponseEntity<?> error(HttpStatus status, String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", message);
+        return ResponseEntity.status(status).body(error);
+    }
+    
+    private static class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+        
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+    
+    private static class StoredResponse {
+        private final int status;
+        private final String body;
+        
+        StoredResponse(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.library.management.pagination;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Row count estimates for listings that skip the exact {@code COUNT(*)}.
+ * <p>
+ * Unfiltered listings read the row estimate the database keeps in its table statistics.
+ * Filtered listings use a cached count per filter that is recomputed on a background thread
+ * once it is older than the configured TTL; callers always get the cached value immediately,
+ * or null while the first count for a filter is still running. At most
+ * {@code library.pagination.approximate-count.queue-size} counts wait for that thread; a
+ * filter that finds the queue full gets null and asks again on its next request. Keys must
+ * come from a fixed set of filters, never from free text.
+ */
+@Component
+public class ApproximateCounter {
+    
+    private static final Logger log = LoggerFactory.getLogger(ApproximateCounter.class);
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Value("${library.pagination.approximate-count.ttl-seconds:60}")
+    private long ttlSeconds;
+    
+    @Value("${library.pagination.approximate-count.max-entries:1000}")
+    private int maxEntries;
+    
+    @Value("${library.pagination.approximate-count.queue-size:16}")
+    private int queueSize;
+    
+    private final Map<String, Estimate> estimates = new LinkedHashMap<>(16, 0.75f, true);
+    private ExecutorService refresher;
+    private volatile boolean tableStatisticsAvailable = true;
+    
+    @PostConstruct
+    public void init() {
+        // The default abort policy, so a rejected refresh is caught in schedule and retried later
+        refresher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "approximate-counter");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+    
+    /**
+     * Estimate for a whole table: the database statistics when it exposes them, otherwise a
+     * cached exact count.
+     */
+    public Long estimateTable(String table, Supplier<Long> counter) {
+        if (tableStatisticsAvailable) {
+            try {
+                Long rows = jdbcTemplate.queryForObject(
+                        "SELECT TABLE_ROWS FROM information_schema.TABLES " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?", Long.class, table);
+                if (rows != null) {
+                    return rows;
+                }
+            } catch (DataAccessException e) {
+                log.info("Table statistics unavailable, falling back to cached counts: {}", e.getMessage());
+                tableStatisticsAvailable = false;
+            }
+        }
+        return estimate("table:" + table, counter);
+    }
+    
+    /**
+     * Returns the cached count for {@code key}, scheduling a background refresh when it is
+     * missing or stale.
+     */
+    public Long estimate(String key, Supplier<Long> counter) {
+        long now = System.currentTimeMillis();
+        Estimate estimate;
+        boolean refresh;
+        synchronized (estimates) {
+            estimate = estimates.get(key);
+            if (estimate == null) {
+                estimate = new Estimate();
+                estimates.put(key, estimate);
+                evictEldest();
+            }
+            refresh = !estimate.refreshing && now - estimate.computedAt > ttlSeconds * 1000;
+            if (refresh) {
+                estimate.refreshing = true;
+            }
+        }
+        if (refresh) {
+            schedule(key, estimate, counter);
+        }
+        return estimate.value;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+    
+    private void schedule(String key, Estimate estimate, Supplier<Long> counter) {
+        try {
+            refresher.execute(() -> {
+                try {
+                    estimate.value = counter.get();
+                    estimate.computedAt = System.currentTimeMillis();
+                } catch (RuntimeException e) {
+                    log.warn("Could not count {}: {}", key, e.getMessage());
+                } finally {
+                    estimate.refreshing = false;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            estimate.refreshing = false;
+        }
+    }
+    
+    private void evictEldest() {
+        while (estimates.size() > maxEntries) {
+            estimates.remove(estimates.keySet().iterator().next());
+        }
+    }
+    
+    private static final class Estimate {
+        private volatile Long value;
+        private volatile long computedAt;
+        private volatile boolean refreshing;
+    }
+}
@@ -0,0 +1,97 @@
+package com.library.management.pagination;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns keyset scroll positions into opaque URL-safe cursors and back.
+ * <p>
+ * A cursor is the Base64 encoded JSON of the last row's sort key values plus its id. On the
+ * way back each value is converted to the Java type of the entity attribute it belongs to, so
+ * dates and enums compare correctly in the seek predicate.
+ */
+@Component
+public class CursorCodec {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    /**
+     * Decodes {@code cursor} for a listing of {@code entityType} ordered by {@code sort}.
+     * An empty cursor starts from the first row.
+     */
+    public ScrollPosition decode(String cursor, Class<?> entityType, Sort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        
+        Map<String, Object> raw;
+        try {
+            raw = objectMapper.readValue(Base64.getUrlDecoder().decode(cursor),
+                    new TypeReference<LinkedHashMap<String, Object>>() {});
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        
+        Set<String> expected = new HashSet<>();
+        sort.forEach(order -> expected.add(order.getProperty()));
+        expected.add("id");
+        if (!expected.equals(raw.keySet())) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort order");
+        }
+        
+        Map<String, Object> keys = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : raw.entrySet()) {
+            Class<?> type = entityManager.getMetamodel().entity(entityType)
+                    .getAttribute(entry.getKey()).getJavaType();
+            keys.put(entry.getKey(), objectMapper.convertValue(entry.getValue(), type));
+        }
+        return ScrollPosition.forward(keys);
+    }
+    
+    /**
+     * Rejects sort properties a listing cannot seek on, such as nullable columns (a keyset
+     * predicate never matches NULL) or columns that must not end up in a cursor.
+     */
+    public static void requireSortable(Sort sort, Set<String> sortable) {
+        for (Sort.Order order : sort) {
+            if (!sortable.contains(order.getProperty())) {
+                throw new IllegalArgumentException("Cursor pagination is not supported for sort by " + order.getProperty());
+            }
+        }
+    }
+    
+    public <T> CursorPage<T> page(Window<T> window) {
+        String next = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            next = encode((KeysetScrollPosition) window.positionAt(window.size() - 1));
+        }
+        return new CursorPage<>(window.getContent(), window.hasNext(), next);
+    }
+    
+    private String encode(KeysetScrollPosition position) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(objectMapper.writeValueAsBytes(position.getKeys()));
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not encode cursor", e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.library.management.pagination;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. There is deliberately no total count: {@code next}
+ * is the opaque cursor for the following page, or null on the last page.
+ */
+public class CursorPage<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String next;
+    
+    public CursorPage() {}
+    
+    public CursorPage(List<T> content, boolean hasNext, String next) {
+        this.content = content;
+        this.size = content.size();
+        this.hasNext = hasNext;
+        this.next = next;
+    }
+    
+    public List<T> getContent() { return content; }
+    public void setContent(List<T> content) { this.content = content; }
+    
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+    
+    public boolean isHasNext() { return hasNext; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+    
+    public String getNext() { return next; }
+    public void setNext(String next) { this.next = next; }
+}
@@ -0,0 +1,43 @@
+package com.library.management.pagination;
+
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * A page without an exact total. {@code hasNext} comes from fetching one extra row;
+ * {@code approximateTotal} is only filled in when the client asked for it and an estimate is
+ * available, and may lag behind recent writes.
+ */
+public class SlicePage<T> {
+    private List<T> content;
+    private int number;
+    private int size;
+    private boolean hasNext;
+    private Long approximateTotal;
+    
+    public SlicePage() {}
+    
+    public SlicePage(Slice<T> slice, Long approximateTotal) {
+        this.content = slice.getContent();
+        this.number = slice.getNumber();
+        this.size = slice.getSize();
+        this.hasNext = slice.hasNext();
+        this.approximateTotal = approximateTotal;
+    }
+    
+    public List<T> getContent() { return content; }
+    public void setContent(List<T> content) { this.content = content; }
+    
+    public int getNumber() { return number; }
+    public void setNumber(int number) { this.number = number; }
+    
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+    
+    public boolean isHasNext() { return hasNext; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+    
+    public Long getApproximateTotal() { return approximateTotal; }
+    public void setApproximateTotal(Long approximateTotal) { this.approximateTotal = approximateTotal; }
+}
@@ -0,0 +1,66 @@
+package com.library.management.reminder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Appends each reminder to {@code library.reminders.file.path} as one line of JSON, for
+ * development and tests. Without a path the file is {@code library-reminders.jsonl} in the
+ * system temporary directory, so a default run writes nothing into the working directory.
+ */
+@Component
+@ConditionalOnProperty(name = "library.reminders.sender", havingValue = "file", matchIfMissing = true)
+public class FileReminderSender implements ReminderSender {
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${library.reminders.file.path:}")
+    private String path;
+    
+    private BufferedWriter writer;
+    
+    @PostConstruct
+    public void open() throws IOException {
+        Path file = path.isBlank() ? Path.of(System.getProperty("java.io.tmpdir"), "library-reminders.jsonl")
+                : Path.of(path);
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+    
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+    
+    @Override
+    public void send(ReminderMessage message) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("reminderId", message.getReminderId());
+        line.put("to", message.getTo());
+        line.put("subject", message.getSubject());
+        line.put("body", message.getBody());
+        line.put("sentAt", LocalDateTime.now().toString());
+        String json = objectMapper.writeValueAsString(line);
+        synchronized (this) {
+            writer.write(json);
+            writer.newLine();
+            writer.flush();
+        }
+    }
+}
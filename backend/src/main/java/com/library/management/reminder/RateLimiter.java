@@ -0,0 +1,33 @@
+package com.library.management.reminder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out permits evenly spaced at a fixed rate to any number of threads; a rate of zero or
+ * less means no limit. Time nobody used is not saved up, so there are no bursts.
+ */
+class RateLimiter {
+    
+    private final long intervalNanos;
+    private long next = System.nanoTime();
+    
+    RateLimiter(double permitsPerSecond) {
+        this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+    }
+    
+    void acquire() throws InterruptedException {
+        if (intervalNanos == 0) {
+            return;
+        }
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            next = Math.max(next, now);
+            wait = next - now;
+            next += intervalNanos;
+        }
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package com.library.management.reminder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Works off {@code reminder_outbox}: one dispatcher thread claims due reminders in batches and
+ * records the outcomes, and a pool of {@code library.reminders.workers} threads sends them
+ * through the {@link ReminderSender}, together no faster than
+ * {@code library.reminders.rate-per-second}.
+ * <p>
+ * A claim is a short transaction that moves the reminders' {@code next_attempt_at} one
+ * {@code library.reminders.lease-ms} ahead, so no other dispatcher picks them up meanwhile, and
+ * drops the ones whose loan was returned, renewed or went overdue. Messages are sent with no
+ * transaction open, and the outcomes of everything that finished are written together in
+ * another short one. A failed send is retried with a doubling delay from
+ * {@code library.reminders.retry-backoff-ms}, and given up after
+ * {@code library.reminders.max-attempts}. If the process stops, its claims run out and the
+ * reminders are sent again, so a reminder can arrive twice but is not lost. At most two
+ * batches are out at a time, which the lease has to cover at the configured rate.
+ * <p>
+ * {@code reminders.processed} counts the reminders by outcome, {@code reminders.send.duration}
+ * times the sender, and {@code reminders.lag} is how long the oldest due reminder has been
+ * waiting.
+ */
+@Component
+public class ReminderDispatcher {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReminderDispatcher.class);
+    
+    private static final String OLDEST_SQL = "SELECT MIN(next_attempt_at) FROM reminder_outbox WHERE status = 'PENDING'";
+    private static final String CLAIM_SQL = "SELECT id FROM reminder_outbox " +
+            "WHERE status = 'PENDING' AND next_attempt_at <= ? ORDER BY next_attempt_at, id LIMIT ? FOR UPDATE";
+    private static final String LEASE_SQL =
+            "UPDATE reminder_outbox SET next_attempt_at = ?, attempts = attempts + 1 WHERE id IN (%s)";
+    private static final String DETAILS_SQL = "SELECT r.id, r.recipient, r.book_title, r.due_date, r.attempts, " +
+            "br.status, br.due_date FROM reminder_outbox r LEFT JOIN borrow_records br ON br.id = r.borrow_record_id " +
+            "WHERE r.id IN (%s) ORDER BY r.id";
+    private static final String CANCEL_SQL = "UPDATE reminder_outbox SET status = 'CANCELLED' WHERE id IN (%s)";
+    private static final String SENT_SQL =
+            "UPDATE reminder_outbox SET status = 'SENT', sent_at = ?, last_error = NULL WHERE id IN (%s)";
+    private static final String RETRY_SQL = "UPDATE reminder_outbox SET next_attempt_at = ?, last_error = ? WHERE id = ?";
+    private static final String FAILED_SQL = "UPDATE reminder_outbox SET status = 'FAILED', last_error = ? WHERE id = ?";
+    private static final String COUNT_SQL = "SELECT status, COUNT(*) FROM reminder_outbox GROUP BY status";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ReminderSender sender;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${library.reminders.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${library.reminders.workers:4}")
+    private int workerCount;
+    
+    @Value("${library.reminders.batch-size:200}")
+    private int batchSize;
+    
+    @Value("${library.reminders.rate-per-second:50}")
+    private double ratePerSecond;
+    
+    @Value("${library.reminders.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Value("${library.reminders.retry-backoff-ms:60000}")
+    private long retryBackoffMillis;
+    
+    @Value("${library.reminders.lease-ms:300000}")
+    private long leaseMillis;
+    
+    @Value("${library.reminders.poll-interval-ms:1000}")
+    private long pollIntervalMillis;
+    
+    private TransactionTemplate transactionTemplate;
+    private RateLimiter rateLimiter;
+    private ExecutorService workers;
+    private Thread dispatcher;
+    private volatile boolean running = true;
+    
+    private final BlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong lagMillis = new AtomicLong();
+    private Timer sendDuration;
+    private Counter sent;
+    private Counter retried;
+    private Counter failed;
+    private Counter cancelled;
+    
+    // Only touched by the dispatcher thread: the current run of back-to-back batches
+    private long busySince;
+    private int sentSinceBusy;
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        rateLimiter = new RateLimiter(ratePerSecond);
+        AtomicInteger threads = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "reminder-sender-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        sendDuration = Timer.builder("reminders.send.duration")
+                .description("Time taken to hand one reminder to the sender")
+                .register(meterRegistry);
+        sent = processed("sent");
+        retried = processed("retried");
+        failed = processed("failed");
+        cancelled = processed("cancelled");
+        Gauge.builder("reminders.lag", lagMillis, lag -> lag.get() / 1000.0)
+                .description("How long the oldest due reminder has been waiting")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("reminders.in-flight", inFlight, AtomicInteger::get)
+                .description("Reminders claimed and not yet sent")
+                .register(meterRegistry);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        dispatcher = new Thread(this::dispatch, "reminder-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        workers.shutdownNow();
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+            dispatcher.join(1000);
+        }
+    }
+    
+    /**
+     * Seconds the oldest due reminder has been waiting, as of the last claim.
+     */
+    public double getLagSeconds() {
+        return lagMillis.get() / 1000.0;
+    }
+    
+    public int getInFlight() {
+        return inFlight.get();
+    }
+    
+    /**
+     * Reminders in the outbox by status.
+     */
+    public Map<String, Long> countByStatus() {
+        Map<String, Long> counts = new TreeMap<>();
+        jdbcTemplate.query(COUNT_SQL, rs -> {
+            counts.put(rs.getString(1), rs.getLong(2));
+        });
+        return counts;
+    }
+    
+    private void dispatch() {
+        List<Outcome> finished = new ArrayList<>();
+        while (running) {
+            try {
+                outcomes.drainTo(finished);
+                boolean recorded = !finished.isEmpty();
+                if (recorded) {
+                    record(finished);
+                    finished.clear();
+                }
+                if (inFlight.get() <= batchSize && claim() > 0) {
+                    continue;
+                }
+                if (inFlight.get() == 0 && outcomes.isEmpty() && busySince != 0) {
+                    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - busySince);
+                    if (sentSinceBusy > 0) {
+                        log.info("Sent {} reminders in {} ms ({} per second)", sentSinceBusy, millis,
+                                millis > 0 ? sentSinceBusy * 1000L / millis : sentSinceBusy);
+                    }
+                    busySince = 0;
+                }
+                if (!recorded) {
+                    Outcome next = outcomes.poll(pollIntervalMillis, TimeUnit.MILLISECONDS);
+                    if (next != null) {
+                        finished.add(next);
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // Outcomes not recorded yet are kept; claims that are never recorded run out
+                log.warn("Reminder dispatch failed: {}", e.getMessage());
+                try {
+                    Thread.sleep(pollIntervalMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    // Claims the next batch of due reminders and hands them to the workers; returns how many
+    // were claimed, including the ones dropped
+    private int claim() {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp oldest = jdbcTemplate.queryForObject(OLDEST_SQL, Timestamp.class);
+        lagMillis.set(oldest == null ? 0 : Math.max(0, Timestamp.valueOf(now).getTime() - oldest.getTime()));
+        
+        List<ReminderMessage> messages = new ArrayList<>();
+        Map<Long, Integer> attempts = new HashMap<>();
+        List<Long> ids = transactionTemplate.execute(status -> {
+            List<Long> claimed = jdbcTemplate.queryForList(CLAIM_SQL, Long.class, Timestamp.valueOf(now), batchSize);
+            if (claimed.isEmpty()) {
+                return claimed;
+            }
+            String placeholders = placeholders(claimed.size());
+            List<Object> args = new ArrayList<>();
+            args.add(Timestamp.valueOf(now.plusNanos(TimeUnit.MILLISECONDS.toNanos(leaseMillis))));
+            args.addAll(claimed);
+            jdbcTemplate.update(String.format(LEASE_SQL, placeholders), args.toArray());
+            
+            List<Long> stale = new ArrayList<>();
+            jdbcTemplate.query(String.format(DETAILS_SQL, placeholders), rs -> {
+                long id = rs.getLong(1);
+                LocalDate dueDate = rs.getDate(4).toLocalDate();
+                // Only a loan still out on the same due date needs the reminder; an archived
+                // one has no row left
+                if (!"BORROWED".equals(rs.getString(6)) || !dueDate.equals(rs.getDate(7).toLocalDate())) {
+                    stale.add(id);
+                    return;
+                }
+                messages.add(ReminderMessage.dueSoon(id, rs.getString(2), rs.getString(3), dueDate));
+                attempts.put(id, rs.getInt(5));
+            }, claimed.toArray());
+            if (!stale.isEmpty()) {
+                jdbcTemplate.update(String.format(CANCEL_SQL, placeholders(stale.size())), stale.toArray());
+                cancelled.increment(stale.size());
+            }
+            return claimed;
+        });
+        
+        if (!messages.isEmpty() && busySince == 0) {
+            busySince = System.nanoTime();
+            sentSinceBusy = 0;
+        }
+        for (ReminderMessage message : messages) {
+            inFlight.incrementAndGet();
+            workers.execute(() -> send(message, attempts.get(message.getReminderId())));
+        }
+        return ids.size();
+    }
+    
+    // Runs on a worker; the attempt count includes this one
+    private void send(ReminderMessage message, int attempt) {
+        String error = null;
+        try {
+            rateLimiter.acquire();
+            long start = System.nanoTime();
+            sender.send(message);
+            sendDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Interrupted";
+        } catch (Exception e) {
+            error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+        outcomes.add(new Outcome(message.getReminderId(), attempt, error));
+        inFlight.decrementAndGet();
+    }
+    
+    // Writes the outcomes of finished sends in one transaction
+    private void record(List<Outcome> finished) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> delivered = new ArrayList<>();
+        List<Object[]> retries = new ArrayList<>();
+        List<Object[]> failures = new ArrayList<>();
+        for (Outcome outcome : finished) {
+            if (outcome.error == null) {
+                delivered.add(outcome.reminderId);
+                continue;
+            }
+            String error = outcome.error.length() > 500 ? outcome.error.substring(0, 500) : outcome.error;
+            if (outcome.attempt >= maxAttempts) {
+                failures.add(new Object[] {error, outcome.reminderId});
+            } else {
+                long delay = retryBackoffMillis << Math.min(outcome.attempt - 1, 20);
+                retries.add(new Object[] {Timestamp.valueOf(now.plusNanos(TimeUnit.MILLISECONDS.toNanos(delay))),
+                        error, outcome.reminderId});
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!delivered.isEmpty()) {
+                List<Object> args = new ArrayList<>();
+                args.add(Timestamp.valueOf(now));
+                args.addAll(delivered);
+                jdbcTemplate.update(String.format(SENT_SQL, placeholders(delivered.size())), args.toArray());
+            }
+            if (!retries.isEmpty()) {
+                jdbcTemplate.batchUpdate(RETRY_SQL, retries);
+            }
+            if (!failures.isEmpty()) {
+                jdbcTemplate.batchUpdate(FAILED_SQL, failures);
+            }
+        });
+        sent.increment(delivered.size());
+        retried.increment(retries.size());
+        failed.increment(failures.size());
+        sentSinceBusy += delivered.size();
+        if (!failures.isEmpty()) {
+            log.warn("{} reminders failed {} times and were given up", failures.size(), maxAttempts);
+        }
+    }
+    
+    private Counter processed(String outcome) {
+        return Counter.builder("reminders.processed")
+                .description("Reminders worked off the outbox, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+    
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+    
+    private static class Outcome {
+        private final long reminderId;
+        private final int attempt;
+        // Null when the reminder was sent
+        private final String error;
+        
+        Outcome(long reminderId, int attempt, String error) {
+            this.reminderId = reminderId;
+            this.attempt = attempt;
+            this.error = error;
+        }
+    }
+}
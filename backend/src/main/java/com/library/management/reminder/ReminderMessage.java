@@ -0,0 +1,41 @@
+package com.library.management.reminder;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * One reminder as handed to a {@link ReminderSender}.
+ */
+public class ReminderMessage {
+    
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("EEEE d MMMM yyyy");
+    
+    private final Long reminderId;
+    private final String to;
+    private final String subject;
+    private final String body;
+    
+    public ReminderMessage(Long reminderId, String to, String subject, String body) {
+        this.reminderId = reminderId;
+        this.to = to;
+        this.subject = subject;
+        this.body = body;
+    }
+    
+    static ReminderMessage dueSoon(Long reminderId, String to, String bookTitle, LocalDate dueDate) {
+        String date = dueDate.format(DATE);
+        return new ReminderMessage(reminderId, to, "Reminder: \"" + bookTitle + "\" is due on " + date,
+                "Hello,\n\n" +
+                "This is a reminder that \"" + bookTitle + "\", which you borrowed from the library, is due " +
+                "back on " + date + ".\n\n" +
+                "Please return or renew it by then to avoid a late fine.\n");
+    }
+    
+    public Long getReminderId() { return reminderId; }
+    
+    public String getTo() { return to; }
+    
+    public String getSubject() { return subject; }
+    
+    public String getBody() { return body; }
+}
@@ -0,0 +1,130 @@
+package com.library.management.reminder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Puts a reminder in {@code reminder_outbox} for every loan due within
+ * {@code library.reminders.days-ahead} days that has not had one for its due date, on
+ * {@code library.reminders.produce-cron}. {@link ReminderDispatcher} sends them.
+ * <p>
+ * The loans are read one due date at a time, in chunks of
+ * {@code library.reminders.produce-chunk-size} that continue after the last id read, so each
+ * chunk is a seek into the {@code (status, due_date)} index. Each chunk is written with one
+ * INSERT ... SELECT in its own short transaction. The outbox row is also the
+ * record that the loan was reminded: the unique key on loan and due date makes a second run a
+ * no-op, and a renewal earns a new reminder. Nothing is sent from here, so a slow mail server
+ * never holds a transaction open.
+ */
+@Component
+public class ReminderProducer {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReminderProducer.class);
+    
+    private static final String SELECT_SQL = "SELECT id FROM borrow_records " +
+            "WHERE status = 'BORROWED' AND due_date = ? AND id > ? ORDER BY id LIMIT ?";
+    private static final String INSERT_SQL = "INSERT INTO reminder_outbox (borrow_record_id, user_id, recipient, " +
+            "book_title, due_date, status, attempts, next_attempt_at, created_at) " +
+            "SELECT br.id, br.user_id, u.email, b.title, br.due_date, 'PENDING', 0, ?, ? " +
+            "FROM borrow_records br JOIN users u ON u.id = br.user_id JOIN books b ON b.id = br.book_id " +
+            "WHERE br.id IN (%s) AND u.enabled = TRUE AND NOT EXISTS (SELECT 1 FROM reminder_outbox r " +
+            "WHERE r.borrow_record_id = br.id AND r.due_date = br.due_date)";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${library.reminders.days-ahead:2}")
+    private int daysAhead;
+    
+    @Value("${library.reminders.produce-chunk-size:1000}")
+    private int chunkSize;
+    
+    private TransactionTemplate transactionTemplate;
+    private Counter enqueued;
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        enqueued = Counter.builder("reminders.enqueued")
+                .description("Reminders written to the outbox")
+                .register(meterRegistry);
+    }
+    
+    @Scheduled(cron = "${library.reminders.produce-cron:0 0 8 * * *}")
+    public void scheduledProduce() {
+        produce();
+    }
+    
+    /**
+     * Queues the reminders that are due and returns how many were new.
+     */
+    public synchronized int produce() {
+        LocalDate today = LocalDate.now();
+        long start = System.nanoTime();
+        int total = 0;
+        for (LocalDate dueDate = today; !dueDate.isAfter(today.plusDays(daysAhead)); dueDate = dueDate.plusDays(1)) {
+            long lastId = 0;
+            while (true) {
+                List<Long> ids = jdbcTemplate.queryForList(SELECT_SQL, Long.class, Date.valueOf(dueDate), lastId, chunkSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                total += enqueue(ids);
+                lastId = ids.get(ids.size() - 1);
+                if (ids.size() < chunkSize) {
+                    break;
+                }
+            }
+        }
+        enqueued.increment(total);
+        if (total > 0) {
+            log.info("Queued {} due-date reminders in {} ms", total,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return total;
+    }
+    
+    private int enqueue(List<Long> ids) {
+        String placeholders = String.join(", ", ids.stream().map(id -> "?").toList());
+        Object[] args = new Object[ids.size() + 2];
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        args[0] = now;
+        args[1] = now;
+        for (int i = 0; i < ids.size(); i++) {
+            args[i + 2] = ids.get(i);
+        }
+        try {
+            Integer inserted = transactionTemplate.execute(status ->
+                    jdbcTemplate.update(String.format(INSERT_SQL, placeholders), args));
+            return inserted != null ? inserted : 0;
+        } catch (DuplicateKeyException e) {
+            // Another instance queued some of these at the same moment; the next run queues the rest
+            log.debug("Reminders for {} loans were queued concurrently", ids.size());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.library.management.reminder;
+
+import java.io.IOException;
+
+/**
+ * Delivers reminders; chosen with {@code library.reminders.sender}. Called from several
+ * dispatcher workers at once. A failure is retried later, so a reminder may be delivered more
+ * than once but is never lost while it has attempts left.
+ */
+public interface ReminderSender {
+    
+    void send(ReminderMessage message) throws IOException;
+}
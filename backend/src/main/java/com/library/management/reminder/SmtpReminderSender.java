@@ -0,0 +1,89 @@
+package com.library.management.reminder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Hands each reminder to the SMTP server at {@code library.reminders.smtp.host} and
+ * {@code port}, one connection per message. Speaks plain SMTP without TLS or authentication,
+ * which is what a local relay or a development mail catcher accepts.
+ */
+@Component
+@ConditionalOnProperty(name = "library.reminders.sender", havingValue = "smtp")
+public class SmtpReminderSender implements ReminderSender {
+    
+    @Value("${library.reminders.smtp.host:localhost}")
+    private String host;
+    
+    @Value("${library.reminders.smtp.port:1025}")
+    private int port;
+    
+    @Value("${library.reminders.smtp.from:library@localhost}")
+    private String from;
+    
+    @Value("${library.reminders.smtp.timeout-ms:10000}")
+    private int timeoutMillis;
+    
+    @Override
+    public void send(ReminderMessage message) throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            
+            expect(in, 220);
+            command(out, in, "HELO " + from.substring(from.indexOf('@') + 1), 250);
+            command(out, in, "MAIL FROM:<" + from + ">", 250);
+            command(out, in, "RCPT TO:<" + message.getTo() + ">", 250);
+            command(out, in, "DATA", 354);
+            StringBuilder data = new StringBuilder()
+                    .append("From: ").append(from).append("\r\n")
+                    .append("To: ").append(message.getTo()).append("\r\n")
+                    .append("Subject: ").append(message.getSubject()).append("\r\n")
+                    .append("Date: ").append(ZonedDateTime.now().format(DateTimeFormatter.RFC_1123_DATE_TIME)).append("\r\n")
+                    .append("Content-Type: text/plain; charset=UTF-8\r\n")
+                    .append("\r\n");
+            for (String line : message.getBody().split("\n", -1)) {
+                // A line starting with a dot would otherwise end the message early
+                data.append(line.startsWith(".") ? "." : "").append(line).append("\r\n");
+            }
+            command(out, in, data + ".", 250);
+            command(out, in, "QUIT", 221);
+        }
+    }
+    
+    private static void command(Writer out, BufferedReader in, String command, int expected) throws IOException {
+        out.write(command + "\r\n");
+        out.flush();
+        expect(in, expected);
+    }
+    
+    // Reads a reply, which may span several "250-" lines, and checks its code
+    private static void expect(BufferedReader in, int expected) throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+            if (line == null) {
+                throw new IOException("SMTP server closed the connection");
+            }
+        } while (line.length() > 3 && line.charAt(3) == '-');
+        // 251 means the server forwards the mail, which is as good as accepting it
+        int code = line.length() >= 3 ? Integer.parseInt(line.substring(0, 3)) : -1;
+        if (code != expected && !(expected == 250 && code == 251)) {
+            throw new IOException("SMTP server answered \"" + line + "\", expected " + expected);
+        }
+    }
+}
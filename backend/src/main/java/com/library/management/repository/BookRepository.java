@@ -1,46 +1,92 @@
 package com.library.management.repository;
 
+import com.library.management.dto.BookCardDto;
 import com.library.management.entity.Book;
+import com.library.management.event.BookSnapshot;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book> {
     
-    Optional<Book> findByIsbn(String isbn);
+    String FILTERS = "(:search IS NULL OR LOWER(b.title) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                     "LOWER(b.author) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                     "LOWER(b.category) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                     "LOWER(b.isbn) LIKE LOWER(CONCAT('%', :search, '%'))) AND " +
+                     "(:category IS NULL OR LOWER(b.category) = LOWER(:category)) AND " +
+                     "(:author IS NULL OR LOWER(b.author) = LOWER(:author)) AND " +
+                     "(:availableOnly = false OR b.availableCopies > 0)";
+    
+    String CARD = "new com.library.management.dto.BookCardDto(b.id, b.title, b.author, b.isbn, b.category, " +
+                  "b.coverImageUrl, b.availableCopies, b.totalCopies, b.status, b.rating, b.reviewCount)";
+    
+    String SNAPSHOT = "new com.library.management.event.BookSnapshot(b.id, b.title, b.author, b.isbn, " +
+                      "b.category, b.publicationDate, b.availableCopies, b.totalCopies, b.rating, b.reviewCount)";
+    
+    @Query("SELECT b.id FROM Book b WHERE b.isbn = :isbn")
+    Optional<Long> findIdByIsbn(@Param("isbn") String isbn);
     
     boolean existsByIsbn(String isbn);
     
-    @Query("SELECT b FROM Book b WHERE " +
-           "LOWER(b.title) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(b.author) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(b.category) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(b.isbn) LIKE LOWER(CONCAT('%', :search, '%'))")
-    Page<Book> findBySearchTerm(@Param("search") String search, Pageable pageable);
+    @Query(value = "SELECT " + CARD + " FROM Book b WHERE " + FILTERS,
+           countQuery = "SELECT COUNT(b) FROM Book b WHERE " + FILTERS)
+    Page<BookCardDto> findCardsByFilters(@Param("search") String search,
+                                         @Param("category") String category,
+                                         @Param("author") String author,
+                                         @Param("availableOnly") boolean availableOnly,
+                                         Pageable pageable);
     
-    Page<Book> findByCategory(String category, Pageable pageable);
+    @Query("SELECT " + CARD + " FROM Book b WHERE " + FILTERS)
+    Slice<BookCardDto> findCardSliceByFilters(@Param("search") String search,
+                                              @Param("category") String category,
+                                              @Param("author") String author,
+                                              @Param("availableOnly") boolean availableOnly,
+                                              Pageable pageable);
     
-    Page<Book> findByAuthor(String author, Pageable pageable);
+    @Query("SELECT COUNT(b) FROM Book b WHERE " + FILTERS)
+    long countByFilters(@Param("search") String search,
+                        @Param("category") String category,
+                        @Param("author") String author,
+                        @Param("availableOnly") boolean availableOnly);
     
     Page<Book> findByAvailableCopiesGreaterThan(Integer copies, Pageable pageable);
     
     Page<Book> findByStatus(Book.BookStatus status, Pageable pageable);
     
-    @Query("SELECT b FROM Book b WHERE b.availableCopies > 0")
-    Page<Book> findAvailableBooks(Pageable pageable);
+    @Query(value = "SELECT " + CARD + " FROM Book b ORDER BY b.rating DESC, b.id DESC",
+           countQuery = "SELECT COUNT(b) FROM Book b")
+    Page<BookCardDto> findTopRatedCards(Pageable pageable);
     
-    @Query("SELECT b FROM Book b ORDER BY b.rating DESC")
-    Page<Book> findTopRatedBooks(Pageable pageable);
+    @Query(value = "SELECT " + CARD + " FROM Book b ORDER BY b.reviewCount DESC, b.id DESC",
+           countQuery = "SELECT COUNT(b) FROM Book b")
+    Page<BookCardDto> findMostReviewedCards(Pageable pageable);
     
-    @Query("SELECT b FROM Book b ORDER BY b.reviewCount DESC")
-    Page<Book> findMostReviewedBooks(Pageable pageable);
+    @Query(value = "SELECT " + CARD + " FROM Book b",
+           countQuery = "SELECT COUNT(b) FROM Book b")
+    Page<BookCardDto> findAllCards(Pageable pageable);
+    
+    @Query("SELECT " + CARD + " FROM Book b WHERE b.id IN :ids")
+    List<BookCardDto> findCardsByIdIn(@Param("ids") Collection<Long> ids);
     
     @Query("SELECT DISTINCT b.category FROM Book b ORDER BY b.category")
     List<String> findAllCategories();
@@ -48,9 +94,110 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     @Query("SELECT DISTINCT b.author FROM Book b ORDER BY b.author")
     List<String> findAllAuthors();
     
+    @Query(value = "SELECT DISTINCT b.category FROM Book b " +
+                   "WHERE LOWER(b.category) LIKE LOWER(CONCAT(:prefix, '%')) ORDER BY b.category",
+           countQuery = "SELECT COUNT(DISTINCT b.category) FROM Book b " +
+                        "WHERE LOWER(b.category) LIKE LOWER(CONCAT(:prefix, '%'))")
+    Page<String> findCategoriesByPrefix(@Param("prefix") String prefix, Pageable pageable);
+    
+    @Query(value = "SELECT DISTINCT b.author FROM Book b " +
+                   "WHERE LOWER(b.author) LIKE LOWER(CONCAT(:prefix, '%')) ORDER BY b.author",
+           countQuery = "SELECT COUNT(DISTINCT b.author) FROM Book b " +
+                        "WHERE LOWER(b.author) LIKE LOWER(CONCAT(:prefix, '%'))")
+    Page<String> findAuthorsByPrefix(@Param("prefix") String prefix, Pageable pageable);
+    
     @Query("SELECT COUNT(b) FROM Book b WHERE b.status = 'AVAILABLE'")
     long countAvailableBooks();
     
     @Query("SELECT COUNT(b) FROM Book b")
     long countTotalBooks();
+    
+    @Query("SELECT " + SNAPSHOT + " FROM Book b WHERE b.id > :afterId ORDER BY b.id")
+    List<BookSnapshot> findSnapshotsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT " + SNAPSHOT + " FROM Book b ORDER BY b.rating DESC, b.id DESC")
+    List<BookSnapshot> findTopRatedSnapshots(Pageable pageable);
+    
+    @Query("SELECT " + SNAPSHOT + " FROM Book b ORDER BY b.reviewCount DESC, b.id DESC")
+    List<BookSnapshot> findMostReviewedSnapshots(Pageable pageable);
+    
+    @Query("SELECT " + SNAPSHOT + " FROM Book b WHERE b.id = :id")
+    Optional<BookSnapshot> findSnapshotById(@Param("id") Long id);
+    
+    @Query("SELECT " + SNAPSHOT + " FROM Book b WHERE b.id IN :ids")
+    List<BookSnapshot> findSnapshotsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT b.hotTitle FROM Book b WHERE b.id = :id")
+    Optional<Boolean> findHotTitleById(@Param("id") Long id);
+    
+    /**
+     * Takes one copy if any is left. Returns the number of rows changed: 0 when the book
+     * does not exist, has no copy available or is a hot title, whose copies are handed out by
+     * {@code HotTitleLedger}.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies - 1, b.updatedAt = :now " +
+           "WHERE b.id = :id AND b.availableCopies > 0 AND b.hotTitle = false")
+    int decrementAvailableCopies(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    /**
+     * Puts one copy back unless all copies are already available or the book is a hot title.
+     * Returns the number of rows changed.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies + 1, b.updatedAt = :now " +
+           "WHERE b.id = :id AND b.availableCopies < b.totalCopies AND b.hotTitle = false")
+    int incrementAvailableCopies(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    /**
+     * Sets the total copies and moves the available copies by the same difference, not below
+     * zero; hot titles are left alone. The available copies are assigned first because MySQL
+     * evaluates the assignments in order and the old total is needed.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Book b SET " +
+           "b.availableCopies = CASE WHEN b.availableCopies + :totalCopies - b.totalCopies < 0 THEN 0 " +
+           "ELSE b.availableCopies + :totalCopies - b.totalCopies END, " +
+           "b.totalCopies = :totalCopies, b.updatedAt = :now WHERE b.id = :id AND b.hotTitle = false")
+    int updateTotalCopies(@Param("id") Long id, @Param("totalCopies") int totalCopies,
+                          @Param("now") LocalDateTime now);
+    
+    // Id order keeps concurrent batches from locking the same books in opposite orders
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.id IN :ids ORDER BY b.id")
+    List<Book> findAllForUpdateByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+    
+    @Query("SELECT " + SNAPSHOT + " FROM Book b WHERE b.isbn IN :isbns")
+    List<BookSnapshot> findSnapshotsByIsbnIn(@Param("isbns") Collection<String> isbns);
+    
+    /**
+     * Streams the catalog in id order from a forward-only cursor. Must be consumed inside a
+     * transaction and closed; callers detach each book once written so the persistence
+     * context does not grow with the catalog.
+     */
+    @QueryHints({
+        @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    Stream<Book> streamAll();
+    
+    /**
+     * Walks the whole catalog in id order, one batch at a time, so in-memory indexes can be
+     * seeded without loading every entity into the persistence context.
+     */
+    default void forEachSnapshot(int batchSize, Consumer<BookSnapshot> consumer) {
+        Long afterId = 0L;
+        List<BookSnapshot> batch;
+        do {
+            batch = findSnapshotsAfter(afterId, PageRequest.of(0, batchSize));
+            batch.forEach(consumer);
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == batchSize);
+    }
 }
\ No newline at end of file
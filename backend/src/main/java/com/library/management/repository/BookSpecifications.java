@@ -0,0 +1,40 @@
+package com.library.management.repository;
+
+import com.library.management.entity.Book;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class BookSpecifications {
+    
+    private BookSpecifications() {}
+    
+    /**
+     * Same filters as {@link BookRepository#findCardsByFilters}; null arguments are ignored.
+     */
+    public static Specification<Book> matching(String search, String category, String author, boolean availableOnly) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (search != null) {
+                String pattern = "%" + search.toLowerCase() + "%";
+                predicates.add(cb.or(
+                        cb.like(cb.lower(root.get("title")), pattern),
+                        cb.like(cb.lower(root.get("author")), pattern),
+                        cb.like(cb.lower(root.get("category")), pattern),
+                        cb.like(cb.lower(root.get("isbn")), pattern)));
+            }
+            if (category != null) {
+                predicates.add(cb.equal(cb.lower(root.get("category")), category.toLowerCase()));
+            }
+            if (author != null) {
+                predicates.add(cb.equal(cb.lower(root.get("author")), author.toLowerCase()));
+            }
+            if (availableOnly) {
+                predicates.add(cb.greaterThan(root.get("availableCopies"), 0));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
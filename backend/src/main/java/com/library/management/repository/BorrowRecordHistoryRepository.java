@@ -0,0 +1,41 @@
+package com.library.management.repository;
+
+import com.library.management.dto.BorrowRecordDto;
+import com.library.management.entity.BorrowRecord;
+import com.library.management.entity.BorrowRecordHistory;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+public interface BorrowRecordHistoryRepository extends JpaRepository<BorrowRecordHistory, Long> {
+    
+    // Outer joins: an archived record outlives the user or book it names
+    String DTO = "SELECT new com.library.management.dto.BorrowRecordDto(h.id, h.borrowDate, h.dueDate, " +
+                 "h.returnDate, h.status, h.fineAmount, h.notes, h.createdAt, h.updatedAt, " +
+                 "h.userId, u.firstName, u.lastName, u.email, " +
+                 "h.bookId, b.title, b.author, b.isbn, b.category, b.coverImageUrl) " +
+                 "FROM BorrowRecordHistory h LEFT JOIN User u ON u.id = h.userId LEFT JOIN Book b ON b.id = h.bookId ";
+    
+    @Query(DTO + "WHERE h.id = :id")
+    Optional<BorrowRecordDto> findDtoById(@Param("id") Long id);
+    
+    long countByUserId(Long userId);
+    
+    long countByUserIdAndStatus(Long userId, BorrowRecord.BorrowStatus status);
+    
+    /**
+     * Streams archived records, optionally of one status, in id order from a forward-only
+     * cursor. Must be consumed inside a transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(DTO + "WHERE (:status IS NULL OR h.status = :status) ORDER BY h.id")
+    Stream<BorrowRecordDto> streamDtos(@Param("status") BorrowRecord.BorrowStatus status);
+}
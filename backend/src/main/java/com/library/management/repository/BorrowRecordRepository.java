@@ -1,55 +1,124 @@
 package com.library.management.repository;
 
+import com.library.management.dto.BorrowRecordDto;
 import com.library.management.entity.BorrowRecord;
 import com.library.management.entity.User;
 import com.library.management.entity.Book;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long> {
+public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long>, JpaSpecificationExecutor<BorrowRecord> {
+    
+    String SEARCH = "LOWER(u.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                    "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                    "LOWER(b.title) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                    "LOWER(b.author) LIKE LOWER(CONCAT('%', :search, '%'))";
+    
+    String OVERDUE = "(br.status = 'OVERDUE' OR (br.status = 'BORROWED' AND br.dueDate < :currentDate))";
+    
+    String JOINED = " FROM BorrowRecord br JOIN br.user u JOIN br.book b ";
+    
+    String DTO = "SELECT new com.library.management.dto.BorrowRecordDto(br.id, br.borrowDate, br.dueDate, " +
+                 "br.returnDate, br.status, br.fineAmount, br.notes, br.createdAt, br.updatedAt, " +
+                 "u.id, u.firstName, u.lastName, u.email, " +
+                 "b.id, b.title, b.author, b.isbn, b.category, b.coverImageUrl)" + JOINED;
+    
+    @EntityGraph(attributePaths = {"user", "book"})
+    Optional<BorrowRecord> findWithUserAndBookById(Long id);
     
     Page<BorrowRecord> findByUser(User user, Pageable pageable);
     
+    long countByUser(User user);
+    
+    long countByUserAndStatus(User user, BorrowRecord.BorrowStatus status);
+    
     Page<BorrowRecord> findByBook(Book book, Pageable pageable);
     
     Page<BorrowRecord> findByStatus(BorrowRecord.BorrowStatus status, Pageable pageable);
     
+    @Query(value = DTO + "WHERE br.status = :status",
+           countQuery = "SELECT COUNT(br) FROM BorrowRecord br WHERE br.status = :status")
+    Page<BorrowRecordDto> findDtosByStatus(@Param("status") BorrowRecord.BorrowStatus status, Pageable pageable);
+    
+    @Query(DTO + "WHERE br.status = :status")
+    Slice<BorrowRecordDto> findDtoSliceByStatus(@Param("status") BorrowRecord.BorrowStatus status,
+                                                Pageable pageable);
+    
+    long countByStatus(BorrowRecord.BorrowStatus status);
+    
+    @Query(value = DTO, countQuery = "SELECT COUNT(br) FROM BorrowRecord br")
+    Page<BorrowRecordDto> findAllDtos(Pageable pageable);
+    
+    @Query(DTO)
+    Slice<BorrowRecordDto> findAllDtoSlice(Pageable pageable);
+    
     Page<BorrowRecord> findByUserAndStatus(User user, BorrowRecord.BorrowStatus status, Pageable pageable);
     
-    @Query("SELECT br FROM BorrowRecord br WHERE br.user = :user AND br.book = :book AND br.status = 'BORROWED'")
-    Optional<BorrowRecord> findActiveBorrowRecord(@Param("user") User user, @Param("book") Book book);
+    @Query(DTO + "WHERE u.id = :userId AND b.id IN :bookIds AND br.status = 'BORROWED'")
+    List<BorrowRecordDto> findActiveDtosByUserAndBookIds(@Param("userId") Long userId,
+                                                         @Param("bookIds") Collection<Long> bookIds);
+    
+    @Query("SELECT DISTINCT br.user.id FROM BorrowRecord br WHERE br.id IN :ids")
+    List<Long> findUserIdsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @EntityGraph(attributePaths = {"user", "book"})
+    @Query("SELECT br FROM BorrowRecord br WHERE br.id = :id")
+    Optional<BorrowRecord> findForUpdateById(@Param("id") Long id);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT br FROM BorrowRecord br WHERE br.id IN :ids ORDER BY br.id")
+    List<BorrowRecord> findAllForUpdateByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Overdue whether or not the sweeper has flagged them yet
+    @Query(DTO + "WHERE " + OVERDUE)
+    List<BorrowRecordDto> findOverdueDtos(@Param("currentDate") LocalDate currentDate);
     
-    @Query("SELECT br FROM BorrowRecord br WHERE br.status = 'BORROWED' AND br.dueDate < :currentDate")
-    List<BorrowRecord> findOverdueRecords(@Param("currentDate") LocalDate currentDate);
+    @Query(DTO + "WHERE br.status = 'BORROWED' AND br.dueDate BETWEEN :startDate AND :endDate")
+    List<BorrowRecordDto> findDueSoonDtos(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
     
-    @Query("SELECT br FROM BorrowRecord br WHERE br.status = 'BORROWED' AND br.dueDate BETWEEN :startDate AND :endDate")
-    List<BorrowRecord> findRecordsDueSoon(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    @Query("SELECT COUNT(br) FROM BorrowRecord br WHERE br.status = 'BORROWED' AND br.dueDate >= :currentDate")
+    long countActiveBorrows(@Param("currentDate") LocalDate currentDate);
     
-    @Query("SELECT COUNT(br) FROM BorrowRecord br WHERE br.status = 'BORROWED'")
-    long countActiveBorrows();
+    @Query("SELECT COUNT(br) FROM BorrowRecord br WHERE " + OVERDUE)
+    long countOverdueBooks(@Param("currentDate") LocalDate currentDate);
     
-    @Query("SELECT COUNT(br) FROM BorrowRecord br WHERE br.status = 'OVERDUE'")
-    long countOverdueBooks();
+    @Query(value = DTO + "ORDER BY br.createdAt DESC",
+           countQuery = "SELECT COUNT(br) FROM BorrowRecord br")
+    Page<BorrowRecordDto> findRecentActivity(Pageable pageable);
     
-    @Query("SELECT COUNT(br) FROM BorrowRecord br WHERE br.user = :user AND br.status = 'BORROWED'")
-    long countActiveBorrowsByUser(@Param("user") User user);
+    @Query(value = DTO + "WHERE " + SEARCH,
+           countQuery = "SELECT COUNT(br)" + JOINED + "WHERE " + SEARCH)
+    Page<BorrowRecordDto> findDtosBySearchTerm(@Param("search") String search, Pageable pageable);
     
-    @Query("SELECT br FROM BorrowRecord br ORDER BY br.createdAt DESC")
-    Page<BorrowRecord> findRecentActivity(Pageable pageable);
+    @Query(DTO + "WHERE " + SEARCH)
+    Slice<BorrowRecordDto> findDtoSliceBySearchTerm(@Param("search") String search, Pageable pageable);
     
-    @Query("SELECT br FROM BorrowRecord br WHERE " +
-           "LOWER(br.user.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(br.user.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(br.book.title) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(br.book.author) LIKE LOWER(CONCAT('%', :search, '%'))")
-    Page<BorrowRecord> findBySearchTerm(@Param("search") String search, Pageable pageable);
+    /**
+     * Streams records, optionally of one status, in id order from a forward-only cursor.
+     * Must be consumed inside a transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(DTO + "WHERE (:status IS NULL OR br.status = :status) ORDER BY br.id")
+    Stream<BorrowRecordDto> streamDtos(@Param("status") BorrowRecord.BorrowStatus status);
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.library.management.repository;
+
+import com.library.management.entity.BorrowRecord;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class BorrowRecordSpecifications {
+    
+    private BorrowRecordSpecifications() {}
+    
+    /**
+     * The borrow record listing's filter, with the precedence of the paged listing: a search
+     * over borrower name and book title/author, else the status; null arguments are ignored.
+     * Record queries fetch the user and book in the same statement.
+     */
+    public static Specification<BorrowRecord> matching(String search, BorrowRecord.BorrowStatus status) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            boolean countQuery = Long.class == query.getResultType() || long.class == query.getResultType();
+            Join<?, ?> user = countQuery ? null : (Join<?, ?>) root.fetch("user");
+            Join<?, ?> book = countQuery ? null : (Join<?, ?>) root.fetch("book");
+            if (search != null) {
+                String pattern = "%" + search.toLowerCase() + "%";
+                user = user != null ? user : root.join("user");
+                book = book != null ? book : root.join("book");
+                predicates.add(cb.or(
+                        cb.like(cb.lower(user.get("firstName")), pattern),
+                        cb.like(cb.lower(user.get("lastName")), pattern),
+                        cb.like(cb.lower(book.get("title")), pattern),
+                        cb.like(cb.lower(book.get("author")), pattern)));
+            } else if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,13 @@
+package com.library.management.repository;
+
+import com.library.management.entity.FineLedgerEntry;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FineLedgerEntryRepository extends JpaRepository<FineLedgerEntry, Long> {
+    
+    Page<FineLedgerEntry> findByUserIdOrderByIdDesc(Long userId, Pageable pageable);
+}
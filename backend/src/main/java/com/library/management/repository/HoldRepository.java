@@ -0,0 +1,55 @@
+package com.library.management.repository;
+
+import com.library.management.entity.Hold;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface HoldRepository extends JpaRepository<Hold, Long> {
+    
+    @Query("SELECT COUNT(h) > 0 FROM Hold h WHERE h.user.id = :userId AND h.book.id = :bookId " +
+           "AND h.status IN ('WAITING', 'READY')")
+    boolean existsActiveHold(@Param("userId") Long userId, @Param("bookId") Long bookId);
+    
+    @Query("SELECT COUNT(h) FROM Hold h WHERE h.user.id = :userId AND h.status IN ('WAITING', 'READY')")
+    long countActiveHoldsByUser(@Param("userId") Long userId);
+    
+    @EntityGraph(attributePaths = "book")
+    @Query("SELECT h FROM Hold h WHERE h.user.id = :userId AND h.status IN ('WAITING', 'READY') ORDER BY h.id")
+    List<Hold> findActiveHoldsByUser(@Param("userId") Long userId);
+    
+    @EntityGraph(attributePaths = {"user", "book"})
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM Hold h WHERE h.id = :id")
+    Optional<Hold> findForUpdateById(@Param("id") Long id);
+    
+    /**
+     * The first waiting hold on a book, locked so two returns of the same title cannot both
+     * allocate to it. Pass a page of one.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM Hold h WHERE h.book.id = :bookId AND h.status = 'WAITING' ORDER BY h.id")
+    List<Hold> findNextWaitingForUpdate(@Param("bookId") Long bookId, Pageable pageable);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM Hold h WHERE h.user.id = :userId AND h.book.id IN :bookIds AND h.status = 'READY'")
+    List<Hold> findReadyForUpdate(@Param("userId") Long userId, @Param("bookIds") Collection<Long> bookIds);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM Hold h WHERE h.status = 'READY' AND h.expiresAt < :now ORDER BY h.id")
+    List<Hold> findExpiredForUpdate(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    @Query("SELECT h FROM Hold h WHERE h.status = 'WAITING' ORDER BY h.id")
+    List<Hold> findAllWaiting();
+}
@@ -3,7 +3,9 @@ package com.library.management.repository;
 import com.library.management.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -11,7 +13,12 @@ import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
+    
+    String SEARCH = "LOWER(u.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                    "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                    "LOWER(u.username) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                    "LOWER(u.email) LIKE LOWER(CONCAT('%', :search, '%'))";
     
     Optional<User> findByUsername(String username);
     
@@ -21,17 +28,25 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     boolean existsByEmail(String email);
     
-    @Query("SELECT u FROM User u WHERE " +
-           "LOWER(u.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(u.username) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(u.email) LIKE LOWER(CONCAT('%', :search, '%'))")
+    @Query("SELECT u FROM User u WHERE " + SEARCH)
     Page<User> findBySearchTerm(@Param("search") String search, Pageable pageable);
     
+    @Query("SELECT u FROM User u WHERE " + SEARCH)
+    Slice<User> findSliceBySearchTerm(@Param("search") String search, Pageable pageable);
+    
     Page<User> findByRole(User.Role role, Pageable pageable);
     
+    Slice<User> findSliceByRole(User.Role role, Pageable pageable);
+    
     Page<User> findByEnabledTrue(Pageable pageable);
     
+    Slice<User> findSliceByEnabledTrue(Pageable pageable);
+    
+    long countByEnabledTrue();
+    
+    @Query("SELECT u FROM User u")
+    Slice<User> findAllSlice(Pageable pageable);
+    
     @Query("SELECT COUNT(u) FROM User u WHERE u.role = :role")
     long countByRole(@Param("role") User.Role role);
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.library.management.repository;
+
+import com.library.management.entity.User;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class UserSpecifications {
+    
+    private UserSpecifications() {}
+    
+    /**
+     * The user listing's filter, with the precedence of the paged listing: a search over name,
+     * username and email, else the role, else enabled users only; {@code enabled=false} and
+     * null arguments are ignored.
+     */
+    public static Specification<User> matching(String search, User.Role role, Boolean enabled) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (search != null) {
+                String pattern = "%" + search.toLowerCase() + "%";
+                predicates.add(cb.or(
+                        cb.like(cb.lower(root.get("firstName")), pattern),
+                        cb.like(cb.lower(root.get("lastName")), pattern),
+                        cb.like(cb.lower(root.get("username")), pattern),
+                        cb.like(cb.lower(root.get("email")), pattern)));
+            } else if (role != null) {
+                predicates.add(cb.equal(root.get("role"), role));
+            } else if (enabled != null && enabled) {
+                predicates.add(cb.isTrue(root.get("enabled")));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
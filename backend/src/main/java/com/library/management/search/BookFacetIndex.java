@@ -0,0 +1,286 @@
+package com.library.management.search;
+
+import com.library.management.dto.BookFacetsDto;
+import com.library.management.dto.FacetCountDto;
+import com.library.management.event.BookChangedEvent;
+import com.library.management.event.BookSnapshot;
+import com.library.management.repository.BookRepository;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Compressed bitmaps of book ids per category, per author and for availability.
+ * <p>
+ * Any combination of filters is a bitmap intersection. Facet counts are disjunctive: the
+ * counts for one dimension apply every filter except that dimension's own, so the client can
+ * still offer the sibling values of the selected category or author.
+ * <p>
+ * Like {@link BookSearchIndex}, a rebuild reads the catalog without the lock and replays the
+ * changes committed meanwhile before swapping the new bitmaps in.
+ */
+@Component
+public class BookFacetIndex {
+    
+    private static final Logger log = LoggerFactory.getLogger(BookFacetIndex.class);
+    
+    private static final int LOAD_BATCH_SIZE = 5000;
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    // Guarded by the lock, like the contents
+    private Contents contents = new Contents();
+    // Changes committed while a rebuild reads the catalog; null when none is running
+    private List<BookChangedEvent> pending;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        ready = false;
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        Contents built = new Contents();
+        try {
+            bookRepository.forEachSnapshot(LOAD_BATCH_SIZE, built::add);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                for (BookChangedEvent event : pending) {
+                    built.apply(event);
+                }
+                pending = null;
+                contents = built;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        ready = true;
+        log.info("Book facet index built: {} books, {} categories, {} authors in {} ms",
+                built.all.getCardinality(), built.categories.size(), built.authors.size(),
+                System.currentTimeMillis() - start);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+            } else {
+                contents.apply(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * Returns the books passing every given filter, or null when no filter is set.
+     */
+    public RoaringBitmap filter(String category, String author, boolean availableOnly) {
+        lock.readLock().lock();
+        try {
+            return intersect(null, category, author, availableOnly);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Number of books in {@code base} (all books when null) passing every given filter.
+     */
+    public long count(RoaringBitmap base, String category, String author, boolean availableOnly) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = intersect(base, category, author, availableOnly);
+            return result != null ? result.getLongCardinality() : contents.all.getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Counts per category, per author and per availability for the books in {@code base}
+     * (all books when null), each dimension ignoring its own filter.
+     */
+    public BookFacetsDto counts(RoaringBitmap base, String category, String author, boolean availableOnly, int limit) {
+        lock.readLock().lock();
+        try {
+            Contents current = contents;
+            BookFacetsDto facets = new BookFacetsDto();
+            facets.setCategories(count(intersect(base, null, author, availableOnly),
+                    current.categories, doc -> doc.category, true, limit));
+            facets.setAuthors(count(intersect(base, category, null, availableOnly),
+                    current.authors, doc -> doc.author, false, limit));
+            
+            RoaringBitmap scope = intersect(base, category, author, false);
+            long total = scope != null ? scope.getLongCardinality() : current.all.getLongCardinality();
+            long availableCount = scope != null
+                    ? RoaringBitmap.andCardinality(scope, current.available) : current.available.getLongCardinality();
+            facets.setAvailable(availableCount);
+            facets.setUnavailable(total - availableCount);
+            return facets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private RoaringBitmap intersect(RoaringBitmap base, String category, String author, boolean availableOnly) {
+        RoaringBitmap result = base != null ? base.clone() : null;
+        if (category != null) {
+            result = and(result, bitmap(contents.categories, category));
+        }
+        if (author != null) {
+            result = and(result, bitmap(contents.authors, author));
+        }
+        if (availableOnly) {
+            result = and(result, contents.available);
+        }
+        return result;
+    }
+    
+    private static RoaringBitmap and(RoaringBitmap left, RoaringBitmap right) {
+        return left == null ? right.clone() : RoaringBitmap.and(left, right);
+    }
+    
+    private static RoaringBitmap bitmap(Map<String, Facet> facets, String value) {
+        Facet facet = facets.get(TextNormalizer.normalize(value));
+        return facet != null ? facet.books : new RoaringBitmap();
+    }
+    
+    private List<FacetCountDto> count(RoaringBitmap scope, Map<String, Facet> facets,
+                                      Function<IndexedBook, String> keyOf, boolean byName, int limit) {
+        List<FacetCountDto> counts = new ArrayList<>();
+        if (scope == null) {
+            for (Facet facet : facets.values()) {
+                counts.add(new FacetCountDto(facet.name, facet.books.getLongCardinality()));
+            }
+        } else if (scope.getLongCardinality() < facets.size()) {
+            // Fewer matching books than facet values: walk the books instead of the bitmaps
+            Map<String, FacetCountDto> byKey = new HashMap<>();
+            PeekableIntIterator it = scope.getIntIterator();
+            while (it.hasNext()) {
+                IndexedBook doc = contents.documents.get(it.next());
+                if (doc == null) {
+                    continue;
+                }
+                Facet facet = facets.get(keyOf.apply(doc));
+                if (facet != null) {
+                    byKey.computeIfAbsent(facet.name, name -> new FacetCountDto(name, 0)).increment();
+                }
+            }
+            counts.addAll(byKey.values());
+        } else {
+            for (Facet facet : facets.values()) {
+                long count = RoaringBitmap.andCardinality(scope, facet.books);
+                if (count > 0) {
+                    counts.add(new FacetCountDto(facet.name, count));
+                }
+            }
+        }
+        
+        Comparator<FacetCountDto> order = byName
+                ? Comparator.comparing(FacetCountDto::getValue)
+                : Comparator.comparingLong(FacetCountDto::getCount).reversed().thenComparing(FacetCountDto::getValue);
+        counts.sort(order);
+        return counts.size() > limit ? new ArrayList<>(counts.subList(0, limit)) : counts;
+    }
+    
+    private static final class Contents {
+        private final Map<String, Facet> categories = new HashMap<>();
+        private final Map<String, Facet> authors = new HashMap<>();
+        private final RoaringBitmap available = new RoaringBitmap();
+        private final RoaringBitmap all = new RoaringBitmap();
+        private final Map<Integer, IndexedBook> documents = new HashMap<>();
+        
+        private void apply(BookChangedEvent event) {
+            remove(event.getBookId());
+            if (!event.isDeleted()) {
+                add(event.getCurrent());
+            }
+        }
+        
+        private void add(BookSnapshot snapshot) {
+            IndexedBook doc = new IndexedBook(snapshot);
+            documents.put(doc.id, doc);
+            all.add(doc.id);
+            categories.computeIfAbsent(doc.category, key -> new Facet(snapshot.getCategory())).books.add(doc.id);
+            authors.computeIfAbsent(doc.author, key -> new Facet(snapshot.getAuthor())).books.add(doc.id);
+            if (snapshot.getAvailableCopies() > 0) {
+                available.add(doc.id);
+            }
+        }
+        
+        private void remove(Long bookId) {
+            IndexedBook doc = documents.remove(Math.toIntExact(bookId));
+            if (doc == null) {
+                return;
+            }
+            all.remove(doc.id);
+            available.remove(doc.id);
+            removeFrom(categories, doc.category, doc.id);
+            removeFrom(authors, doc.author, doc.id);
+        }
+        
+        private static void removeFrom(Map<String, Facet> facets, String key, int id) {
+            Facet facet = facets.get(key);
+            if (facet != null) {
+                facet.books.remove(id);
+                if (facet.books.isEmpty()) {
+                    facets.remove(key);
+                }
+            }
+        }
+    }
+    
+    private static final class Facet {
+        private final String name;
+        private final RoaringBitmap books = new RoaringBitmap();
+        
+        private Facet(String name) {
+            this.name = name;
+        }
+    }
+    
+    private static final class IndexedBook {
+        private final int id;
+        private final String category;
+        private final String author;
+        
+        private IndexedBook(BookSnapshot snapshot) {
+            this.id = Math.toIntExact(snapshot.getId());
+            this.category = TextNormalizer.normalize(snapshot.getCategory());
+            this.author = TextNormalizer.normalize(snapshot.getAuthor());
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package com.library.management.search;
+
+import com.library.management.event.BookChangedEvent;
+import com.library.management.event.BookSnapshot;
+import com.library.management.repository.BookRepository;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted trigram index over title, author, category and ISBN.
+ * <p>
+ * A substring of a field contains every trigram of the query, so intersecting the posting
+ * bitmaps of the query trigrams yields a small candidate set that is then verified with
+ * {@code String.contains}. This keeps the semantics of the old {@code LIKE '%term%'} query
+ * while avoiding the full table scan. Queries shorter than a trigram scan the in-memory
+ * documents instead.
+ * <p>
+ * A rebuild reads the catalog without holding the lock, so book changes are not held up
+ * meanwhile; the changes committed during the read are replayed on the new index before it
+ * is swapped in.
+ */
+@Component
+public class BookSearchIndex {
+    
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+    
+    public static final String RELEVANCE = "relevance";
+    
+    private static final int LOAD_BATCH_SIZE = 5000;
+    private static final int TITLE = 0;
+    private static final int AUTHOR = 1;
+    private static final int CATEGORY = 2;
+    private static final int ISBN = 3;
+    private static final double[] FIELD_WEIGHTS = {4.0, 3.0, 2.0, 1.0};
+    private static final Set<String> SORTABLE = Set.of(
+            RELEVANCE, "id", "title", "author", "category", "isbn", "rating", "publicationDate");
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Value("${library.search.index-enabled:true}")
+    private boolean enabled;
+    
+    // Guarded by the lock, like the contents
+    private Contents contents = new Contents();
+    // Changes committed while a rebuild reads the catalog; null when none is running
+    private List<BookChangedEvent> pending;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        ready = false;
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        Contents built = new Contents();
+        try {
+            bookRepository.forEachSnapshot(LOAD_BATCH_SIZE, built::add);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                // Replaying a change the read already saw just writes the same book again
+                for (BookChangedEvent event : pending) {
+                    built.apply(event);
+                }
+                pending = null;
+                contents = built;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        
+        ready = true;
+        log.info("Book search index built: {} books, {} trigrams in {} ms",
+                built.documents.size(), built.postings.size(), System.currentTimeMillis() - start);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+            } else {
+                contents.apply(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public boolean supports(Sort sort) {
+        for (Sort.Order order : sort) {
+            if (!SORTABLE.contains(order.getProperty())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Returns the ids of the books matching {@code search} within {@code filter} for the
+     * requested page, ranked by relevance unless the pageable asks for one of the indexed
+     * sort fields. Either argument may be null: no search term pages through the filter, no
+     * filter searches the whole catalog.
+     */
+    public Page<Long> search(String search, RoaringBitmap filter, Pageable pageable) {
+        String query = TextNormalizer.normalize(search);
+        TopHits hits = new TopHits(comparator(pageable.getSort()),
+                (int) Math.min(pageable.getOffset() + pageable.getPageSize(), Integer.MAX_VALUE));
+        
+        lock.readLock().lock();
+        try {
+            if (query.length() >= 3) {
+                RoaringBitmap candidates = candidates(query);
+                if (filter != null) {
+                    candidates.and(filter);
+                }
+                collect(candidates, query, hits);
+            } else if (filter != null) {
+                collect(filter, query, hits);
+            } else {
+                for (IndexedBook doc : contents.documents.values()) {
+                    collect(doc, query, hits);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        
+        List<Hit> top = hits.sorted();
+        int from = (int) Math.min(pageable.getOffset(), top.size());
+        List<Long> ids = new ArrayList<>(top.size() - from);
+        for (Hit hit : top.subList(from, top.size())) {
+            ids.add((long) hit.doc.id);
+        }
+        return new PageImpl<>(ids, pageable, hits.total);
+    }
+    
+    /**
+     * Returns the ids of every book matching {@code search}, for intersecting with facet bitmaps.
+     */
+    public RoaringBitmap matches(String search) {
+        String query = TextNormalizer.normalize(search);
+        RoaringBitmap matches = new RoaringBitmap();
+        
+        lock.readLock().lock();
+        try {
+            if (query.length() >= 3) {
+                PeekableIntIterator it = candidates(query).getIntIterator();
+                while (it.hasNext()) {
+                    IndexedBook doc = contents.documents.get(it.next());
+                    if (doc != null && score(doc, query) > 0) {
+                        matches.add(doc.id);
+                    }
+                }
+            } else {
+                for (IndexedBook doc : contents.documents.values()) {
+                    if (score(doc, query) > 0) {
+                        matches.add(doc.id);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches;
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return contents.documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private RoaringBitmap candidates(String query) {
+        RoaringBitmap result = null;
+        for (long trigram : trigrams(query)) {
+            RoaringBitmap posting = contents.postings.get(trigram);
+            if (posting == null) {
+                return new RoaringBitmap();
+            }
+            result = result == null ? posting.clone() : RoaringBitmap.and(result, posting);
+            if (result.isEmpty()) {
+                return result;
+            }
+        }
+        return result != null ? result : new RoaringBitmap();
+    }
+    
+    private void collect(RoaringBitmap ids, String query, TopHits hits) {
+        PeekableIntIterator it = ids.getIntIterator();
+        while (it.hasNext()) {
+            IndexedBook doc = contents.documents.get(it.next());
+            if (doc != null) {
+                collect(doc, query, hits);
+            }
+        }
+    }
+    
+    private void collect(IndexedBook doc, String query, TopHits hits) {
+        if (query.isEmpty()) {
+            hits.add(new Hit(doc, 0));
+            return;
+        }
+        double score = score(doc, query);
+        if (score > 0) {
+            hits.add(new Hit(doc, score));
+        }
+    }
+    
+    private double score(IndexedBook doc, String query) {
+        double best = 0;
+        for (int field = 0; field < doc.fields.length; field++) {
+            String value = doc.fields[field];
+            int position = value.indexOf(query);
+            if (position < 0) {
+                continue;
+            }
+            double score = FIELD_WEIGHTS[field];
+            if (value.length() == query.length()) {
+                score *= 3;
+            } else if (position == 0) {
+                score *= 2;
+            } else if (value.charAt(position - 1) == ' ') {
+                score *= 1.5;
+            }
+            score += (double) query.length() / value.length();
+            best = Math.max(best, score);
+        }
+        return best;
+    }
+    
+    private Comparator<Hit> comparator(Sort sort) {
+        Comparator<Hit> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<Hit> next = fieldComparator(order.getProperty());
+            if (RELEVANCE.equals(order.getProperty()) || order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        if (comparator == null) {
+            comparator = fieldComparator(RELEVANCE).reversed();
+        }
+        return comparator.thenComparingInt(hit -> hit.doc.id);
+    }
+    
+    private Comparator<Hit> fieldComparator(String property) {
+        switch (property) {
+            case "title":
+                return Comparator.comparing(hit -> hit.doc.fields[TITLE]);
+            case "author":
+                return Comparator.comparing(hit -> hit.doc.fields[AUTHOR]);
+            case "category":
+                return Comparator.comparing(hit -> hit.doc.fields[CATEGORY]);
+            case "isbn":
+                return Comparator.comparing(hit -> hit.doc.fields[ISBN]);
+            case "rating":
+                return Comparator.comparingDouble(hit -> hit.doc.rating);
+            case "publicationDate":
+                return Comparator.comparing(hit -> hit.doc.publicationDate,
+                        Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "id":
+                return Comparator.comparingInt(hit -> hit.doc.id);
+            default:
+                return Comparator.comparingDouble(hit -> hit.score);
+        }
+    }
+    
+    private static List<Long> trigrams(String text) {
+        if (text.length() < 3) {
+            return Collections.emptyList();
+        }
+        List<Long> trigrams = new ArrayList<>(text.length() - 2);
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return trigrams;
+    }
+    
+    private static final class Contents {
+        private final Map<Long, RoaringBitmap> postings = new HashMap<>();
+        private final Map<Integer, IndexedBook> documents = new HashMap<>();
+        
+        private void apply(BookChangedEvent event) {
+            remove(event.getBookId());
+            if (!event.isDeleted()) {
+                add(event.getCurrent());
+            }
+        }
+        
+        private void add(BookSnapshot snapshot) {
+            IndexedBook doc = new IndexedBook(snapshot);
+            documents.put(doc.id, doc);
+            for (String field : doc.fields) {
+                for (long trigram : trigrams(field)) {
+                    postings.computeIfAbsent(trigram, key -> new RoaringBitmap()).add(doc.id);
+                }
+            }
+        }
+        
+        private void remove(Long bookId) {
+            IndexedBook doc = documents.remove(Math.toIntExact(bookId));
+            if (doc == null) {
+                return;
+            }
+            for (String field : doc.fields) {
+                for (long trigram : trigrams(field)) {
+                    RoaringBitmap posting = postings.get(trigram);
+                    if (posting != null) {
+                        posting.remove(doc.id);
+                        if (posting.isEmpty()) {
+                            postings.remove(trigram);
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    private static final class IndexedBook {
+        private final int id;
+        private final String[] fields;
+        private final double rating;
+        private final LocalDate publicationDate;
+        
+        private IndexedBook(BookSnapshot snapshot) {
+            this.id = Math.toIntExact(snapshot.getId());
+            this.fields = new String[] {
+                    TextNormalizer.normalize(snapshot.getTitle()),
+                    TextNormalizer.normalize(snapshot.getAuthor()),
+                    TextNormalizer.normalize(snapshot.getCategory()),
+                    TextNormalizer.normalize(snapshot.getIsbn())
+            };
+            this.rating = snapshot.getRating();
+            this.publicationDate = snapshot.getPublicationDate();
+        }
+    }
+    
+    private static final class Hit {
+        private final IndexedBook doc;
+        private final double score;
+        
+        private Hit(IndexedBook doc, double score) {
+            this.doc = doc;
+            this.score = score;
+        }
+    }
+    
+    /**
+     * Counts every hit but keeps only the best {@code limit} of them, in a heap with the worst
+     * kept hit on top, so a page costs O(n log limit) rather than a sort of every match.
+     */
+    private static final class TopHits {
+        private final Comparator<Hit> order;
+        private final int limit;
+        private final PriorityQueue<Hit> kept;
+        private int total;
+        
+        private TopHits(Comparator<Hit> order, int limit) {
+            this.order = order;
+            this.limit = limit;
+            this.kept = new PriorityQueue<>(Math.max(1, Math.min(limit, 1024)), order.reversed());
+        }
+        
+        private void add(Hit hit) {
+            total++;
+            if (kept.size() < limit) {
+                kept.add(hit);
+            } else if (limit > 0 && order.compare(hit, kept.peek()) < 0) {
+                kept.poll();
+                kept.add(hit);
+            }
+        }
+        
+        private List<Hit> sorted() {
+            List<Hit> hits = new ArrayList<>(kept);
+            hits.sort(order);
+            return hits;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.library.management.search;
+
+import com.library.management.dto.SuggestionDto;
+import com.library.management.event.BookChangedEvent;
+import com.library.management.event.BookSnapshot;
+import com.library.management.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Autocomplete over book titles and authors, weighted by popularity.
+ * <p>
+ * Titles are also reachable without a leading article ("gatsby" finds "The Great Gatsby"
+ * through "great gatsby") and authors by their last name. An author's weight is the sum of
+ * the weights of their books.
+ * <p>
+ * Like {@link BookSearchIndex}, a rebuild reads the catalog without the lock and replays the
+ * changes committed meanwhile before swapping the new trie in.
+ */
+@Component
+public class BookSuggester {
+    
+    private static final Logger log = LoggerFactory.getLogger(BookSuggester.class);
+    
+    public static final String TITLE = "TITLE";
+    public static final String AUTHOR = "AUTHOR";
+    
+    private static final int LOAD_BATCH_SIZE = 5000;
+    private static final String[] ARTICLES = {"the ", "a ", "an "};
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    // Guarded by the lock, like the contents
+    private Contents contents = new Contents();
+    // Changes committed while a rebuild reads the catalog; null when none is running
+    private List<BookChangedEvent> pending;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        Contents built = new Contents();
+        try {
+            bookRepository.forEachSnapshot(LOAD_BATCH_SIZE, built::add);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                for (BookChangedEvent event : pending) {
+                    built.apply(event);
+                }
+                pending = null;
+                contents = built;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Book suggester built: {} titles, {} authors in {} ms",
+                built.titles.size(), built.authors.size(), System.currentTimeMillis() - start);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+            } else {
+                contents.apply(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public List<SuggestionDto> suggest(String prefix, int limit) {
+        String normalized = TextNormalizer.normalize(prefix);
+        if (normalized.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Entry> entries;
+        lock.readLock().lock();
+        try {
+            entries = contents.trie.topK(normalized, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<SuggestionDto> suggestions = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            suggestions.add(new SuggestionDto(entry.display, entry.type, entry.bookId));
+        }
+        return suggestions;
+    }
+    
+    private static double popularity(BookSnapshot snapshot) {
+        // Review count drives popularity; the rating (0-5) only breaks ties
+        return snapshot.getReviewCount() + snapshot.getRating() / 10.0;
+    }
+    
+    private static List<String> titleKeys(String title) {
+        List<String> keys = new ArrayList<>(2);
+        keys.add(title);
+        for (String article : ARTICLES) {
+            if (title.startsWith(article) && title.length() > article.length()) {
+                keys.add(title.substring(article.length()));
+                break;
+            }
+        }
+        return keys;
+    }
+    
+    private static List<String> authorKeys(String author) {
+        List<String> keys = new ArrayList<>(2);
+        keys.add(author);
+        int lastSpace = author.lastIndexOf(' ');
+        if (lastSpace > 0 && lastSpace < author.length() - 1) {
+            keys.add(author.substring(lastSpace + 1));
+        }
+        return keys;
+    }
+    
+    private static final class Contents {
+        private final SuggestionTrie<Entry> trie = new SuggestionTrie<>();
+        private final Map<Long, IndexedTitle> titles = new HashMap<>();
+        private final Map<String, AuthorStats> authors = new HashMap<>();
+        
+        private void apply(BookChangedEvent event) {
+            remove(event.getBookId());
+            if (!event.isDeleted()) {
+                add(event.getCurrent());
+            }
+        }
+        
+        private void add(BookSnapshot snapshot) {
+            String title = TextNormalizer.normalize(snapshot.getTitle());
+            String author = TextNormalizer.normalize(snapshot.getAuthor());
+            double weight = popularity(snapshot);
+            
+            Entry titleEntry = new Entry(TITLE, snapshot.getId(), snapshot.getTitle(), snapshot.getId());
+            List<String> keys = titleKeys(title);
+            for (String key : keys) {
+                trie.put(key, titleEntry, weight);
+            }
+            titles.put(snapshot.getId(), new IndexedTitle(titleEntry, keys, author, weight));
+            
+            if (author.isEmpty()) {
+                return;
+            }
+            AuthorStats stats = authors.computeIfAbsent(author,
+                    key -> new AuthorStats(new Entry(AUTHOR, key, snapshot.getAuthor(), null), authorKeys(key)));
+            stats.weight += weight;
+            stats.books++;
+            for (String key : stats.keys) {
+                trie.put(key, stats.entry, stats.weight);
+            }
+        }
+        
+        private void remove(Long bookId) {
+            IndexedTitle indexed = titles.remove(bookId);
+            if (indexed == null) {
+                return;
+            }
+            for (String key : indexed.keys) {
+                trie.remove(key, indexed.entry);
+            }
+            
+            AuthorStats stats = authors.get(indexed.author);
+            if (stats == null) {
+                return;
+            }
+            stats.weight -= indexed.weight;
+            stats.books--;
+            for (String key : stats.keys) {
+                if (stats.books == 0) {
+                    trie.remove(key, stats.entry);
+                } else {
+                    trie.put(key, stats.entry, stats.weight);
+                }
+            }
+            if (stats.books == 0) {
+                authors.remove(indexed.author);
+            }
+        }
+    }
+    
+    private static final class Entry {
+        private final String type;
+        private final Object key;
+        private final String display;
+        private final Long bookId;
+        
+        private Entry(String type, Object key, String display, Long bookId) {
+            this.type = type;
+            this.key = key;
+            this.display = display;
+            this.bookId = bookId;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry other = (Entry) o;
+            return type.equals(other.type) && key.equals(other.key);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, key);
+        }
+    }
+    
+    private static final class IndexedTitle {
+        private final Entry entry;
+        private final List<String> keys;
+        private final String author;
+        private final double weight;
+        
+        private IndexedTitle(Entry entry, List<String> keys, String author, double weight) {
+            this.entry = entry;
+            this.keys = keys;
+            this.author = author;
+            this.weight = weight;
+        }
+    }
+    
+    private static final class AuthorStats {
+        private final Entry entry;
+        private final List<String> keys;
+        private double weight;
+        private int books;
+        
+        private AuthorStats(Entry entry, List<String> keys) {
+            this.entry = entry;
+            this.keys = keys;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.library.management.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Weighted radix (compressed prefix) tree.
+ * <p>
+ * Each node remembers the best weight found anywhere below it, which lets {@link #topK}
+ * run a best-first walk from the prefix node and stop after {@code k} values instead of
+ * collecting the whole subtree. Not thread-safe; callers guard it with their own lock.
+ */
+public class SuggestionTrie<T> {
+    
+    private final Node<T> root = new Node<>("");
+    private int size;
+    
+    public void put(String key, T value, double weight) {
+        Node<T> node = root;
+        List<Node<T>> path = new ArrayList<>();
+        path.add(node);
+        String rest = key;
+        while (!rest.isEmpty()) {
+            Node<T> child = node.children.get(rest.charAt(0));
+            if (child == null) {
+                child = new Node<>(rest);
+                node.children.put(rest.charAt(0), child);
+                node = child;
+                path.add(node);
+                rest = "";
+                break;
+            }
+            int common = commonPrefix(child.label, rest);
+            if (common < child.label.length()) {
+                child = split(node, child, common);
+            }
+            node = child;
+            path.add(node);
+            rest = rest.substring(common);
+        }
+        if (node.values.put(value, weight) == null) {
+            size++;
+        }
+        recomputeBest(path);
+    }
+    
+    public void remove(String key, T value) {
+        List<Node<T>> path = find(key);
+        if (path == null) {
+            return;
+        }
+        Node<T> node = path.get(path.size() - 1);
+        if (node.values.remove(value) == null) {
+            return;
+        }
+        size--;
+        
+        // Collapse nodes that no longer carry values so the tree stays compressed
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node<T> current = path.get(i);
+            Node<T> parent = path.get(i - 1);
+            if (!current.values.isEmpty()) {
+                break;
+            }
+            if (current.children.isEmpty()) {
+                parent.children.remove(current.label.charAt(0));
+            } else if (current.children.size() == 1) {
+                Node<T> only = current.children.values().iterator().next();
+                Node<T> merged = new Node<>(current.label + only.label);
+                merged.children.putAll(only.children);
+                merged.values.putAll(only.values);
+                merged.best = only.best;
+                parent.children.put(merged.label.charAt(0), merged);
+                path.set(i, merged);
+                break;
+            } else {
+                break;
+            }
+        }
+        recomputeBest(path);
+    }
+    
+    /**
+     * Returns up to {@code k} values whose key starts with {@code prefix}, highest weight first.
+     * A value stored under several keys is returned once.
+     */
+    public List<T> topK(String prefix, int k) {
+        Node<T> start = root;
+        String rest = prefix;
+        while (!rest.isEmpty()) {
+            Node<T> child = start.children.get(rest.charAt(0));
+            if (child == null) {
+                return new ArrayList<>();
+            }
+            int common = commonPrefix(child.label, rest);
+            if (common == rest.length()) {
+                start = child;
+                break;
+            }
+            if (common < child.label.length()) {
+                return new ArrayList<>();
+            }
+            start = child;
+            rest = rest.substring(common);
+        }
+        
+        List<T> results = new ArrayList<>(k);
+        Set<T> seen = new HashSet<>();
+        PriorityQueue<Candidate<T>> queue = new PriorityQueue<>();
+        queue.add(new Candidate<>(start, null, start.best));
+        while (!queue.isEmpty() && results.size() < k) {
+            Candidate<T> candidate = queue.poll();
+            if (candidate.node == null) {
+                if (seen.add(candidate.value)) {
+                    results.add(candidate.value);
+                }
+                continue;
+            }
+            for (Map.Entry<T, Double> entry : candidate.node.values.entrySet()) {
+                queue.add(new Candidate<>(null, entry.getKey(), entry.getValue()));
+            }
+            for (Node<T> child : candidate.node.children.values()) {
+                queue.add(new Candidate<>(child, null, child.best));
+            }
+        }
+        return results;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public void clear() {
+        root.children.clear();
+        root.values.clear();
+        root.best = Double.NEGATIVE_INFINITY;
+        size = 0;
+    }
+    
+    private List<Node<T>> find(String key) {
+        List<Node<T>> path = new ArrayList<>();
+        Node<T> node = root;
+        path.add(node);
+        String rest = key;
+        while (!rest.isEmpty()) {
+            Node<T> child = node.children.get(rest.charAt(0));
+            if (child == null || !rest.startsWith(child.label)) {
+                return null;
+            }
+            node = child;
+            path.add(node);
+            rest = rest.substring(child.label.length());
+        }
+        return path;
+    }
+    
+    private Node<T> split(Node<T> parent, Node<T> child, int at) {
+        Node<T> head = new Node<>(child.label.substring(0, at));
+        Node<T> tail = new Node<>(child.label.substring(at));
+        tail.children.putAll(child.children);
+        tail.values.putAll(child.values);
+        tail.best = child.best;
+        head.children.put(tail.label.charAt(0), tail);
+        head.best = tail.best;
+        parent.children.put(head.label.charAt(0), head);
+        return head;
+    }
+    
+    private void recomputeBest(List<Node<T>> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node<T> node = path.get(i);
+            double best = Double.NEGATIVE_INFINITY;
+            for (double weight : node.values.values()) {
+                best = Math.max(best, weight);
+            }
+            for (Node<T> child : node.children.values()) {
+                best = Math.max(best, child.best);
+            }
+            node.best = best;
+        }
+    }
+    
+    private static int commonPrefix(String a, String b) {
+        int max = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < max && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+    
+    private static final class Node<T> {
+        private final String label;
+        private final Map<Character, Node<T>> children = new HashMap<>(4);
+        private final Map<T, Double> values = new HashMap<>(2);
+        private double best = Double.NEGATIVE_INFINITY;
+        
+        private Node(String label) {
+            this.label = label;
+        }
+    }
+    
+    private static final class Candidate<T> implements Comparable<Candidate<T>> {
+        private final Node<T> node;
+        private final T value;
+        private final double weight;
+        
+        private Candidate(Node<T> node, T value, double weight) {
+            this.node = node;
+            this.value = value;
+            this.weight = weight;
+        }
+        
+        @Override
+        public int compareTo(Candidate<T> other) {
+            int byWeight = Double.compare(other.weight, weight);
+            if (byWeight != 0) {
+                return byWeight;
+            }
+            // Emit values before expanding nodes of equal weight
+            return Boolean.compare(node != null, other.node != null);
+        }
+    }
+}
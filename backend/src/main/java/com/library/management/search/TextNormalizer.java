@@ -0,0 +1,28 @@
+package com.library.management.search;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Folds text the same way the MySQL accent- and case-insensitive collation does closely enough
+ * for in-memory matching: lower case, diacritics stripped, whitespace collapsed.
+ */
+public final class TextNormalizer {
+    
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    
+    private TextNormalizer() {
+    }
+    
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        folded = DIACRITICS.matcher(folded).replaceAll("");
+        folded = WHITESPACE.matcher(folded).replaceAll(" ");
+        return folded.toLowerCase(Locale.ROOT).trim();
+    }
+}
@@ -0,0 +1,289 @@
+package com.library.management.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.management.dto.ImportProgressDto;
+import com.library.management.dto.ImportRowResultDto;
+import com.library.management.entity.Book;
+import com.library.management.event.BookChangedEvent;
+import com.library.management.event.BookSnapshot;
+import com.library.management.repository.BookRepository;
+import com.library.management.transfer.ImportRow;
+import com.library.management.transfer.ImportRowReader;
+import com.library.management.transfer.TransferFormat;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk catalog import from a streamed CSV or NDJSON body.
+ * <p>
+ * Rows are read one at a time and imported in chunks, each in its own transaction: the
+ * chunk's ISBNs are checked against the database with one IN query, the new books are
+ * inserted with one batched JDBC statement, and a {@link BookChangedEvent} is published per
+ * book so the caches and in-memory indexes pick them up on commit. Only the current chunk is
+ * held in memory, so the file size does not matter. Rejected rows and the running totals are
+ * handed to the caller as they happen.
+ */
+@Service
+public class BookImportService {
+    
+    private static final Logger log = LoggerFactory.getLogger(BookImportService.class);
+    
+    private static final String INSERT_SQL = "INSERT INTO books (title, author, isbn, publisher, publication_date, " +
+            "category, description, total_copies, available_copies, cover_image_url, rating, review_count, status, " +
+            "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Value("${library.import.chunk-size:1000}")
+    private int chunkSize;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * Imports every row of {@code input}. {@code reporter} receives an {@link ImportRowResultDto}
+     * for each rejected row, an {@link ImportProgressDto} after each chunk, and the final
+     * summary, which is also returned.
+     */
+    public ImportProgressDto importBooks(InputStream input, TransferFormat format,
+                                         Consumer<Object> reporter) throws IOException {
+        long start = System.currentTimeMillis();
+        Totals totals = new Totals();
+        List<PendingBook> chunk = new ArrayList<>(chunkSize);
+        
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        try (ImportRowReader rows = ImportRowReader.open(format, reader, objectMapper)) {
+            ImportRow row;
+            while ((row = rows.next()) != null) {
+                totals.processed++;
+                PendingBook pending = toBook(row, reporter, totals);
+                if (pending != null) {
+                    chunk.add(pending);
+                }
+                if (chunk.size() >= chunkSize) {
+                    flush(chunk, reporter, totals);
+                    reporter.accept(totals.report("progress", start));
+                }
+            }
+        }
+        flush(chunk, reporter, totals);
+        
+        ImportProgressDto summary = totals.report("summary", start);
+        reporter.accept(summary);
+        log.info("Book import finished: {} rows, {} imported, {} duplicates, {} failed in {} ms",
+                summary.getProcessed(), summary.getImported(), summary.getDuplicates(), summary.getFailed(),
+                summary.getElapsedMs());
+        return summary;
+    }
+    
+    private PendingBook toBook(ImportRow row, Consumer<Object> reporter, Totals totals) {
+        if (!row.isValid()) {
+            reject(row.getLine(), null, row.getError(), reporter, totals);
+            return null;
+        }
+        
+        Book book = new Book();
+        try {
+            book.setTitle(row.get("title"));
+            book.setAuthor(row.get("author"));
+            book.setIsbn(row.get("isbn"));
+            book.setPublisher(row.get("publisher"));
+            book.setCategory(row.get("category"));
+            book.setDescription(row.get("description"));
+            book.setCoverImageUrl(row.get("coverImageUrl"));
+            book.setPublicationDate(parse(row, "publicationDate", LocalDate::parse));
+            book.setTotalCopies(parse(row, "totalCopies", Integer::valueOf));
+            book.setAvailableCopies(book.getTotalCopies());
+            Double rating = parse(row, "rating", Double::valueOf);
+            book.setRating(rating != null ? rating : 0.0);
+            Integer reviewCount = parse(row, "reviewCount", Integer::valueOf);
+            book.setReviewCount(reviewCount != null ? reviewCount : 0);
+        } catch (IllegalArgumentException e) {
+            reject(row.getLine(), row.get("isbn"), e.getMessage(), reporter, totals);
+            return null;
+        }
+        
+        String problems = validate(book);
+        if (problems != null) {
+            reject(row.getLine(), book.getIsbn(), problems, reporter, totals);
+            return null;
+        }
+        return new PendingBook(row.getLine(), book);
+    }
+    
+    private String validate(Book book) {
+        List<String> problems = new ArrayList<>();
+        for (ConstraintViolation<Book> violation : validator.validate(book)) {
+            problems.add(violation.getMessage());
+        }
+        // Column lengths the entity does not declare as constraints
+        if (book.getIsbn() != null && book.getIsbn().length() > 13) {
+            problems.add("ISBN must be at most 13 characters");
+        }
+        if (book.getDescription() != null && book.getDescription().length() > 1000) {
+            problems.add("Description must be at most 1000 characters");
+        }
+        if (book.getCoverImageUrl() != null && book.getCoverImageUrl().length() > 255) {
+            problems.add("Cover image URL must be at most 255 characters");
+        }
+        problems.sort(null);
+        return problems.isEmpty() ? null : String.join("; ", problems);
+    }
+    
+    private void flush(List<PendingBook> chunk, Consumer<Object> reporter, Totals totals) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            // Rows compare by identity: a row repeating an ISBN within the chunk is still a duplicate
+            Set<PendingBook> inserted = new HashSet<>(transactionTemplate.execute(status -> insert(chunk)));
+            for (PendingBook pending : chunk) {
+                if (!inserted.contains(pending)) {
+                    totals.duplicates++;
+                    reporter.accept(new ImportRowResultDto("duplicate", pending.line, pending.book.getIsbn(),
+                            "Book with ISBN " + pending.book.getIsbn() + " already exists"));
+                }
+            }
+            totals.imported += inserted.size();
+        } catch (DataAccessException e) {
+            log.warn("Book import chunk of {} rows failed", chunk.size(), e);
+            String message = "Chunk rolled back: " + e.getMostSpecificCause().getMessage();
+            for (PendingBook pending : chunk) {
+                reject(pending.line, pending.book.getIsbn(), message, reporter, totals);
+            }
+        }
+        chunk.clear();
+    }
+    
+    private List<PendingBook> insert(List<PendingBook> chunk) {
+        // First row wins for an ISBN repeated in the chunk or already in the catalog
+        Set<String> taken = new HashSet<>(bookRepository.findExistingIsbns(
+                chunk.stream().map(pending -> pending.book.getIsbn()).collect(Collectors.toSet())));
+        List<PendingBook> fresh = new ArrayList<>(chunk.size());
+        for (PendingBook pending : chunk) {
+            if (taken.add(pending.book.getIsbn())) {
+                fresh.add(pending);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return fresh;
+        }
+        
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, fresh, fresh.size(), (ps, pending) -> {
+            Book book = pending.book;
+            ps.setString(1, book.getTitle());
+            ps.setString(2, book.getAuthor());
+            ps.setString(3, book.getIsbn());
+            ps.setString(4, book.getPublisher());
+            ps.setDate(5, Date.valueOf(book.getPublicationDate()));
+            ps.setString(6, book.getCategory());
+            ps.setString(7, book.getDescription());
+            ps.setInt(8, book.getTotalCopies());
+            ps.setInt(9, book.getAvailableCopies());
+            ps.setString(10, book.getCoverImageUrl());
+            ps.setDouble(11, book.getRating());
+            ps.setInt(12, book.getReviewCount());
+            ps.setString(13, Book.BookStatus.AVAILABLE.name());
+            ps.setTimestamp(14, now);
+            ps.setTimestamp(15, now);
+        });
+        
+        // The batch does not hand back generated ids; read the new rows back for the listeners
+        Map<String, PendingBook> byIsbn = new HashMap<>();
+        fresh.forEach(pending -> byIsbn.put(pending.book.getIsbn(), pending));
+        for (BookSnapshot snapshot : bookRepository.findSnapshotsByIsbnIn(byIsbn.keySet())) {
+            eventPublisher.publishEvent(BookChangedEvent.created(snapshot));
+        }
+        return fresh;
+    }
+    
+    private void reject(int line, String isbn, String message, Consumer<Object> reporter, Totals totals) {
+        totals.failed++;
+        reporter.accept(new ImportRowResultDto("error", line, isbn, message));
+    }
+    
+    private static <T> T parse(ImportRow row, String column, Function<String, T> parser) {
+        String value = row.get(column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+    
+    private static final class PendingBook {
+        private final int line;
+        private final Book book;
+        
+        private PendingBook(int line, Book book) {
+            this.line = line;
+            this.book = book;
+        }
+    }
+    
+    private static final class Totals {
+        private long processed;
+        private long imported;
+        private long duplicates;
+        private long failed;
+        
+        private ImportProgressDto report(String type, long start) {
+            return new ImportProgressDto(type, processed, imported, duplicates, failed,
+                    System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -1,34 +1,100 @@
 package com.library.management.service;
 
+import com.library.management.cache.BookCache;
+import com.library.management.cache.BookLeaderboards;
+import com.library.management.cache.CatalogValues;
+import com.library.management.dto.BookBrowseResponse;
+import com.library.management.dto.BookCardDto;
+import com.library.management.dto.BookFacetsDto;
 import com.library.management.entity.Book;
+import com.library.management.event.BookChangedEvent;
+import com.library.management.event.BookSnapshot;
+import com.library.management.pagination.ApproximateCounter;
+import com.library.management.pagination.CursorCodec;
 import com.library.management.repository.BookRepository;
+import com.library.management.repository.BookSpecifications;
+import com.library.management.search.BookFacetIndex;
+import com.library.management.search.BookSearchIndex;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class BookService {
     
+    private static final Set<String> KEYSET_SORTABLE = Set.of(
+            "id", "title", "author", "isbn", "category", "publicationDate", "rating", "reviewCount", "createdAt");
+    // A hot title's copies are handed out by HotTitleLedger; this path only meets one while
+    // it is switching modes
+    private static final String RETRY_MESSAGE = "Book availability is being updated, please try again";
+    private static final String UPDATE_AVAILABLE_COPIES_SQL =
+            "UPDATE books SET available_copies = ?, updated_at = ? WHERE id = ?";
+    
     @Autowired
     private BookRepository bookRepository;
     
+    @Autowired
+    private BookCache bookCache;
+    
+    @Autowired
+    private CatalogValues catalogValues;
+    
+    @Autowired
+    private BookLeaderboards bookLeaderboards;
+    
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+    
+    @Autowired
+    private BookFacetIndex bookFacetIndex;
+    
+    @Autowired
+    private ApproximateCounter approximateCounter;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
     public Book createBook(Book book) {
         if (bookRepository.existsByIsbn(book.getIsbn())) {
             throw new RuntimeException("Book with ISBN " + book.getIsbn() + " already exists");
         }
         
         book.setAvailableCopies(book.getTotalCopies());
-        return bookRepository.save(book);
+        book.setHotTitle(false);
+        Book savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(BookChangedEvent.created(BookSnapshot.of(savedBook)));
+        return savedBook;
     }
     
     public Book updateBook(Long id, Book bookDetails) {
-        Book book = bookRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Book not found"));
+        Book book = loadForUpdate(id);
+        BookSnapshot previous = BookSnapshot.of(book);
         
         book.setTitle(bookDetails.getTitle());
         book.setAuthor(bookDetails.getAuthor());
@@ -38,19 +104,26 @@ public class BookService {
         book.setDescription(bookDetails.getDescription());
         book.setCoverImageUrl(bookDetails.getCoverImageUrl());
         
-        // Update total copies and adjust available copies
-        int copiesDifference = bookDetails.getTotalCopies() - book.getTotalCopies();
-        book.setTotalCopies(bookDetails.getTotalCopies());
-        book.setAvailableCopies(Math.max(0, book.getAvailableCopies() + copiesDifference));
-        
         book.setStatus(bookDetails.getStatus());
+        Book savedBook = bookRepository.save(book);
         
-        return bookRepository.save(book);
+        // Update total copies and adjust available copies against the current row
+        if (!bookDetails.getTotalCopies().equals(book.getTotalCopies())) {
+            BookSnapshot current = writeTotalCopies(id, bookDetails.getTotalCopies());
+            savedBook.setTotalCopies(current.getTotalCopies());
+            savedBook.setAvailableCopies(current.getAvailableCopies());
+        }
+        
+        eventPublisher.publishEvent(BookChangedEvent.updated(previous, BookSnapshot.of(savedBook)));
+        return savedBook;
     }
     
     public void deleteBook(Long id) {
-        Book book = bookRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Book not found"));
+        Book book = loadForUpdate(id);
+        
+        if (book.getHotTitle()) {
+            throw new RuntimeException("Cannot delete a hot title; turn hot-title mode off first");
+        }
         
         // Check if book has any active borrows
         if (book.getAvailableCopies() < book.getTotalCopies()) {
@@ -58,82 +131,247 @@ public class BookService {
         }
         
         bookRepository.deleteById(id);
+        eventPublisher.publishEvent(BookChangedEvent.deleted(BookSnapshot.of(book)));
     }
     
+    /**
+     * Served from {@link BookCache}; the returned instance is shared and must not be modified.
+     * Mutations in this service load their own copy through the repository.
+     */
     public Book findById(Long id) {
-        return bookRepository.findById(id)
+        return bookCache.findById(id)
                 .orElseThrow(() -> new RuntimeException("Book not found"));
     }
     
     public Book findByIsbn(String isbn) {
-        return bookRepository.findByIsbn(isbn)
+        return bookCache.findByIsbn(isbn)
                 .orElseThrow(() -> new RuntimeException("Book not found"));
     }
     
-    public Page<Book> findAllBooks(Pageable pageable) {
-        return bookRepository.findAll(pageable);
+    public Page<BookCardDto> findAllBooks(Pageable pageable) {
+        return bookRepository.findAllCards(pageable);
     }
     
-    public Page<Book> searchBooks(String search, Pageable pageable) {
-        return bookRepository.findBySearchTerm(search, pageable);
+    /**
+     * Pages through the books matching every given filter; any argument may be null.
+     * Served from the search and facet bitmaps when they are built and something narrows the
+     * catalog down, from a single combined query otherwise. The unfiltered catalog is one
+     * page of the table, which is cheaper than ordering every indexed book.
+     */
+    public Page<BookCardDto> findBooks(String search, String category, String author, boolean availableOnly,
+                                       Pageable pageable) {
+        if (isUnfiltered(search, category, author, availableOnly)) {
+            return bookRepository.findAllCards(withoutRelevance(pageable));
+        }
+        if (indexesServe(pageable.getSort())) {
+            RoaringBitmap filter = bookFacetIndex.filter(category, author, availableOnly);
+            Page<Long> ids = bookSearchIndex.search(search, filter, pageable);
+            return new PageImpl<>(findCardsInOrder(ids.getContent()), pageable, ids.getTotalElements());
+        }
+        return bookRepository.findCardsByFilters(search, category, author, availableOnly,
+                withoutRelevance(pageable));
     }
     
-    public Page<Book> findBooksByCategory(String category, Pageable pageable) {
-        return bookRepository.findByCategory(category, pageable);
+    /**
+     * Like {@link #findBooks} without the count query. The in-memory indexes know the total
+     * for free, so they still answer with a full page.
+     */
+    public Slice<BookCardDto> findBookSlice(String search, String category, String author, boolean availableOnly,
+                                            Pageable pageable) {
+        if (!isUnfiltered(search, category, author, availableOnly) && indexesServe(pageable.getSort())) {
+            return findBooks(search, category, author, availableOnly, pageable);
+        }
+        return bookRepository.findCardSliceByFilters(search, category, author, availableOnly,
+                withoutRelevance(pageable));
     }
     
-    public Page<Book> findBooksByAuthor(String author, Pageable pageable) {
-        return bookRepository.findByAuthor(author, pageable);
+    /**
+     * Number of books matching the filters: exact from the bitmaps when they are built,
+     * otherwise from table statistics or a cached count. Searches get no estimate until the
+     * bitmaps are built, since a count per search text would never be reused.
+     */
+    public Long approximateBookCount(String search, String category, String author, boolean availableOnly) {
+        if (bookSearchIndex.isReady() && bookFacetIndex.isReady()) {
+            RoaringBitmap matches = search != null ? bookSearchIndex.matches(search) : null;
+            return bookFacetIndex.count(matches, category, author, availableOnly);
+        }
+        if (isUnfiltered(search, category, author, availableOnly)) {
+            return approximateCounter.estimateTable("books", bookRepository::count);
+        }
+        if (search != null) {
+            return null;
+        }
+        return approximateCounter.estimate("books:" + category + "|" + author + "|" + availableOnly,
+                () -> bookRepository.countByFilters(null, category, author, availableOnly));
     }
     
-    public Page<Book> findAvailableBooks(Pageable pageable) {
-        return bookRepository.findAvailableBooks(pageable);
+    /**
+     * Like {@link #findBooks} but also returns the category, author and availability counts
+     * of the matching books, so the client can render its filters from the same response.
+     */
+    @Transactional(readOnly = true)
+    public BookBrowseResponse browseBooks(String search, String category, String author, boolean availableOnly,
+                                          Pageable pageable, int facetLimit) {
+        Page<BookCardDto> books = findBooks(search, category, author, availableOnly, pageable);
+        if (!bookSearchIndex.isReady() || !bookFacetIndex.isReady()) {
+            return new BookBrowseResponse(books, null);
+        }
+        RoaringBitmap matches = search != null ? bookSearchIndex.matches(search) : null;
+        BookFacetsDto facets = bookFacetIndex.counts(matches, category, author, availableOnly, facetLimit);
+        return new BookBrowseResponse(books, facets);
     }
     
-    public Page<Book> findTopRatedBooks(Pageable pageable) {
-        return bookRepository.findTopRatedBooks(pageable);
+    /**
+     * Keyset variant of {@link #findBooks}: seeks past {@code position} on the sort columns
+     * plus id, so a deep page costs the same as the first one and no count query runs.
+     */
+    @Transactional(readOnly = true)
+    public Window<BookCardDto> scrollBooks(String search, String category, String author, boolean availableOnly,
+                                           Sort sort, ScrollPosition position, int size) {
+        CursorCodec.requireSortable(sort, KEYSET_SORTABLE);
+        Window<Book> books = bookRepository.findBy(BookSpecifications.matching(search, category, author, availableOnly),
+                query -> query.sortBy(sort).limit(size).scroll(position));
+        return books.map(BookCardDto::new);
     }
     
-    public Page<Book> findMostReviewedBooks(Pageable pageable) {
-        return bookRepository.findMostReviewedBooks(pageable);
+    public Page<BookCardDto> findTopRatedBooks(Pageable pageable) {
+        if (bookLeaderboards.isReady()) {
+            List<Long> ids = bookLeaderboards.getTopRated().page(pageable.getOffset(), pageable.getPageSize());
+            List<BookCardDto> books = ids != null ? findCachedInOrder(ids) : null;
+            if (books != null) {
+                return new PageImpl<>(books, pageable, bookLeaderboards.getTotalBooks());
+            }
+        }
+        return bookRepository.findTopRatedCards(pageable);
+    }
+    
+    public Page<BookCardDto> findMostReviewedBooks(Pageable pageable) {
+        if (bookLeaderboards.isReady()) {
+            List<Long> ids = bookLeaderboards.getMostReviewed().page(pageable.getOffset(), pageable.getPageSize());
+            List<BookCardDto> books = ids != null ? findCachedInOrder(ids) : null;
+            if (books != null) {
+                return new PageImpl<>(books, pageable, bookLeaderboards.getTotalBooks());
+            }
+        }
+        return bookRepository.findMostReviewedCards(pageable);
     }
     
     public List<String> getAllCategories() {
+        if (catalogValues.isReady()) {
+            return catalogValues.getCategories().all();
+        }
         return bookRepository.findAllCategories();
     }
     
+    /**
+     * Version of the category list, which only moves when a category appears or disappears;
+     * null while the list is read from the database.
+     */
+    public Long getCategoriesVersion() {
+        return catalogValues.isReady() ? catalogValues.getCategories().getVersion() : null;
+    }
+    
     public List<String> getAllAuthors() {
+        if (catalogValues.isReady()) {
+            return catalogValues.getAuthors().all();
+        }
         return bookRepository.findAllAuthors();
     }
     
+    /**
+     * Like {@link #getCategoriesVersion} for the author list.
+     */
+    public Long getAuthorsVersion() {
+        return catalogValues.isReady() ? catalogValues.getAuthors().getVersion() : null;
+    }
+    
+    public Page<String> findCategories(String prefix, Pageable pageable) {
+        if (catalogValues.isReady()) {
+            return catalogValues.getCategories().page(prefix, pageable);
+        }
+        return bookRepository.findCategoriesByPrefix(prefix != null ? prefix : "", pageable);
+    }
+    
+    public Page<String> findAuthors(String prefix, Pageable pageable) {
+        if (catalogValues.isReady()) {
+            return catalogValues.getAuthors().page(prefix, pageable);
+        }
+        return bookRepository.findAuthorsByPrefix(prefix != null ? prefix : "", pageable);
+    }
+    
     public void updateBookCopies(Long bookId, int totalCopies) {
-        Book book = findById(bookId);
-        int copiesDifference = totalCopies - book.getTotalCopies();
-        
-        book.setTotalCopies(totalCopies);
-        book.setAvailableCopies(Math.max(0, book.getAvailableCopies() + copiesDifference));
-        
-        bookRepository.save(book);
+        BookSnapshot previous = loadSnapshot(bookId);
+        BookSnapshot current = writeTotalCopies(bookId, totalCopies);
+        eventPublisher.publishEvent(BookChangedEvent.updated(previous, current));
     }
     
-    public void borrowBook(Long bookId) {
-        Book book = findById(bookId);
-        if (book.getAvailableCopies() <= 0) {
-            throw new RuntimeException("No copies available for borrowing");
+    /**
+     * Takes one copy of the book with a single conditional UPDATE, so concurrent borrowers
+     * never read, decrement and write back the same count. Returns the book as stored after
+     * the decrement.
+     */
+    public BookSnapshot borrowBook(Long bookId) {
+        if (bookRepository.decrementAvailableCopies(bookId, LocalDateTime.now()) == 0) {
+            throw rejected(bookId, RETRY_MESSAGE, "No copies available for borrowing");
         }
-        
-        book.setAvailableCopies(book.getAvailableCopies() - 1);
-        bookRepository.save(book);
+        BookSnapshot current = loadSnapshot(bookId);
+        eventPublisher.publishEvent(BookChangedEvent.updated(
+                current.withAvailableCopies(current.getAvailableCopies() + 1), current));
+        return current;
     }
     
-    public void returnBook(Long bookId) {
-        Book book = findById(bookId);
-        if (book.getAvailableCopies() >= book.getTotalCopies()) {
-            throw new RuntimeException("All copies are already available");
+    /**
+     * Puts one copy of the book back with a single conditional UPDATE. Returns the book as
+     * stored after the increment.
+     */
+    public BookSnapshot returnBook(Long bookId) {
+        if (bookRepository.incrementAvailableCopies(bookId, LocalDateTime.now()) == 0) {
+            throw rejected(bookId, RETRY_MESSAGE, "All copies are already available");
         }
-        
-        book.setAvailableCopies(book.getAvailableCopies() + 1);
-        bookRepository.save(book);
+        BookSnapshot current = loadSnapshot(bookId);
+        eventPublisher.publishEvent(BookChangedEvent.updated(
+                current.withAvailableCopies(current.getAvailableCopies() - 1), current));
+        return current;
+    }
+    
+    /**
+     * Loads and locks the given books for a multi-item checkout or return, keyed by id.
+     * Ids that do not exist are left out.
+     */
+    public Map<Long, Book> lockBooks(Collection<Long> ids) {
+        Map<Long, Book> books = new HashMap<>();
+        for (Book book : bookRepository.findAllForUpdateByIdIn(ids)) {
+            books.put(book.getId(), book);
+        }
+        return books;
+    }
+    
+    /**
+     * Moves the available copies of a book returned by {@link #lockBooks} by {@code delta}.
+     * The caller checks the bounds and writes the new counts with
+     * {@link #writeAvailableCopies} once the whole batch is decided.
+     */
+    public void changeAvailableCopies(Book book, int delta) {
+        BookSnapshot previous = BookSnapshot.of(book);
+        book.setAvailableCopies(book.getAvailableCopies() + delta);
+        eventPublisher.publishEvent(BookChangedEvent.updated(previous, BookSnapshot.of(book)));
+    }
+    
+    /**
+     * Stores the available copies of books changed by {@link #changeAvailableCopies} as one
+     * JDBC batch. The counts are only safe to write as absolute values because the rows are
+     * still locked by {@link #lockBooks}.
+     */
+    public void writeAvailableCopies(Collection<Book> books) {
+        if (books.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPDATE_AVAILABLE_COPIES_SQL, books, books.size(), (ps, book) -> {
+            ps.setInt(1, book.getAvailableCopies());
+            ps.setTimestamp(2, now);
+            ps.setLong(3, book.getId());
+        });
     }
     
     public long getTotalBookCount() {
@@ -143,4 +381,73 @@ public class BookService {
     public long getAvailableBookCount() {
         return bookRepository.countAvailableBooks();
     }
+    
+    private BookSnapshot writeTotalCopies(Long id, int totalCopies) {
+        if (bookRepository.updateTotalCopies(id, totalCopies, LocalDateTime.now()) == 0) {
+            throw rejected(id, "Cannot change the copies of a hot title; turn hot-title mode off first",
+                    "Book not found");
+        }
+        return loadSnapshot(id);
+    }
+    
+    // Explains why a conditional update matched no row
+    private RuntimeException rejected(Long id, String whenHot, String otherwise) {
+        return bookRepository.findHotTitleById(id)
+                .map(hot -> new RuntimeException(hot ? whenHot : otherwise))
+                .orElseGet(() -> new RuntimeException("Book not found"));
+    }
+    
+    private BookSnapshot loadSnapshot(Long id) {
+        return bookRepository.findSnapshotById(id)
+                .orElseThrow(() -> new RuntimeException("Book not found"));
+    }
+    
+    private Book loadForUpdate(Long id) {
+        return bookRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Book not found"));
+    }
+    
+    private boolean indexesServe(Sort sort) {
+        return bookSearchIndex.isReady() && bookFacetIndex.isReady() && bookSearchIndex.supports(sort);
+    }
+    
+    private static boolean isUnfiltered(String search, String category, String author, boolean availableOnly) {
+        return search == null && category == null && author == null && !availableOnly;
+    }
+    
+    // The database has no notion of relevance, fall back to its natural order
+    private static Pageable withoutRelevance(Pageable pageable) {
+        if (pageable.getSort().getOrderFor(BookSearchIndex.RELEVANCE) != null) {
+            return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        }
+        return pageable;
+    }
+    
+    // Null when a book was deleted after the leaderboard was read; the page is then short of
+    // books the total still counts, so the caller asks the database instead
+    private List<BookCardDto> findCachedInOrder(List<Long> ids) {
+        Map<Long, Book> booksById = bookCache.findAllById(ids);
+        List<BookCardDto> books = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Book book = booksById.get(id);
+            if (book == null) {
+                return null;
+            }
+            books.add(new BookCardDto(book));
+        }
+        return books;
+    }
+    
+    private List<BookCardDto> findCardsInOrder(List<Long> ids) {
+        Map<Long, BookCardDto> cardsById = bookRepository.findCardsByIdIn(ids).stream()
+                .collect(Collectors.toMap(BookCardDto::getId, Function.identity()));
+        List<BookCardDto> cards = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            BookCardDto card = cardsById.get(id);
+            if (card != null) {
+                cards.add(card);
+            }
+        }
+        return cards;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,218 @@
+package com.library.management.service;
+
+import com.library.management.dto.BorrowRecordDto;
+import com.library.management.entity.BorrowRecord;
+import com.library.management.entity.User;
+import com.library.management.repository.BorrowRecordHistoryRepository;
+import com.library.management.repository.BorrowRecordRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads that cover a borrower's whole history: the records still in {@code borrow_records}
+ * together with those {@code BorrowArchiver} has moved to {@code borrow_record_history}.
+ * Circulation itself only reads the first table.
+ * <p>
+ * A page of a user's records is one UNION ALL of the two tables, each cut to the rows that
+ * can reach the page before they are combined, so the cost follows the page rather than the
+ * length of the history. Exports stream both tables and merge them by id.
+ */
+@Service
+@Transactional(readOnly = true)
+public class BorrowHistoryService {
+    
+    private static final String COLUMNS = "id, user_id, book_id, borrow_date, due_date, return_date, status, " +
+            "fine_amount, notes, created_at, updated_at";
+    private static final String PAGE_SQL = "SELECT r.id, r.borrow_date, r.due_date, r.return_date, r.status, " +
+            "r.fine_amount, r.notes, r.created_at, r.updated_at, r.user_id, u.first_name, u.last_name, u.email, " +
+            "r.book_id, b.title, b.author, b.isbn, b.category, b.cover_image_url " +
+            "FROM ((SELECT " + COLUMNS + " FROM borrow_records WHERE user_id = ?%1$s ORDER BY %2$s LIMIT %4$d) " +
+            "UNION ALL (SELECT " + COLUMNS + " FROM borrow_record_history WHERE user_id = ?%1$s ORDER BY %2$s LIMIT %4$d)) r " +
+            "LEFT JOIN users u ON u.id = r.user_id LEFT JOIN books b ON b.id = r.book_id " +
+            "ORDER BY %3$s LIMIT ? OFFSET ?";
+    
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "id",
+            "borrowDate", "borrow_date",
+            "dueDate", "due_date",
+            "returnDate", "return_date",
+            "status", "status",
+            "fineAmount", "fine_amount",
+            "createdAt", "created_at",
+            "updatedAt", "updated_at");
+    
+    private static final RowMapper<BorrowRecordDto> DTO_MAPPER = (rs, rowNum) -> new BorrowRecordDto(
+            rs.getLong(1), rs.getObject(2, LocalDate.class), rs.getObject(3, LocalDate.class),
+            rs.getObject(4, LocalDate.class), BorrowRecord.BorrowStatus.valueOf(rs.getString(5)),
+            rs.getObject(6, BigDecimal.class), rs.getString(7),
+            rs.getObject(8, LocalDateTime.class), rs.getObject(9, LocalDateTime.class),
+            rs.getLong(10), rs.getString(11), rs.getString(12), rs.getString(13),
+            rs.getLong(14), rs.getString(15), rs.getString(16), rs.getString(17), rs.getString(18),
+            rs.getString(19));
+    
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+    
+    @Autowired
+    private BorrowRecordHistoryRepository historyRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * One page of everything the user has borrowed, optionally of one status, with the exact
+     * total.
+     */
+    public Page<BorrowRecordDto> findByUser(User user, BorrowRecord.BorrowStatus status, Pageable pageable) {
+        List<BorrowRecordDto> content = query(user.getId(), status, pageable, pageable.getPageSize());
+        return new PageImpl<>(content, pageable, countByUser(user, status));
+    }
+    
+    /**
+     * Count-free variant of {@link #findByUser}.
+     */
+    public Slice<BorrowRecordDto> findSliceByUser(User user, BorrowRecord.BorrowStatus status, Pageable pageable) {
+        List<BorrowRecordDto> content = query(user.getId(), status, pageable, pageable.getPageSize() + 1);
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+    
+    public long countByUser(User user, BorrowRecord.BorrowStatus status) {
+        if (status == null) {
+            return borrowRecordRepository.countByUser(user) + historyRepository.countByUserId(user.getId());
+        }
+        return borrowRecordRepository.countByUserAndStatus(user, status)
+                + historyRepository.countByUserIdAndStatus(user.getId(), status);
+    }
+    
+    /**
+     * The record with the given id, wherever it is kept.
+     */
+    public BorrowRecordDto findDtoById(Long id) {
+        return borrowRecordRepository.findWithUserAndBookById(id)
+                .map(BorrowRecordDto::new)
+                .or(() -> historyRepository.findDtoById(id))
+                .orElseThrow(() -> new RuntimeException("Borrow record not found"));
+    }
+    
+    /**
+     * Streams the records of both tables, optionally of one status, in id order. Must be
+     * consumed inside a transaction and closed.
+     */
+    public Stream<BorrowRecordDto> streamDtos(BorrowRecord.BorrowStatus status) {
+        Stream<BorrowRecordDto> current = borrowRecordRepository.streamDtos(status);
+        Stream<BorrowRecordDto> archived;
+        try {
+            archived = historyRepository.streamDtos(status);
+        } catch (RuntimeException e) {
+            current.close();
+            throw e;
+        }
+        Iterator<BorrowRecordDto> merged = new MergedById(current.iterator(), archived.iterator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false)
+                .onClose(current::close)
+                .onClose(archived::close);
+    }
+    
+    private List<BorrowRecordDto> query(Long userId, BorrowRecord.BorrowStatus status, Pageable pageable, int limit) {
+        String filter = status != null ? " AND status = ?" : "";
+        // Each table may supply the whole page, after every row before it. Written into the SQL
+        // rather than bound: H2 reuses a prepared UNION branch's rows when only its LIMIT changes
+        long branchLimit = pageable.getOffset() + limit;
+        String sql = String.format(PAGE_SQL, filter, orderBy(pageable.getSort(), ""),
+                orderBy(pageable.getSort(), "r."), branchLimit);
+        List<Object> args = new ArrayList<>();
+        for (int table = 0; table < 2; table++) {
+            args.add(userId);
+            if (status != null) {
+                args.add(status.name());
+            }
+        }
+        args.add(limit);
+        args.add(pageable.getOffset());
+        return jdbcTemplate.query(sql, DTO_MAPPER, args.toArray());
+    }
+    
+    // Ends with the id, so rows with equal sort values keep their order from page to page
+    private static String orderBy(Sort sort, String prefix) {
+        List<String> terms = new ArrayList<>();
+        boolean byId = false;
+        Sort.Direction direction = Sort.Direction.ASC;
+        for (Sort.Order order : sort) {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new RuntimeException("Cannot sort borrow records by " + order.getProperty());
+            }
+            terms.add(prefix + column + " " + order.getDirection().name());
+            byId |= column.equals("id");
+            direction = order.getDirection();
+        }
+        if (!byId) {
+            terms.add(prefix + "id " + direction.name());
+        }
+        return String.join(", ", terms);
+    }
+    
+    /**
+     * Merges two id-ordered iterators of records; an id is never in both.
+     */
+    private static class MergedById implements Iterator<BorrowRecordDto> {
+        private final Iterator<BorrowRecordDto> first;
+        private final Iterator<BorrowRecordDto> second;
+        private BorrowRecordDto nextFirst;
+        private BorrowRecordDto nextSecond;
+        
+        MergedById(Iterator<BorrowRecordDto> first, Iterator<BorrowRecordDto> second) {
+            this.first = first;
+            this.second = second;
+            this.nextFirst = first.hasNext() ? first.next() : null;
+            this.nextSecond = second.hasNext() ? second.next() : null;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return nextFirst != null || nextSecond != null;
+        }
+        
+        @Override
+        public BorrowRecordDto next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            BorrowRecordDto record;
+            if (nextSecond == null || (nextFirst != null && nextFirst.getId() < nextSecond.getId())) {
+                record = nextFirst;
+                nextFirst = first.hasNext() ? first.next() : null;
+            } else {
+                record = nextSecond;
+                nextSecond = second.hasNext() ? second.next() : null;
+            }
+            return record;
+        }
+    }
+}
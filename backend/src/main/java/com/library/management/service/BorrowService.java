@@ -1,17 +1,47 @@
 package com.library.management.service;
 
+import com.library.management.circulation.ActiveLoans;
+import com.library.management.circulation.BorrowArchiver;
+import com.library.management.circulation.DueDateWheel;
+import com.library.management.circulation.FineLedger;
+import com.library.management.circulation.HotTitleLedger;
+import com.library.management.circulation.OverdueSweeper;
+import com.library.management.dto.BorrowRecordDto;
+import com.library.management.dto.CirculationBatchResponse;
+import com.library.management.dto.CirculationItemResultDto;
 import com.library.management.entity.Book;
 import com.library.management.entity.BorrowRecord;
+import com.library.management.entity.FineLedgerEntry;
 import com.library.management.entity.User;
+import com.library.management.event.BorrowStatusChangedEvent;
+import com.library.management.pagination.ApproximateCounter;
+import com.library.management.pagination.CursorCodec;
 import com.library.management.repository.BorrowRecordRepository;
+import com.library.management.repository.BorrowRecordSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -26,27 +56,70 @@ public class BorrowService {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private ApproximateCounter approximateCounter;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private HotTitleLedger hotTitleLedger;
+    
+    @Autowired
+    private HoldService holdService;
+    
+    @Autowired
+    private ActiveLoans activeLoans;
+    
+    @Autowired
+    private OverdueSweeper overdueSweeper;
+    
+    @Autowired
+    private DueDateWheel dueDateWheel;
+    
+    @Autowired
+    private FineLedger fineLedger;
+    
+    @Autowired
+    private BorrowArchiver borrowArchiver;
+    
+    @Autowired
+    private BorrowHistoryService borrowHistoryService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     private static final int MAX_BORROW_LIMIT = 5;
+    private static final int MAX_BATCH_SIZE = 50;
     private static final int DEFAULT_BORROW_DAYS = 14;
-    private static final double FINE_PER_DAY = 1.0;
+    private static final String INSERT_SQL = "INSERT INTO borrow_records (user_id, book_id, borrow_date, due_date, " +
+            "status, fine_amount, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final Set<String> KEYSET_SORTABLE = Set.of(
+            "id", "borrowDate", "dueDate", "status", "createdAt", "updatedAt");
     
     public BorrowRecord borrowBook(Long userId, Long bookId, LocalDate dueDate) {
         User user = userService.findById(userId);
         Book book = bookService.findById(bookId);
         
+        // Locks the user's loans, so the two checks below hold until commit
+        Set<Long> onLoan = activeLoans.lock(userId);
+        
         // Check if user already has this book borrowed
-        if (borrowRecordRepository.findActiveBorrowRecord(user, book).isPresent()) {
+        if (onLoan.contains(bookId)) {
             throw new RuntimeException("User already has this book borrowed");
         }
         
         // Check borrow limit
-        long activeBorrows = borrowRecordRepository.countActiveBorrowsByUser(user);
-        if (activeBorrows >= MAX_BORROW_LIMIT) {
+        if (onLoan.size() >= MAX_BORROW_LIMIT) {
             throw new RuntimeException("User has reached maximum borrow limit");
         }
         
-        // Check if book is available
-        if (book.getAvailableCopies() <= 0) {
+        // A patron collecting a hold takes the copy set aside for them
+        boolean collected = !holdService.collect(userId, List.of(bookId)).isEmpty();
+        
+        // Reject early on the cached count; the conditional update below has the final word.
+        // A hot title's row lags behind its in-memory count, so only the ledger can tell
+        if (!collected && !hotTitleLedger.isHot(bookId) && book.getAvailableCopies() <= 0) {
             throw new RuntimeException("No copies available for borrowing");
         }
         
@@ -59,43 +132,194 @@ public class BorrowService {
         borrowRecord.setStatus(BorrowRecord.BorrowStatus.BORROWED);
         
         // Update book availability
-        bookService.borrowBook(bookId);
+        if (!collected) {
+            HotTitleLedger.Result hot = hotTitleLedger.take(bookId);
+            if (hot == HotTitleLedger.Result.NONE_LEFT) {
+                throw new RuntimeException("No copies available for borrowing");
+            }
+            if (hot == HotTitleLedger.Result.NOT_HOT) {
+                bookService.borrowBook(bookId);
+            }
+        }
         
-        return borrowRecordRepository.save(borrowRecord);
+        activeLoans.borrowed(userId, List.of(bookId));
+        
+        BorrowRecord savedRecord = borrowRecordRepository.save(borrowRecord);
+        dueDateWheel.scheduled(savedRecord.getId(), savedRecord.getDueDate());
+        eventPublisher.publishEvent(BorrowStatusChangedEvent.of(savedRecord, null));
+        return savedRecord;
     }
     
     public BorrowRecord returnBook(Long borrowRecordId, String notes) {
-        BorrowRecord borrowRecord = borrowRecordRepository.findById(borrowRecordId)
-                .orElseThrow(() -> new RuntimeException("Borrow record not found"));
+        Long userId = userIdOf(borrowRecordId);
+        activeLoans.lock(userId);
+        BorrowRecord borrowRecord = lockRecord(borrowRecordId);
         
-        if (borrowRecord.getStatus() != BorrowRecord.BorrowStatus.BORROWED) {
+        // Read under the lock, so a concurrent return of the same record is caught
+        BorrowRecord.BorrowStatus previousStatus = borrowRecord.getStatus();
+        if (!isOnLoan(previousStatus)) {
             throw new RuntimeException("Book is not currently borrowed");
         }
+        Long bookId = borrowRecord.getBook().getId();
         
-        // Calculate fine if overdue
-        LocalDate returnDate = LocalDate.now();
-        double fineAmount = 0.0;
+        BigDecimal accrued = fineLedger.currentFine(borrowRecordId);
+        markReturned(borrowRecord, notes);
+        fineLedger.post(borrowRecordId, userId, FineLedgerEntry.EntryType.RETURN,
+                borrowRecord.getFineAmount().subtract(accrued));
+        activeLoans.released(userId, List.of(bookId));
         
-        if (returnDate.isAfter(borrowRecord.getDueDate())) {
-            long daysOverdue = returnDate.toEpochDay() - borrowRecord.getDueDate().toEpochDay();
-            fineAmount = daysOverdue * FINE_PER_DAY;
+        // Update book availability; the first waiting hold gets the copy
+        holdService.returnCopy(bookId);
+        
+        BorrowRecord savedRecord = borrowRecordRepository.save(borrowRecord);
+        dueDateWheel.cancelled(savedRecord.getId());
+        eventPublisher.publishEvent(BorrowStatusChangedEvent.of(savedRecord, previousStatus));
+        return savedRecord;
+    }
+    
+    /**
+     * Checks out several books for one user in a single transaction. The borrow limit and the
+     * books already on loan are read once, the books are loaded and locked with one query,
+     * and the new records are inserted as one JDBC batch. Each requested book is accepted or
+     * rejected on its own, in request order, with the same rules as {@link #borrowBook}.
+     */
+    public CirculationBatchResponse borrowBooks(Long userId, List<Long> bookIds, LocalDate dueDate) {
+        checkBatchSize(bookIds);
+        User user = userService.findById(userId);
+        Set<Long> requested = new HashSet<>(bookIds);
+        Set<Long> onLoan = activeLoans.lock(userId);
+        long freeSlots = MAX_BORROW_LIMIT - onLoan.size();
+        Map<Long, Book> books = bookService.lockBooks(requested);
+        Set<Long> readyHolds = holdService.findReadyBookIds(userId, requested);
+        
+        List<CirculationItemResultDto> items = new ArrayList<>();
+        Map<Long, CirculationItemResultDto> acceptedItems = new HashMap<>();
+        List<Book> accepted = new ArrayList<>();
+        List<Book> changed = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (Long bookId : bookIds) {
+            Book book = books.get(bookId);
+            String problem = null;
+            if (!seen.add(bookId)) {
+                problem = "Book is listed more than once";
+            } else if (book == null) {
+                problem = "Book not found";
+            } else if (onLoan.contains(bookId)) {
+                problem = "User already has this book borrowed";
+            } else if (accepted.size() >= freeSlots) {
+                problem = "User has reached maximum borrow limit";
+            } else if (!readyHolds.contains(bookId)) {
+                problem = takeCopy(book, changed);
+            }
+            
+            if (problem != null) {
+                items.add(CirculationItemResultDto.rejected(bookId, problem));
+                continue;
+            }
+            accepted.add(book);
+            CirculationItemResultDto item = CirculationItemResultDto.accepted(bookId, null);
+            acceptedItems.put(bookId, item);
+            items.add(item);
         }
         
-        // Update borrow record
-        borrowRecord.setReturnDate(returnDate);
-        borrowRecord.setStatus(BorrowRecord.BorrowStatus.RETURNED);
-        borrowRecord.setFineAmount(fineAmount);
-        borrowRecord.setNotes(notes);
+        if (!accepted.isEmpty()) {
+            LocalDate borrowDate = LocalDate.now();
+            LocalDate due = dueDate != null ? dueDate : borrowDate.plusDays(DEFAULT_BORROW_DAYS);
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate(INSERT_SQL, accepted, accepted.size(), (ps, book) -> {
+                ps.setLong(1, user.getId());
+                ps.setLong(2, book.getId());
+                ps.setDate(3, Date.valueOf(borrowDate));
+                ps.setDate(4, Date.valueOf(due));
+                ps.setString(5, BorrowRecord.BorrowStatus.BORROWED.name());
+                ps.setBigDecimal(6, BigDecimal.ZERO);
+                ps.setTimestamp(7, now);
+                ps.setTimestamp(8, now);
+            });
+            bookService.writeAvailableCopies(changed);
+            activeLoans.borrowed(userId, acceptedItems.keySet());
+            holdService.collect(userId, acceptedItems.keySet());
+            // The batch does not return generated ids, so read the new records back
+            for (BorrowRecordDto record : borrowRecordRepository.findActiveDtosByUserAndBookIds(
+                    user.getId(), acceptedItems.keySet())) {
+                acceptedItems.get(record.getBook().getId()).setRecord(record);
+                dueDateWheel.scheduled(record.getId(), record.getDueDate());
+                eventPublisher.publishEvent(new BorrowStatusChangedEvent(record.getId(), user.getId(),
+                        record.getBook().getId(), null, record.getStatus()));
+            }
+        }
+        return new CirculationBatchResponse(items);
+    }
+    
+    /**
+     * Returns several borrow records in a single transaction: the records and their books are
+     * loaded and locked with one query each. With {@code ownerId} set, only that user's
+     * records are accepted. Each record is accepted or rejected on its own, in request order,
+     * with the same rules as {@link #returnBook}.
+     */
+    public CirculationBatchResponse returnBooks(List<Long> borrowRecordIds, String notes, Long ownerId) {
+        checkBatchSize(borrowRecordIds);
+        // Users, then records, then books: the order every checkout and return locks them in
+        activeLoans.lockAll(borrowRecordRepository.findUserIdsByIdIn(new HashSet<>(borrowRecordIds)));
+        Map<Long, BorrowRecord> records = new HashMap<>();
+        Set<Long> bookIds = new HashSet<>();
+        for (BorrowRecord record : borrowRecordRepository.findAllForUpdateByIdIn(new HashSet<>(borrowRecordIds))) {
+            records.put(record.getId(), record);
+            bookIds.add(record.getBook().getId());
+        }
+        Map<Long, Book> books = bookService.lockBooks(bookIds);
         
-        // Update book availability
-        bookService.returnBook(borrowRecord.getBook().getId());
+        List<CirculationItemResultDto> items = new ArrayList<>();
+        List<BorrowRecord> returned = new ArrayList<>();
+        Map<Long, List<Long>> releasedByUser = new HashMap<>();
+        List<Book> changed = new ArrayList<>();
+        List<FineLedger.Posting> fines = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (Long recordId : borrowRecordIds) {
+            BorrowRecord record = records.get(recordId);
+            Book book = record != null ? books.get(record.getBook().getId()) : null;
+            String problem = null;
+            if (!seen.add(recordId)) {
+                problem = "Borrow record is listed more than once";
+            } else if (record == null || (ownerId != null && !ownerId.equals(record.getUser().getId()))) {
+                problem = "Borrow record not found";
+            } else if (!isOnLoan(record.getStatus())) {
+                problem = "Book is not currently borrowed";
+            } else if (!book.getHotTitle() && book.getAvailableCopies() >= book.getTotalCopies()) {
+                problem = "All copies are already available";
+            } else if (!holdService.allocate(book.getId())) {
+                // Nobody is waiting for the copy, so it goes back on the shelf
+                problem = putBack(book, changed);
+            }
+            
+            if (problem != null) {
+                items.add(CirculationItemResultDto.rejected(recordId, problem));
+                continue;
+            }
+            BorrowRecord.BorrowStatus previousStatus = record.getStatus();
+            // Locked above, so this is the fine accrued so far
+            BigDecimal accrued = record.getFineAmount() != null ? record.getFineAmount() : BigDecimal.ZERO;
+            markReturned(record, notes);
+            fines.add(new FineLedger.Posting(recordId, record.getUser().getId(), FineLedgerEntry.EntryType.RETURN,
+                    record.getFineAmount().subtract(accrued), record.getReturnDate()));
+            returned.add(record);
+            releasedByUser.computeIfAbsent(record.getUser().getId(), id -> new ArrayList<>()).add(book.getId());
+            dueDateWheel.cancelled(record.getId());
+            eventPublisher.publishEvent(BorrowStatusChangedEvent.of(record, previousStatus));
+            items.add(CirculationItemResultDto.accepted(recordId, new BorrowRecordDto(record)));
+        }
         
-        return borrowRecordRepository.save(borrowRecord);
+        bookService.writeAvailableCopies(changed);
+        releasedByUser.forEach(activeLoans::released);
+        fineLedger.postAll(fines);
+        borrowRecordRepository.saveAll(returned);
+        return new CirculationBatchResponse(items);
     }
     
     public BorrowRecord renewBook(Long borrowRecordId, int additionalDays) {
-        BorrowRecord borrowRecord = borrowRecordRepository.findById(borrowRecordId)
-                .orElseThrow(() -> new RuntimeException("Borrow record not found"));
+        // Locked like a return, so a return or sweep that commits first is seen here
+        activeLoans.lock(userIdOf(borrowRecordId));
+        BorrowRecord borrowRecord = lockRecord(borrowRecordId);
         
         if (borrowRecord.getStatus() != BorrowRecord.BorrowStatus.BORROWED) {
             throw new RuntimeException("Book is not currently borrowed");
@@ -108,73 +332,241 @@ public class BorrowService {
         
         // Extend due date
         borrowRecord.setDueDate(borrowRecord.getDueDate().plusDays(additionalDays));
+        dueDateWheel.scheduled(borrowRecord.getId(), borrowRecord.getDueDate());
         
         return borrowRecordRepository.save(borrowRecord);
     }
     
     public void markAsLost(Long borrowRecordId, String notes) {
-        BorrowRecord borrowRecord = borrowRecordRepository.findById(borrowRecordId)
-                .orElseThrow(() -> new RuntimeException("Borrow record not found"));
+        // The user is locked even when the book was already back, because the fine changes the
+        // user's balance
+        Long userId = userIdOf(borrowRecordId);
+        Set<Long> onLoan = activeLoans.lock(userId);
+        BorrowRecord borrowRecord = lockRecord(borrowRecordId);
         
+        BorrowRecord.BorrowStatus previousStatus = borrowRecord.getStatus();
+        if (previousStatus == BorrowRecord.BorrowStatus.LOST) {
+            throw new RuntimeException("Book is already marked as lost");
+        }
+        Long bookId = borrowRecord.getBook().getId();
+        if (isOnLoan(previousStatus) && onLoan.contains(bookId)) {
+            // A lost book no longer counts against the borrow limit
+            activeLoans.released(userId, List.of(bookId));
+        }
         borrowRecord.setStatus(BorrowRecord.BorrowStatus.LOST);
         borrowRecord.setNotes(notes);
         
-        // Apply fine for lost book (usually the cost of the book)
-        borrowRecord.setFineAmount(50.0); // Default fine for lost book
+        // The replacement charge takes the place of any fine accrued so far
+        BigDecimal accrued = fineLedger.currentFine(borrowRecordId);
+        borrowRecord.setFineAmount(FineLedger.LOST_FINE);
+        fineLedger.post(borrowRecordId, userId, FineLedgerEntry.EntryType.LOST, FineLedger.LOST_FINE.subtract(accrued));
         
         borrowRecordRepository.save(borrowRecord);
+        dueDateWheel.cancelled(borrowRecordId);
+        eventPublisher.publishEvent(BorrowStatusChangedEvent.of(borrowRecord, previousStatus));
+    }
+    
+    /**
+     * Takes a copy of a book locked by a batch checkout, or says why there is none. Copies of
+     * ordinary books are counted down in memory and written with the rest of the batch.
+     */
+    private String takeCopy(Book book, List<Book> changed) {
+        if (book.getHotTitle()) {
+            // The locked row says the book is hot, but the ledger may still be switching modes
+            return switch (hotTitleLedger.take(book.getId())) {
+                case TAKEN -> null;
+                case NONE_LEFT -> "No copies available for borrowing";
+                default -> "Book availability is being updated, please try again";
+            };
+        }
+        if (book.getAvailableCopies() <= 0) {
+            return "No copies available for borrowing";
+        }
+        bookService.changeAvailableCopies(book, -1);
+        changed.add(book);
+        return null;
+    }
+    
+    /**
+     * Puts a returned copy of a book locked by a batch return back on the shelf, or says why
+     * it cannot.
+     */
+    private String putBack(Book book, List<Book> changed) {
+        if (book.getHotTitle()) {
+            return hotTitleLedger.release(book.getId()) == HotTitleLedger.Result.RETURNED
+                    ? null : "Book availability is being updated, please try again";
+        }
+        bookService.changeAvailableCopies(book, 1);
+        if (!changed.contains(book)) {
+            changed.add(book);
+        }
+        return null;
+    }
+    
+    // Read without a lock: a record never changes hands
+    private Long userIdOf(Long borrowRecordId) {
+        return borrowRecordRepository.findUserIdsByIdIn(Set.of(borrowRecordId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Borrow record not found"));
+    }
+    
+    /**
+     * Loads a record for a change once its user is locked, which is the order every checkout
+     * and return locks them in. Nothing read before the lock is trusted, so the status cannot
+     * change underneath; archived records are no longer found.
+     */
+    private BorrowRecord lockRecord(Long borrowRecordId) {
+        return borrowRecordRepository.findForUpdateById(borrowRecordId)
+                .orElseThrow(() -> new RuntimeException("Borrow record not found"));
+    }
+    
+    // Overdue records are still on loan, whether or not the sweeper has flagged them yet
+    private static boolean isOnLoan(BorrowRecord.BorrowStatus status) {
+        return status == BorrowRecord.BorrowStatus.BORROWED || status == BorrowRecord.BorrowStatus.OVERDUE;
+    }
+    
+    private static void markReturned(BorrowRecord borrowRecord, String notes) {
+        LocalDate returnDate = LocalDate.now();
+        borrowRecord.setReturnDate(returnDate);
+        borrowRecord.setStatus(BorrowRecord.BorrowStatus.RETURNED);
+        borrowRecord.setFineAmount(FineLedger.fineFor(borrowRecord.getDueDate(), returnDate));
+        borrowRecord.setNotes(notes);
     }
     
+    private static void checkBatchSize(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new RuntimeException("No items given");
+        }
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new RuntimeException("At most " + MAX_BATCH_SIZE + " items can be processed at once");
+        }
+    }
+    
+    /**
+     * Loads the record together with its user and book in one query.
+     */
     public BorrowRecord findById(Long id) {
-        return borrowRecordRepository.findById(id)
+        return borrowRecordRepository.findWithUserAndBookById(id)
                 .orElseThrow(() -> new RuntimeException("Borrow record not found"));
     }
     
-    public Page<BorrowRecord> findAllBorrowRecords(Pageable pageable) {
-        return borrowRecordRepository.findAll(pageable);
+    /**
+     * The record with the given id, whether it is still current or archived.
+     */
+    public BorrowRecordDto findRecordDto(Long id) {
+        return borrowHistoryService.findDtoById(id);
+    }
+    
+    public Page<BorrowRecordDto> findAllBorrowRecords(Pageable pageable) {
+        return borrowRecordRepository.findAllDtos(pageable);
+    }
+    
+    /**
+     * The user's records, archived ones included, optionally of one status.
+     */
+    public Page<BorrowRecordDto> findBorrowRecordsByUser(User user, BorrowRecord.BorrowStatus status,
+                                                         Pageable pageable) {
+        return borrowHistoryService.findByUser(user, status, pageable);
+    }
+    
+    public Page<BorrowRecordDto> findBorrowRecordsByStatus(BorrowRecord.BorrowStatus status, Pageable pageable) {
+        return borrowRecordRepository.findDtosByStatus(status, pageable);
+    }
+    
+    public Page<BorrowRecordDto> searchBorrowRecords(String search, Pageable pageable) {
+        return borrowRecordRepository.findDtosBySearchTerm(search, pageable);
     }
     
-    public Page<BorrowRecord> findBorrowRecordsByUser(User user, Pageable pageable) {
-        return borrowRecordRepository.findByUser(user, pageable);
+    /**
+     * Count-free variant of the borrow record listing; the search term takes precedence over
+     * the status, as in the paged listing.
+     */
+    public Slice<BorrowRecordDto> findBorrowRecordSlice(String search, BorrowRecord.BorrowStatus status,
+                                                        Pageable pageable) {
+        if (search != null) {
+            return borrowRecordRepository.findDtoSliceBySearchTerm(search, pageable);
+        }
+        if (status != null) {
+            return borrowRecordRepository.findDtoSliceByStatus(status, pageable);
+        }
+        return borrowRecordRepository.findAllDtoSlice(pageable);
+    }
+    
+    // Searches get no estimate: a count per search text would never be reused
+    public Long approximateBorrowRecordCount(String search, BorrowRecord.BorrowStatus status) {
+        if (search != null) {
+            return null;
+        }
+        if (status != null) {
+            return approximateCounter.estimate("borrow_records:status:" + status,
+                    () -> borrowRecordRepository.countByStatus(status));
+        }
+        return approximateCounter.estimateTable("borrow_records", borrowRecordRepository::count);
     }
     
-    public Page<BorrowRecord> findBorrowRecordsByStatus(BorrowRecord.BorrowStatus status, Pageable pageable) {
-        return borrowRecordRepository.findByStatus(status, pageable);
+    public Slice<BorrowRecordDto> findBorrowRecordSliceByUser(User user, BorrowRecord.BorrowStatus status,
+                                                              Pageable pageable) {
+        return borrowHistoryService.findSliceByUser(user, status, pageable);
     }
     
-    public Page<BorrowRecord> searchBorrowRecords(String search, Pageable pageable) {
-        return borrowRecordRepository.findBySearchTerm(search, pageable);
+    public Long approximateBorrowRecordCountByUser(User user, BorrowRecord.BorrowStatus status) {
+        return approximateCounter.estimate("borrow_records:user:" + user.getId() + ":" + status,
+                () -> borrowHistoryService.countByUser(user, status));
     }
     
-    public Page<BorrowRecord> getRecentActivity(Pageable pageable) {
+    /**
+     * Keyset pagination over all borrow records; the search term takes precedence over the
+     * status, as in the paged listing. The specification fetches the user and book with the
+     * page.
+     */
+    @Transactional(readOnly = true)
+    public Window<BorrowRecordDto> scrollBorrowRecords(String search, BorrowRecord.BorrowStatus status,
+                                                       Sort sort, ScrollPosition position, int size) {
+        CursorCodec.requireSortable(sort, KEYSET_SORTABLE);
+        Window<BorrowRecord> records = borrowRecordRepository.findBy(
+                BorrowRecordSpecifications.matching(search, status),
+                query -> query.sortBy(sort).limit(size).scroll(position));
+        return records.map(BorrowRecordDto::new);
+    }
+    
+    public Page<BorrowRecordDto> getRecentActivity(Pageable pageable) {
         return borrowRecordRepository.findRecentActivity(pageable);
     }
     
-    public List<BorrowRecord> getOverdueRecords() {
-        return borrowRecordRepository.findOverdueRecords(LocalDate.now());
+    public List<BorrowRecordDto> getOverdueRecords() {
+        return borrowRecordRepository.findOverdueDtos(LocalDate.now());
     }
     
-    public List<BorrowRecord> getRecordsDueSoon(int days) {
+    public List<BorrowRecordDto> getRecordsDueSoon(int days) {
         LocalDate startDate = LocalDate.now();
         LocalDate endDate = startDate.plusDays(days);
-        return borrowRecordRepository.findRecordsDueSoon(startDate, endDate);
+        return borrowRecordRepository.findDueSoonDtos(startDate, endDate);
     }
     
-    public void updateOverdueStatus() {
-        List<BorrowRecord> overdueRecords = getOverdueRecords();
-        for (BorrowRecord record : overdueRecords) {
-            if (record.getStatus() == BorrowRecord.BorrowStatus.BORROWED) {
-                record.setStatus(BorrowRecord.BorrowStatus.OVERDUE);
-                borrowRecordRepository.save(record);
-            }
-        }
+    /**
+     * Marks the borrowed records that are past due as overdue now, instead of waiting for
+     * the next scheduled sweep. Runs outside a transaction so each chunk commits on its own.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public OverdueSweeper.SweepResult updateOverdueStatus() {
+        return overdueSweeper.sweep();
+    }
+    
+    /**
+     * Moves the records closed before the archive horizon to the history table now, instead
+     * of waiting for the next scheduled run. Runs outside a transaction so each chunk commits
+     * on its own.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BorrowArchiver.ArchiveResult archiveClosedRecords() {
+        return borrowArchiver.archive();
     }
     
     public long getActiveBorrowCount() {
-        return borrowRecordRepository.countActiveBorrows();
+        return borrowRecordRepository.countActiveBorrows(LocalDate.now());
     }
     
     public long getOverdueCount() {
-        return borrowRecordRepository.countOverdueBooks();
+        return borrowRecordRepository.countOverdueBooks(LocalDate.now());
     }
 }
\ No newline at end of file
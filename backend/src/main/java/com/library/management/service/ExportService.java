@@ -0,0 +1,116 @@
+package com.library.management.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.management.dto.BorrowRecordDto;
+import com.library.management.entity.Book;
+import com.library.management.entity.BorrowRecord;
+import com.library.management.repository.BookRepository;
+import com.library.management.transfer.ExportColumn;
+import com.library.management.transfer.ExportWriter;
+import com.library.management.transfer.TransferFormat;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Full exports of the catalog and of the borrow records for reconciliation with external
+ * systems. Rows come from a forward-only database cursor and are written to the output as
+ * they are read, so memory use does not depend on the number of rows.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ExportService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ExportService.class);
+    
+    // Same names as the import columns, so a book export can be imported elsewhere as is
+    private static final List<ExportColumn<Book>> BOOK_COLUMNS = List.of(
+            ExportColumn.of("id", Book::getId),
+            ExportColumn.of("title", Book::getTitle),
+            ExportColumn.of("author", Book::getAuthor),
+            ExportColumn.of("isbn", Book::getIsbn),
+            ExportColumn.of("publisher", Book::getPublisher),
+            ExportColumn.of("publicationDate", Book::getPublicationDate),
+            ExportColumn.of("category", Book::getCategory),
+            ExportColumn.of("description", Book::getDescription),
+            ExportColumn.of("totalCopies", Book::getTotalCopies),
+            ExportColumn.of("availableCopies", Book::getAvailableCopies),
+            ExportColumn.of("coverImageUrl", Book::getCoverImageUrl),
+            ExportColumn.of("rating", Book::getRating),
+            ExportColumn.of("reviewCount", Book::getReviewCount),
+            ExportColumn.of("status", Book::getStatus),
+            ExportColumn.of("createdAt", Book::getCreatedAt),
+            ExportColumn.of("updatedAt", Book::getUpdatedAt));
+    
+    private static final List<ExportColumn<BorrowRecordDto>> BORROW_RECORD_COLUMNS = List.of(
+            ExportColumn.of("id", BorrowRecordDto::getId),
+            ExportColumn.of("userId", record -> record.getUser().getId()),
+            ExportColumn.of("userEmail", record -> record.getUser().getEmail()),
+            ExportColumn.of("userFirstName", record -> record.getUser().getFirstName()),
+            ExportColumn.of("userLastName", record -> record.getUser().getLastName()),
+            ExportColumn.of("bookId", record -> record.getBook().getId()),
+            ExportColumn.of("bookIsbn", record -> record.getBook().getIsbn()),
+            ExportColumn.of("bookTitle", record -> record.getBook().getTitle()),
+            ExportColumn.of("borrowDate", BorrowRecordDto::getBorrowDate),
+            ExportColumn.of("dueDate", BorrowRecordDto::getDueDate),
+            ExportColumn.of("returnDate", BorrowRecordDto::getReturnDate),
+            ExportColumn.of("status", BorrowRecordDto::getStatus),
+            ExportColumn.of("fineAmount", BorrowRecordDto::getFineAmount),
+            ExportColumn.of("notes", BorrowRecordDto::getNotes),
+            ExportColumn.of("createdAt", BorrowRecordDto::getCreatedAt),
+            ExportColumn.of("updatedAt", BorrowRecordDto::getUpdatedAt));
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private BorrowHistoryService borrowHistoryService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    public long exportBooks(OutputStream output, TransferFormat format) throws IOException {
+        long start = System.currentTimeMillis();
+        ExportWriter<Book> writer = ExportWriter.open(format, BOOK_COLUMNS, output, objectMapper);
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            Iterator<Book> it = books.iterator();
+            while (it.hasNext()) {
+                Book book = it.next();
+                writer.write(book);
+                entityManager.detach(book);
+            }
+        }
+        writer.flush();
+        log.info("Exported {} books as {} in {} ms", writer.getRows(), format, System.currentTimeMillis() - start);
+        return writer.getRows();
+    }
+    
+    public long exportBorrowRecords(OutputStream output, TransferFormat format,
+                                    BorrowRecord.BorrowStatus status) throws IOException {
+        long start = System.currentTimeMillis();
+        ExportWriter<BorrowRecordDto> writer = ExportWriter.open(format, BORROW_RECORD_COLUMNS, output, objectMapper);
+        try (Stream<BorrowRecordDto> records = borrowHistoryService.streamDtos(status)) {
+            Iterator<BorrowRecordDto> it = records.iterator();
+            while (it.hasNext()) {
+                writer.write(it.next());
+            }
+        }
+        writer.flush();
+        log.info("Exported {} borrow records as {} in {} ms",
+                writer.getRows(), format, System.currentTimeMillis() - start);
+        return writer.getRows();
+    }
+}
@@ -0,0 +1,49 @@
+package com.library.management.service;
+
+import com.library.management.circulation.FineAccrual;
+import com.library.management.circulation.FineLedger;
+import com.library.management.entity.FineLedgerEntry;
+import com.library.management.repository.FineLedgerEntryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+@Service
+@Transactional
+public class FineService {
+    
+    @Autowired
+    private FineLedger fineLedger;
+    
+    @Autowired
+    private FineAccrual fineAccrual;
+    
+    @Autowired
+    private FineLedgerEntryRepository fineLedgerEntryRepository;
+    
+    /**
+     * What the user owes, read from their running balance.
+     */
+    public BigDecimal getBalance(Long userId) {
+        return fineLedger.balance(userId);
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<FineLedgerEntry> findEntries(Long userId, Pageable pageable) {
+        return fineLedgerEntryRepository.findByUserIdOrderByIdDesc(userId, pageable);
+    }
+    
+    /**
+     * Runs the nightly fine accrual now. Runs outside a transaction so each chunk commits on
+     * its own.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public FineAccrual.AccrualResult accrueFines() {
+        return fineAccrual.accrue();
+    }
+}
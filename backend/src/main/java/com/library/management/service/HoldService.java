@@ -0,0 +1,200 @@
+package com.library.management.service;
+
+import com.library.management.circulation.ActiveLoans;
+import com.library.management.circulation.HoldQueues;
+import com.library.management.circulation.HotTitleLedger;
+import com.library.management.dto.HoldDto;
+import com.library.management.entity.Book;
+import com.library.management.entity.Hold;
+import com.library.management.entity.User;
+import com.library.management.event.HoldChangedEvent;
+import com.library.management.repository.HoldRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+@Transactional
+public class HoldService {
+    
+    private static final int MAX_ACTIVE_HOLDS = 5;
+    private static final int EXPIRY_BATCH_SIZE = 100;
+    
+    @Autowired
+    private HoldRepository holdRepository;
+    
+    @Autowired
+    private ActiveLoans activeLoans;
+    
+    @Autowired
+    private BookService bookService;
+    
+    @Autowired
+    private HotTitleLedger hotTitleLedger;
+    
+    @Autowired
+    private HoldQueues holdQueues;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Value("${library.holds.pickup-hours:72}")
+    private long pickupHours;
+    
+    /**
+     * Queues {@code user} for a book that has no copy left.
+     * <p>
+     * The user is locked first, so one user's holds are checked and placed one at a time, and
+     * then the book, so a copy coming back either is seen here or finds the new hold waiting.
+     */
+    public Hold placeHold(User user, Long bookId) {
+        Set<Long> onLoan = activeLoans.lock(user.getId());
+        Book book = bookService.lockBooks(List.of(bookId)).get(bookId);
+        if (book == null) {
+            throw new RuntimeException("Book not found");
+        }
+        Integer hotAvailable = hotTitleLedger.available(bookId);
+        if ((hotAvailable != null ? hotAvailable : book.getAvailableCopies()) > 0) {
+            throw new RuntimeException("Copies are available; borrow the book instead");
+        }
+        if (onLoan.contains(bookId)) {
+            throw new RuntimeException("User already has this book borrowed");
+        }
+        if (holdRepository.existsActiveHold(user.getId(), bookId)) {
+            throw new RuntimeException("User already has a hold on this book");
+        }
+        if (holdRepository.countActiveHoldsByUser(user.getId()) >= MAX_ACTIVE_HOLDS) {
+            throw new RuntimeException("User has reached maximum hold limit");
+        }
+        
+        Hold hold = new Hold();
+        hold.setUser(user);
+        hold.setBook(book);
+        hold.setStatus(Hold.HoldStatus.WAITING);
+        Hold savedHold = holdRepository.save(hold);
+        eventPublisher.publishEvent(new HoldChangedEvent(savedHold));
+        return savedHold;
+    }
+    
+    /**
+     * Cancels a waiting or ready hold. With {@code ownerId} set, only that user's holds are
+     * found. A copy set aside for the hold goes to the next patron in line.
+     */
+    public void cancelHold(Long holdId, Long ownerId) {
+        Hold hold = holdRepository.findForUpdateById(holdId)
+                .filter(found -> ownerId == null || ownerId.equals(found.getUser().getId()))
+                .orElseThrow(() -> new RuntimeException("Hold not found"));
+        
+        Hold.HoldStatus status = hold.getStatus();
+        if (status != Hold.HoldStatus.WAITING && status != Hold.HoldStatus.READY) {
+            throw new RuntimeException("Hold is no longer active");
+        }
+        
+        hold.setStatus(Hold.HoldStatus.CANCELLED);
+        holdRepository.save(hold);
+        eventPublisher.publishEvent(new HoldChangedEvent(hold));
+        if (status == Hold.HoldStatus.READY) {
+            returnCopy(hold.getBook().getId());
+        }
+    }
+    
+    /**
+     * Sets a copy of the book coming back to the library aside for the first waiting hold.
+     * Returns false when nobody is waiting; the caller then puts the copy back itself. The
+     * caller holds the book's row lock.
+     */
+    public boolean allocate(Long bookId) {
+        List<Hold> next = holdRepository.findNextWaitingForUpdate(bookId, PageRequest.of(0, 1));
+        if (next.isEmpty()) {
+            return false;
+        }
+        
+        Hold hold = next.get(0);
+        LocalDateTime now = LocalDateTime.now();
+        hold.setStatus(Hold.HoldStatus.READY);
+        hold.setReadyAt(now);
+        hold.setExpiresAt(now.plusHours(pickupHours));
+        holdRepository.save(hold);
+        eventPublisher.publishEvent(new HoldChangedEvent(hold));
+        return true;
+    }
+    
+    /**
+     * Hands a copy coming back to the library to the first waiting hold, or puts it back on
+     * the shelf when nobody is waiting. The book is locked before the holds are read, as
+     * {@link #placeHold} does, so a hold placed meanwhile is not passed over.
+     */
+    public void returnCopy(Long bookId) {
+        bookService.lockBooks(List.of(bookId));
+        if (!allocate(bookId) && hotTitleLedger.release(bookId) == HotTitleLedger.Result.NOT_HOT) {
+            bookService.returnBook(bookId);
+        }
+    }
+    
+    /**
+     * Locks the ready holds of a user on the given books and returns their book ids.
+     */
+    public Set<Long> findReadyBookIds(Long userId, Collection<Long> bookIds) {
+        Set<Long> ready = new HashSet<>();
+        for (Hold hold : holdRepository.findReadyForUpdate(userId, bookIds)) {
+            ready.add(hold.getBook().getId());
+        }
+        return ready;
+    }
+    
+    /**
+     * Marks the ready holds of a user on the given books as collected. Returns the ids of the
+     * books whose copy was set aside for the user, which must not be taken from the shelf
+     * again.
+     */
+    public Set<Long> collect(Long userId, Collection<Long> bookIds) {
+        Set<Long> collected = new HashSet<>();
+        for (Hold hold : holdRepository.findReadyForUpdate(userId, bookIds)) {
+            hold.setStatus(Hold.HoldStatus.FULFILLED);
+            holdRepository.save(hold);
+            eventPublisher.publishEvent(new HoldChangedEvent(hold));
+            collected.add(hold.getBook().getId());
+        }
+        return collected;
+    }
+    
+    /**
+     * Expires the ready holds whose pickup window has passed and passes their copies on.
+     */
+    @Scheduled(fixedDelayString = "${library.holds.expiry-check-interval-ms:60000}")
+    public void expireHolds() {
+        for (Hold hold : holdRepository.findExpiredForUpdate(LocalDateTime.now(),
+                PageRequest.of(0, EXPIRY_BATCH_SIZE))) {
+            hold.setStatus(Hold.HoldStatus.EXPIRED);
+            holdRepository.save(hold);
+            eventPublisher.publishEvent(new HoldChangedEvent(hold));
+            returnCopy(hold.getBook().getId());
+        }
+    }
+    
+    @Transactional(readOnly = true)
+    public List<HoldDto> findActiveHolds(Long userId) {
+        return holdRepository.findActiveHoldsByUser(userId).stream()
+                .map(this::describe)
+                .toList();
+    }
+    
+    /**
+     * The hold with its queue position, read from memory. Call after the transaction that
+     * changed the hold has committed.
+     */
+    public HoldDto describe(Hold hold) {
+        Long bookId = hold.getBook().getId();
+        return new HoldDto(hold, holdQueues.position(bookId, hold.getId()), holdQueues.length(bookId));
+    }
+}
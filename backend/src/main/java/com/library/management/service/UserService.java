@@ -1,10 +1,17 @@
 package com.library.management.service;
 
 import com.library.management.entity.User;
+import com.library.management.pagination.ApproximateCounter;
+import com.library.management.pagination.CursorCodec;
 import com.library.management.repository.UserRepository;
+import com.library.management.repository.UserSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -13,17 +20,24 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
 public class UserService implements UserDetailsService {
     
+    private static final Set<String> KEYSET_SORTABLE = Set.of(
+            "id", "username", "email", "firstName", "lastName", "role", "createdAt", "updatedAt");
+    
     @Autowired
     private UserRepository userRepository;
     
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private ApproximateCounter approximateCounter;
+    
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         return userRepository.findByUsername(username)
@@ -109,6 +123,49 @@ public class UserService implements UserDetailsService {
         return userRepository.findByEnabledTrue(pageable);
     }
     
+    /**
+     * Count-free variant of the user listing, with the same filter precedence as the paged
+     * listing: search, then role, then enabled.
+     */
+    public Slice<User> findUserSlice(String search, User.Role role, Boolean enabled, Pageable pageable) {
+        if (search != null) {
+            return userRepository.findSliceBySearchTerm(search, pageable);
+        }
+        if (role != null) {
+            return userRepository.findSliceByRole(role, pageable);
+        }
+        if (enabled != null && enabled) {
+            return userRepository.findSliceByEnabledTrue(pageable);
+        }
+        return userRepository.findAllSlice(pageable);
+    }
+    
+    // Searches get no estimate: a count per search text would never be reused
+    public Long approximateUserCount(String search, User.Role role, Boolean enabled) {
+        if (search != null) {
+            return null;
+        }
+        if (role != null) {
+            return approximateCounter.estimate("users:role:" + role, () -> userRepository.countByRole(role));
+        }
+        if (enabled != null && enabled) {
+            return approximateCounter.estimate("users:enabled", userRepository::countByEnabledTrue);
+        }
+        return approximateCounter.estimateTable("users", userRepository::count);
+    }
+    
+    /**
+     * Keyset pagination over users, with the same filter precedence as the paged listing:
+     * search, then role, then enabled.
+     */
+    @Transactional(readOnly = true)
+    public Window<User> scrollUsers(String search, User.Role role, Boolean enabled,
+                                    Sort sort, ScrollPosition position, int size) {
+        CursorCodec.requireSortable(sort, KEYSET_SORTABLE);
+        return userRepository.findBy(UserSpecifications.matching(search, role, enabled),
+                query -> query.sortBy(sort).limit(size).scroll(position));
+    }
+    
     public long getTotalUserCount() {
         return userRepository.count();
     }
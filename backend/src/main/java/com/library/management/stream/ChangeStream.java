@@ -0,0 +1,439 @@
+package com.library.management.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.management.event.BookChangedEvent;
+import com.library.management.event.BookSnapshot;
+import com.library.management.event.BorrowStatusChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans committed book availability and borrow status changes out to Server-Sent Events
+ * subscribers, so open pages can patch their state instead of re-fetching.
+ * <p>
+ * A subscriber is an async {@link SseEmitter}; an idle one holds a socket but no thread. One
+ * dispatcher thread owns the subscribers: it renders each change once, then queues for every
+ * subscriber all the frames it may see from one drain of the inbox, to be sent as a single
+ * write and flush. The writes run on a pool of {@code library.changes.writer-threads}, at most
+ * one at a time per subscriber, so a slow client never holds up the dispatcher or the others.
+ * A subscriber with {@code library.changes.subscriber-queue-size} writes still queued is cut
+ * off and reconnects. Borrow frames only go to the borrower and to staff. The last
+ * {@code library.changes.replay-size} frames are kept so a client reconnecting with
+ * {@code Last-Event-ID} misses nothing; one that fell further behind, or connected to an
+ * earlier run, gets a {@code reset} frame and reloads.
+ */
+@Component
+public class ChangeStream {
+    
+    private static final Logger log = LoggerFactory.getLogger(ChangeStream.class);
+    
+    private static final MediaType TEXT_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+    private static final Object HEARTBEAT = new Object();
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${library.changes.replay-size:1024}")
+    private int replaySize;
+    
+    @Value("${library.changes.timeout-ms:1800000}")
+    private long timeoutMillis;
+    
+    @Value("${library.changes.max-subscribers:10000}")
+    private int maxSubscribers;
+    
+    @Value("${library.changes.retry-ms:3000}")
+    private long retryMillis;
+    
+    @Value("${library.changes.writer-threads:4}")
+    private int writerThreads;
+    
+    @Value("${library.changes.subscriber-queue-size:64}")
+    private int queueSize;
+    
+    // Event ids are "<run>-<sequence>", so an id from before a restart is never mistaken for a
+    // current one
+    private final String run = Long.toString(System.currentTimeMillis(), 36);
+    private final BlockingQueue<Object> inbox = new LinkedBlockingQueue<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private Thread dispatcher;
+    private ExecutorService writers;
+    private volatile boolean running = true;
+    
+    // Only touched by the dispatcher thread
+    private final Set<Subscriber> subscribers = new LinkedHashSet<>();
+    private final ArrayDeque<Frame> recent = new ArrayDeque<>();
+    private long sequence;
+    
+    @PostConstruct
+    public void start() {
+        AtomicInteger threads = new AtomicInteger();
+        writers = Executors.newFixedThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "change-stream-writer-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatcher = new Thread(this::dispatch, "change-stream");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        dispatcher.interrupt();
+        dispatcher.join(1000);
+        writers.shutdown();
+    }
+    
+    /**
+     * Opens a stream for a user. {@code lastEventId} is the id of the last frame the client
+     * saw, if it is reconnecting.
+     */
+    public SseEmitter subscribe(Long userId, boolean staff, String lastEventId) {
+        if (open.incrementAndGet() > maxSubscribers) {
+            open.decrementAndGet();
+            throw new RuntimeException("Too many open change streams, please try again later");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, userId, staff);
+        // The client reconnects on its own, so a timed-out stream just ends
+        emitter.onTimeout(emitter::complete);
+        emitter.onCompletion(() -> inbox.add(new Leave(subscriber)));
+        inbox.add(new Join(subscriber, lastEventId));
+        return emitter;
+    }
+    
+    public int subscriberCount() {
+        return open.get();
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        BookSnapshot previous = event.getPrevious();
+        BookSnapshot current = event.getCurrent();
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", event.getBookId());
+        if (current == null) {
+            data.put("deleted", true);
+        } else if (previous != null && previous.getAvailableCopies() == current.getAvailableCopies()
+                && previous.getTotalCopies() == current.getTotalCopies()) {
+            // Catalog edits are not streamed
+            return;
+        } else {
+            data.put("availableCopies", current.getAvailableCopies());
+            data.put("totalCopies", current.getTotalCopies());
+        }
+        publish("book", data, null);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBorrowStatusChanged(BorrowStatusChangedEvent event) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", event.getRecordId());
+        data.put("userId", event.getUserId());
+        data.put("bookId", event.getBookId());
+        data.put("previousStatus", event.getPreviousStatus());
+        data.put("status", event.getStatus());
+        publish("borrow", data, event.getUserId());
+    }
+    
+    /**
+     * Keeps idle connections alive through proxies and finds the ones whose client is gone.
+     */
+    @Scheduled(fixedDelayString = "${library.changes.heartbeat-interval-ms:20000}")
+    public void heartbeat() {
+        if (open.get() > 0) {
+            inbox.add(HEARTBEAT);
+        }
+    }
+    
+    private void publish(String name, Map<String, Object> data, Long userId) {
+        try {
+            inbox.add(new Change(name, objectMapper.writeValueAsString(data), userId));
+        } catch (JsonProcessingException e) {
+            log.warn("Could not render {} change: {}", name, e.getMessage());
+        }
+    }
+    
+    private void dispatch() {
+        List<Object> batch = new ArrayList<>();
+        List<Frame> frames = new ArrayList<>();
+        while (running) {
+            try {
+                batch.add(inbox.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            inbox.drainTo(batch);
+            boolean heartbeat = false;
+            for (Object item : batch) {
+                if (item instanceof Change change) {
+                    frames.add(record(change));
+                } else if (item instanceof Join join) {
+                    // Frames before the join reach the newcomer through its replay, not twice
+                    deliver(frames, false);
+                    frames.clear();
+                    join(join);
+                } else if (item instanceof Leave leave) {
+                    drop(leave.subscriber);
+                } else if (item == HEARTBEAT) {
+                    heartbeat = true;
+                }
+            }
+            deliver(frames, heartbeat);
+            frames.clear();
+            batch.clear();
+        }
+        for (Subscriber subscriber : subscribers) {
+            close(subscriber);
+        }
+        subscribers.clear();
+    }
+    
+    private Frame record(Change change) {
+        String id = run + "-" + (++sequence);
+        Frame frame = new Frame(sequence, change.userId, new DataWithMediaType(
+                "id:" + id + "\nevent:" + change.name + "\ndata:" + change.json + "\n\n", TEXT_UTF8));
+        recent.addLast(frame);
+        if (recent.size() > replaySize) {
+            recent.removeFirst();
+        }
+        return frame;
+    }
+    
+    private void join(Join join) {
+        Subscriber subscriber = join.subscriber;
+        Set<DataWithMediaType> items = new LinkedHashSet<>();
+        items.add(new DataWithMediaType("retry:" + retryMillis + "\n\n", TEXT_UTF8));
+        Long seen = lastSequence(join.lastEventId);
+        if (join.lastEventId != null) {
+            long oldest = recent.isEmpty() ? sequence + 1 : recent.peekFirst().sequence;
+            if (seen == null || seen < oldest - 1 || seen > sequence) {
+                items.add(new DataWithMediaType("id:" + run + "-" + sequence + "\nevent:reset\ndata:{}\n\n",
+                        TEXT_UTF8));
+            } else {
+                for (Frame frame : recent) {
+                    if (frame.sequence > seen && subscriber.canSee(frame)) {
+                        items.add(frame.data);
+                    }
+                }
+            }
+        }
+        subscribers.add(subscriber);
+        send(subscriber, items);
+    }
+    
+    private void deliver(List<Frame> frames, boolean heartbeat) {
+        if (frames.isEmpty() && !heartbeat) {
+            return;
+        }
+        DataWithMediaType comment = heartbeat ? new DataWithMediaType(":\n\n", TEXT_UTF8) : null;
+        for (Subscriber subscriber : new ArrayList<>(subscribers)) {
+            Set<DataWithMediaType> items = new LinkedHashSet<>();
+            for (Frame frame : frames) {
+                if (subscriber.canSee(frame)) {
+                    items.add(frame.data);
+                }
+            }
+            if (items.isEmpty() && comment != null) {
+                items.add(comment);
+            }
+            if (!items.isEmpty()) {
+                send(subscriber, items);
+            }
+        }
+    }
+    
+    private void send(Subscriber subscriber, Set<DataWithMediaType> items) {
+        boolean start = false;
+        boolean overflow = false;
+        synchronized (subscriber) {
+            if (subscriber.closing) {
+                return;
+            }
+            if (subscriber.pending.size() >= queueSize) {
+                overflow = true;
+            } else {
+                subscriber.pending.addLast(items);
+                start = !subscriber.writing;
+                subscriber.writing = true;
+            }
+        }
+        if (overflow) {
+            // Too far behind: the client reconnects with its Last-Event-ID and catches up from
+            // the replay frames, or is told to reset
+            log.debug("Change stream of user {} fell {} writes behind, closing it", subscriber.userId, queueSize);
+            close(subscriber);
+            drop(subscriber);
+        } else if (start) {
+            writers.execute(() -> write(subscriber));
+        }
+    }
+    
+    // Ends the stream once the write in progress, if any, is done; queued writes are discarded
+    private void close(Subscriber subscriber) {
+        boolean start;
+        synchronized (subscriber) {
+            subscriber.pending.clear();
+            subscriber.closing = true;
+            start = !subscriber.writing;
+            subscriber.writing = true;
+        }
+        if (start) {
+            writers.execute(() -> write(subscriber));
+        }
+    }
+    
+    // Runs on a writer thread until the subscriber's queue is empty
+    private void write(Subscriber subscriber) {
+        while (true) {
+            Set<DataWithMediaType> items;
+            boolean closing;
+            synchronized (subscriber) {
+                items = subscriber.pending.pollFirst();
+                closing = subscriber.closing;
+                if (items == null) {
+                    subscriber.writing = false;
+                }
+            }
+            try {
+                if (items != null) {
+                    subscriber.emitter.send(items);
+                } else {
+                    if (closing) {
+                        subscriber.emitter.complete();
+                    }
+                    return;
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client is gone; the container completes the emitter on its own
+                synchronized (subscriber) {
+                    subscriber.pending.clear();
+                    subscriber.closing = true;
+                    subscriber.writing = false;
+                }
+                inbox.add(new Leave(subscriber));
+                return;
+            }
+        }
+    }
+    
+    private void drop(Subscriber subscriber) {
+        if (!subscriber.gone) {
+            subscriber.gone = true;
+            subscribers.remove(subscriber);
+            open.decrementAndGet();
+        }
+    }
+    
+    private Long lastSequence(String lastEventId) {
+        if (lastEventId == null || !lastEventId.startsWith(run + "-")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(run.length() + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    private static class Change {
+        
+        private final String name;
+        private final String json;
+        private final Long userId;
+        
+        Change(String name, String json, Long userId) {
+            this.name = name;
+            this.json = json;
+            this.userId = userId;
+        }
+    }
+    
+    private static class Join {
+        
+        private final Subscriber subscriber;
+        private final String lastEventId;
+        
+        Join(Subscriber subscriber, String lastEventId) {
+            this.subscriber = subscriber;
+            this.lastEventId = lastEventId;
+        }
+    }
+    
+    private static class Leave {
+        
+        private final Subscriber subscriber;
+        
+        Leave(Subscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+    }
+    
+    /**
+     * One change rendered as a complete SSE frame, shared by every subscriber that gets it.
+     */
+    private static class Frame {
+        
+        private final long sequence;
+        private final Long userId;
+        private final DataWithMediaType data;
+        
+        Frame(long sequence, Long userId, DataWithMediaType data) {
+            this.sequence = sequence;
+            this.userId = userId;
+            this.data = data;
+        }
+    }
+    
+    private static class Subscriber {
+        
+        private final SseEmitter emitter;
+        private final Long userId;
+        private final boolean staff;
+        // Only touched by the dispatcher thread
+        private boolean gone;
+        // Guarded by the subscriber itself: frames waiting for a writer, whether a writer is
+        // on them, and whether the stream ends once they are written
+        private final ArrayDeque<Set<DataWithMediaType>> pending = new ArrayDeque<>();
+        private boolean writing;
+        private boolean closing;
+        
+        Subscriber(SseEmitter emitter, Long userId, boolean staff) {
+            this.emitter = emitter;
+            this.userId = userId;
+            this.staff = staff;
+        }
+        
+        boolean canSee(Frame frame) {
+            return frame.userId == null || staff || frame.userId.equals(userId);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.library.management.transfer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 reader: one record at a time, quoted fields may contain separators,
+ * doubled quotes and line breaks. Only the current record is held in memory.
+ */
+public class CsvReader implements Closeable {
+    
+    private final Reader reader;
+    private int line = 1;
+    private int recordLine;
+    private int pushback = -2;
+    
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+    
+    /**
+     * Returns the fields of the next record, or null at the end of the input. Blank lines
+     * are skipped.
+     */
+    public List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean afterQuote = false;
+        recordLine = line;
+        int c;
+        while ((c = read()) != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        afterQuote = true;
+                        unread(next);
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0 && !afterQuote) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                afterQuote = false;
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') {
+                        unread(next);
+                    }
+                }
+                line++;
+                if (fields.isEmpty() && field.length() == 0 && !afterQuote) {
+                    recordLine = line;
+                    continue;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+        if (quoted) {
+            throw new IOException("Unterminated quoted field starting on line " + recordLine);
+        }
+        if (fields.isEmpty() && field.length() == 0 && !afterQuote) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+    
+    /**
+     * Line on which the record last returned by {@link #next()} started, counting from 1.
+     */
+    public int getRecordLine() {
+        return recordLine;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+    
+    private int read() throws IOException {
+        if (pushback != -2) {
+            int c = pushback;
+            pushback = -2;
+            return c;
+        }
+        return reader.read();
+    }
+    
+    private void unread(int c) {
+        pushback = c;
+    }
+}
@@ -0,0 +1,109 @@
+package com.library.management.transfer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes export rows one at a time: CSV with a header row naming the columns, or NDJSON
+ * with one object per line keyed by the same names. Both read back through
+ * {@link ImportRowReader}. Output is buffered and flushed every {@value #FLUSH_EVERY} rows,
+ * so the client receives data while the export is still running.
+ */
+public abstract class ExportWriter<T> implements Flushable {
+    
+    private static final int FLUSH_EVERY = 500;
+    
+    protected final List<ExportColumn<T>> columns;
+    protected final Writer writer;
+    private long rows;
+    
+    private ExportWriter(List<ExportColumn<T>> columns, OutputStream output) {
+        this.columns = columns;
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+    }
+    
+    public static <T> ExportWriter<T> open(TransferFormat format, List<ExportColumn<T>> columns,
+                                           OutputStream output, ObjectMapper objectMapper) throws IOException {
+        return format == TransferFormat.CSV ? new Csv<>(columns, output) : new Ndjson<>(columns, output, objectMapper);
+    }
+    
+    public void write(T row) throws IOException {
+        writeRow(row);
+        if (++rows % FLUSH_EVERY == 0) {
+            writer.flush();
+        }
+    }
+    
+    public long getRows() {
+        return rows;
+    }
+    
+    protected abstract void writeRow(T row) throws IOException;
+    
+    /**
+     * Writes out whatever is buffered. The output stream belongs to the caller and stays open.
+     */
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+    
+    private static final class Csv<T> extends ExportWriter<T> {
+        private final CsvWriter csv;
+        private final List<String> fields;
+        
+        private Csv(List<ExportColumn<T>> columns, OutputStream output) throws IOException {
+            super(columns, output);
+            this.csv = new CsvWriter(writer);
+            this.fields = new ArrayList<>(columns.size());
+            for (ExportColumn<T> column : columns) {
+                fields.add(column.getName());
+            }
+            csv.writeRecord(fields);
+        }
+        
+        @Override
+        protected void writeRow(T row) throws IOException {
+            fields.clear();
+            for (ExportColumn<T> column : columns) {
+                Object value = column.valueOf(row);
+                fields.add(value != null ? value.toString() : null);
+            }
+            csv.writeRecord(fields);
+        }
+    }
+    
+    private static final class Ndjson<T> extends ExportWriter<T> {
+        private final ObjectMapper objectMapper;
+        private final Map<String, Object> fields;
+        
+        private Ndjson(List<ExportColumn<T>> columns, OutputStream output, ObjectMapper objectMapper) {
+            super(columns, output);
+            // The writer is shared across rows, so Jackson must not close it after each one
+            this.objectMapper = objectMapper.copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.fields = new LinkedHashMap<>();
+        }
+        
+        @Override
+        protected void writeRow(T row) throws IOException {
+            fields.clear();
+            for (ExportColumn<T> column : columns) {
+                fields.put(column.getName(), column.valueOf(row));
+            }
+            objectMapper.writeValue(writer, fields);
+            writer.write('\n');
+        }
+    }
+}
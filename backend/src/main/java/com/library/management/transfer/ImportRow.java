@@ -0,0 +1,47 @@
+package com.library.management.transfer;
+
+import java.util.Map;
+
+/**
+ * One record of an import file: its fields keyed by normalized column name (lower case,
+ * no separators, so {@code publicationDate}, {@code publication_date} and
+ * {@code Publication Date} are the same column), or the reason it could not be parsed.
+ */
+public class ImportRow {
+    
+    private final int line;
+    private final Map<String, String> fields;
+    private final String error;
+    
+    private ImportRow(int line, Map<String, String> fields, String error) {
+        this.line = line;
+        this.fields = fields;
+        this.error = error;
+    }
+    
+    public static ImportRow of(int line, Map<String, String> fields) {
+        return new ImportRow(line, fields, null);
+    }
+    
+    public static ImportRow invalid(int line, String error) {
+        return new ImportRow(line, null, error);
+    }
+    
+    public static String normalize(String column) {
+        return column.replaceAll("[\\s_\\-]", "").toLowerCase();
+    }
+    
+    public int getLine() { return line; }
+    
+    public String getError() { return error; }
+    
+    public boolean isValid() { return error == null; }
+    
+    /**
+     * The trimmed value of {@code column}, or null when it is missing or blank.
+     */
+    public String get(String column) {
+        String value = fields.get(normalize(column));
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
@@ -0,0 +1,114 @@
+package com.library.management.transfer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads an import file one {@link ImportRow} at a time. CSV files start with a header row
+ * naming the columns; NDJSON files hold one JSON object per line. A malformed record becomes
+ * an invalid row and reading carries on with the next one.
+ */
+public abstract class ImportRowReader implements Closeable {
+    
+    public static ImportRowReader open(TransferFormat format, BufferedReader reader, ObjectMapper objectMapper) {
+        return format == TransferFormat.CSV ? new Csv(reader) : new Ndjson(reader, objectMapper);
+    }
+    
+    /**
+     * Returns the next row, or null at the end of the input.
+     */
+    public abstract ImportRow next() throws IOException;
+    
+    private static final class Csv extends ImportRowReader {
+        private final CsvReader csv;
+        private List<String> header;
+        
+        private Csv(BufferedReader reader) {
+            this.csv = new CsvReader(reader);
+        }
+        
+        @Override
+        public ImportRow next() throws IOException {
+            if (header == null) {
+                header = csv.next();
+                if (header == null) {
+                    return null;
+                }
+                header.replaceAll(ImportRow::normalize);
+            }
+            List<String> values = csv.next();
+            if (values == null) {
+                return null;
+            }
+            if (values.size() != header.size()) {
+                return ImportRow.invalid(csv.getRecordLine(),
+                        "Expected " + header.size() + " columns but found " + values.size());
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < values.size(); i++) {
+                fields.put(header.get(i), values.get(i));
+            }
+            return ImportRow.of(csv.getRecordLine(), fields);
+        }
+        
+        @Override
+        public void close() throws IOException {
+            csv.close();
+        }
+    }
+    
+    private static final class Ndjson extends ImportRowReader {
+        private final BufferedReader reader;
+        private final ObjectMapper objectMapper;
+        private int line;
+        
+        private Ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+            this.reader = reader;
+            this.objectMapper = objectMapper;
+        }
+        
+        @Override
+        public ImportRow next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                line++;
+            } while (text != null && text.isBlank());
+            if (text == null) {
+                return null;
+            }
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(text);
+            } catch (JsonProcessingException e) {
+                return ImportRow.invalid(line, "Invalid JSON: " + e.getOriginalMessage());
+            }
+            if (!node.isObject()) {
+                return ImportRow.invalid(line, "Expected a JSON object");
+            }
+            Map<String, String> fields = new HashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> it = node.fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> field = it.next();
+                if (!field.getValue().isNull()) {
+                    fields.put(ImportRow.normalize(field.getKey()), field.getValue().asText());
+                }
+            }
+            return ImportRow.of(line, fields);
+        }
+        
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
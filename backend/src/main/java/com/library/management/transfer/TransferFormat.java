@@ -0,0 +1,39 @@
+package com.library.management.transfer;
+
+import org.springframework.http.MediaType;
+
+/**
+ * File formats accepted by the bulk import and produced by the exports.
+ */
+public enum TransferFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+    
+    private final MediaType mediaType;
+    private final String extension;
+    
+    TransferFormat(String mediaType, String extension) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+        this.extension = extension;
+    }
+    
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+    
+    public String getExtension() {
+        return extension;
+    }
+    
+    /**
+     * Parses a {@code format} request parameter, ignoring case.
+     */
+    public static TransferFormat of(String name) {
+        for (TransferFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(name.trim())) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported format: " + name);
+    }
+}
@@ -0,0 +1,91 @@
+package com.library.management;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the SQL of every statement the current thread prepares or executes while
+ * {@link #record} runs, whether it comes from Hibernate or a {@code JdbcTemplate}. Statements
+ * of scheduled jobs running on other threads are left out.
+ * <p>
+ * Picked up by the application's component scan, so every test context wraps its
+ * {@link DataSource} the same way and they can all share one context.
+ */
+@Component
+public class StatementCounter implements BeanPostProcessor {
+    
+    private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+    
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+    
+    /**
+     * Runs {@code action} and returns the statements it issued, in order.
+     */
+    public static List<String> record(Action action) throws Exception {
+        List<String> statements = new ArrayList<>();
+        RECORDED.set(statements);
+        try {
+            action.run();
+        } finally {
+            RECORDED.remove();
+        }
+        return statements;
+    }
+    
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return proxy(DataSource.class, dataSource, (method, args) -> {
+                if (method.getName().equals("getConnection")) {
+                    return proxy(Connection.class, (Connection) method.invoke(dataSource, args), null);
+                }
+                return method.invoke(dataSource, args);
+            });
+        }
+        return bean;
+    }
+    
+    private static <T> T proxy(Class<T> type, T target, Handler handler) {
+        InvocationHandler invocationHandler = (instance, method, args) -> {
+            try {
+                if (handler != null) {
+                    return handler.invoke(method, args);
+                }
+                Object result = method.invoke(target, args);
+                String name = method.getName();
+                if ((name.startsWith("prepare") || name.startsWith("execute"))
+                        && args != null && args.length > 0 && args[0] instanceof String sql) {
+                    List<String> statements = RECORDED.get();
+                    if (statements != null) {
+                        statements.add(sql);
+                    }
+                }
+                if (result instanceof Statement statement && !(result instanceof java.sql.PreparedStatement)) {
+                    return proxy(Statement.class, statement, null);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, invocationHandler));
+    }
+    
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+}
@@ -0,0 +1,113 @@
+package com.library.management.circulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the wheel against a brute-force model: a map of deadlines, each due once the clock
+ * has left its tick. Random wheel shapes and operation mixes cover cascading across several
+ * levels, clock jumps longer than a rotation and deadlines that have already passed.
+ */
+class TimingWheelTest {
+    
+    private static final int SHAPES = 200;
+    private static final int OPERATIONS = 3000;
+    private static final int KEYS = 64;
+    
+    @Test
+    void matchesBruteForceModel() {
+        for (int shape = 0; shape < SHAPES; shape++) {
+            Random random = new Random(shape);
+            long tickMs = 1 + random.nextInt(50);
+            int wheelSize = 2 + random.nextInt(15);
+            long startMs = random.nextInt(1_000_000);
+            check(shape, random, tickMs, wheelSize, startMs);
+        }
+    }
+    
+    private static void check(int shape, Random random, long tickMs, int wheelSize, long startMs) {
+        TimingWheel<Integer> wheel = new TimingWheel<>(tickMs, wheelSize, startMs);
+        Map<Integer, Long> model = new HashMap<>();
+        long rotation = tickMs * wheelSize;
+        long clock = startMs;
+        
+        for (int op = 0; op < OPERATIONS; op++) {
+            String where = "shape " + shape + " (tick " + tickMs + ", size " + wheelSize + ", start "
+                    + startMs + ") operation " + op;
+            int key = random.nextInt(KEYS);
+            int kind = random.nextInt(10);
+            if (kind < 5) {
+                long deadline = deadline(random, clock, rotation, wheelSize);
+                wheel.schedule(key, deadline);
+                model.put(key, deadline);
+            } else if (kind < 7) {
+                assertEquals(model.remove(key) != null, wheel.cancel(key), where + ": cancel " + key);
+            } else {
+                long target = Math.max(0, clock + jump(random, tickMs, rotation, wheelSize));
+                List<Integer> due = wheel.advance(target);
+                clock = Math.max(clock, target);
+                Set<Integer> expected = takeDue(model, clock, tickMs);
+                assertEquals(due.size(), new HashSet<>(due).size(), where + ": " + due + " repeats a key");
+                assertEquals(expected, new HashSet<>(due), where + ": advance to " + target);
+            }
+            assertEquals(model.size(), wheel.size(), where + ": size");
+        }
+    }
+    
+    private static long deadline(Random random, long clock, long rotation, int wheelSize) {
+        switch (random.nextInt(4)) {
+            case 0:
+                // Already passed
+                return Math.max(0, clock - random.nextInt((int) rotation * 2 + 1));
+            case 1:
+                // Within the first level
+                return clock + random.nextInt((int) rotation);
+            case 2:
+                // One or two levels up
+                return clock + (long) (random.nextDouble() * rotation * wheelSize * wheelSize);
+            default:
+                // Far enough out to need several cascades
+                return clock + (long) (random.nextDouble() * rotation * Math.pow(wheelSize, 4));
+        }
+    }
+    
+    private static long jump(Random random, long tickMs, long rotation, int wheelSize) {
+        switch (random.nextInt(5)) {
+            case 0:
+                // Same tick or back in time, which must not move the clock
+                return random.nextInt((int) tickMs * 2 + 1) - tickMs;
+            case 1:
+            case 2:
+                return random.nextInt((int) tickMs * 3 + 1);
+            case 3:
+                // More than a whole rotation of the first level
+                return rotation + random.nextInt((int) rotation * 3 + 1);
+            default:
+                // Past several rotations of the second level
+                return (long) (random.nextDouble() * rotation * wheelSize * wheelSize * 3);
+        }
+    }
+    
+    // A deadline is due once the clock is past the end of its tick
+    private static Set<Integer> takeDue(Map<Integer, Long> model, long clock, long tickMs) {
+        Set<Integer> due = new HashSet<>();
+        Iterator<Map.Entry<Integer, Long>> it = model.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Long> entry = it.next();
+            if (entry.getValue() / tickMs < clock / tickMs) {
+                due.add(entry.getKey());
+                it.remove();
+            }
+        }
+        return due;
+    }
+}
@@ -0,0 +1,200 @@
+package com.library.management.controller;
+
+import com.library.management.StatementCounter;
+import com.library.management.entity.Book;
+import com.library.management.entity.BorrowRecord;
+import com.library.management.entity.BorrowRecordHistory;
+import com.library.management.entity.User;
+import com.library.management.repository.BookRepository;
+import com.library.management.repository.BorrowRecordHistoryRepository;
+import com.library.management.repository.BorrowRecordRepository;
+import com.library.management.repository.UserRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Every borrow record listing loads its rows, with their user and book, in one statement,
+ * however many rows it returns; an exact page adds only its count. No user is loaded on its
+ * own and no password reaches the JSON.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BorrowListingQueryTest {
+    
+    private static final Pattern COUNT = Pattern.compile("^\\s*select\\s+count\\(", Pattern.CASE_INSENSITIVE);
+    private static final Pattern READS_USERS = Pattern.compile("\\busers\\b", Pattern.CASE_INSENSITIVE);
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+    
+    @Autowired
+    private BorrowRecordHistoryRepository historyRepository;
+    
+    private User librarian;
+    private User borrower;
+    
+    @BeforeAll
+    void seed() {
+        String suffix = Long.toString(System.nanoTime(), 36);
+        librarian = userRepository.save(newUser("librarian-" + suffix, User.Role.LIBRARIAN));
+        borrower = userRepository.save(newUser("borrower-" + suffix, User.Role.STUDENT));
+        
+        LocalDate today = LocalDate.now();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            books.add(bookRepository.save(book(suffix, i)));
+        }
+        for (int i = 0; i < 12; i++) {
+            BorrowRecord record = new BorrowRecord();
+            record.setUser(borrower);
+            record.setBook(books.get(i));
+            record.setBorrowDate(today.minusDays(20));
+            if (i < 4) {
+                record.setDueDate(today.plusDays(2));
+            } else if (i < 8) {
+                record.setDueDate(today.minusDays(5));
+                record.setStatus(BorrowRecord.BorrowStatus.OVERDUE);
+            } else {
+                record.setDueDate(today.minusDays(6));
+                record.setReturnDate(today.minusDays(7));
+                record.setStatus(BorrowRecord.BorrowStatus.RETURNED);
+            }
+            borrowRecordRepository.save(record);
+        }
+        for (int i = 0; i < 3; i++) {
+            BorrowRecordHistory archived = new BorrowRecordHistory();
+            archived.setId(900_000_000L + borrower.getId() * 10 + i);
+            archived.setUserId(borrower.getId());
+            archived.setBookId(books.get(i).getId());
+            archived.setBorrowDate(today.minusYears(1));
+            archived.setDueDate(today.minusYears(1).plusDays(14));
+            archived.setReturnDate(today.minusYears(1).plusDays(10));
+            archived.setStatus(BorrowRecord.BorrowStatus.RETURNED);
+            archived.setCreatedAt(LocalDateTime.now().minusYears(1));
+            archived.setUpdatedAt(LocalDateTime.now().minusYears(1));
+            archived.setArchivedAt(LocalDateTime.now());
+            historyRepository.save(archived);
+        }
+    }
+    
+    @Test
+    void staffListing() throws Exception {
+        assertOneListingStatement(requestAs(librarian, "/api/borrows?size=10"));
+    }
+    
+    @Test
+    void staffListingByStatus() throws Exception {
+        assertOneListingStatement(requestAs(librarian, "/api/borrows?size=10&status=OVERDUE"));
+    }
+    
+    @Test
+    void myBooks() throws Exception {
+        assertOneListingStatement(requestAs(borrower, "/api/borrows/my-books?size=20"));
+    }
+    
+    @Test
+    void overdue() throws Exception {
+        assertOneListingStatement(requestAs(librarian, "/api/borrows/overdue"));
+    }
+    
+    @Test
+    void dueSoon() throws Exception {
+        assertOneListingStatement(requestAs(librarian, "/api/borrows/due-soon?days=7"));
+    }
+    
+    @Test
+    void dashboardRecentActivity() throws Exception {
+        List<String> statements = requestAs(librarian, "/api/dashboard/stats");
+        // recentActivity, dueSoon and overdueRecords, one statement each
+        List<String> borrowListings = listings(statements).stream()
+                .filter(sql -> sql.toLowerCase().contains("borrow_records"))
+                .toList();
+        assertEquals(3, borrowListings.size(), () -> "statements: " + statements);
+        assertNoUserLoadedAlone(statements);
+    }
+    
+    private List<String> requestAs(User user, String url) throws Exception {
+        List<String> statements = StatementCounter.record(() -> {
+            String body = mockMvc.perform(get(url).with(user(user)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            assertFalse(body.toLowerCase().contains("password"), () -> url + " serialized a password: " + body);
+            assertTrue(body.contains(borrower.getEmail()), () -> url + " did not list the seeded records: " + body);
+        });
+        assertFalse(statements.isEmpty(), "no statements recorded for " + url);
+        return statements;
+    }
+    
+    private static void assertOneListingStatement(List<String> statements) {
+        assertEquals(1, listings(statements).size(), () -> "statements: " + statements);
+        assertNoUserLoadedAlone(statements);
+    }
+    
+    // A user's columns only ever arrive joined to the borrow records that name them
+    private static void assertNoUserLoadedAlone(List<String> statements) {
+        for (String sql : listings(statements)) {
+            if (READS_USERS.matcher(sql).find()) {
+                assertTrue(sql.toLowerCase().contains("borrow_record"), () -> "user loaded on its own: " + sql);
+            }
+        }
+    }
+    
+    private static List<String> listings(List<String> statements) {
+        return statements.stream().filter(sql -> !COUNT.matcher(sql).find()).toList();
+    }
+    
+    private static User newUser(String username, User.Role role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.org");
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3xE1qzQ3FZ0LwY1rL8F4x2e");
+        user.setFirstName("Test");
+        user.setLastName(role.name());
+        user.setPhoneNumber("555-0100");
+        user.setRole(role);
+        return user;
+    }
+    
+    private static Book book(String suffix, int i) {
+        Book book = new Book();
+        book.setTitle("Listing " + suffix + " " + i);
+        book.setAuthor("Query Counter");
+        book.setIsbn(String.format("%-9.9s%04d", suffix, i).replace(' ', '0'));
+        book.setPublisher("Test Press");
+        book.setPublicationDate(LocalDate.of(2001, 1, 1));
+        book.setCategory("Testing");
+        book.setTotalCopies(1);
+        book.setAvailableCopies(1);
+        return book;
+    }
+}
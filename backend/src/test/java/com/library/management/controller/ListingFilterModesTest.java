@@ -0,0 +1,128 @@
+package com.library.management.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.management.entity.Book;
+import com.library.management.entity.BorrowRecord;
+import com.library.management.entity.User;
+import com.library.management.repository.BookRepository;
+import com.library.management.repository.BorrowRecordRepository;
+import com.library.management.repository.UserRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The same filters select the same rows whether a listing is paged by offset, as a slice
+ * without a count or by cursor.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ListingFilterModesTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+    
+    private String suffix;
+    private User admin;
+    
+    @BeforeAll
+    void seed() {
+        suffix = Long.toString(System.nanoTime(), 36);
+        admin = userRepository.save(newUser("admin-" + suffix, User.Role.ADMIN, true));
+        User student = userRepository.save(newUser("student-" + suffix, User.Role.STUDENT, true));
+        userRepository.save(newUser("librarian-" + suffix, User.Role.LIBRARIAN, true));
+        userRepository.save(newUser("disabled-" + suffix, User.Role.STUDENT, false));
+        
+        Book book = new Book();
+        book.setTitle("Modes " + suffix);
+        book.setAuthor("Filter Tester");
+        book.setIsbn(String.format("%-13.13s", "M" + suffix).replace(' ', '0'));
+        book.setPublisher("Test Press");
+        book.setPublicationDate(LocalDate.of(2001, 1, 1));
+        book.setCategory("Testing");
+        book.setTotalCopies(2);
+        book.setAvailableCopies(2);
+        book = bookRepository.save(book);
+        for (BorrowRecord.BorrowStatus status : new BorrowRecord.BorrowStatus[] {
+                BorrowRecord.BorrowStatus.BORROWED, BorrowRecord.BorrowStatus.RETURNED}) {
+            BorrowRecord record = new BorrowRecord();
+            record.setUser(student);
+            record.setBook(book);
+            record.setBorrowDate(LocalDate.now().minusDays(3));
+            record.setDueDate(LocalDate.now().plusDays(11));
+            record.setStatus(status);
+            borrowRecordRepository.save(record);
+        }
+    }
+    
+    @Test
+    void usersBySearchRoleAndEnabled() throws Exception {
+        assertSameRowsInEveryMode("/api/admin/users?size=50&search=" + suffix + "&role=LIBRARIAN&enabled=false", 4);
+        assertSameRowsInEveryMode("/api/admin/users?size=50&search=" + suffix + "&enabled=false", 4);
+    }
+    
+    @Test
+    void borrowRecordsBySearchAndStatus() throws Exception {
+        assertSameRowsInEveryMode("/api/borrows?size=50&search=" + suffix + "&status=RETURNED", 2);
+    }
+    
+    private void assertSameRowsInEveryMode(String url, int expected) throws Exception {
+        Set<Long> paged = ids(url);
+        assertEquals(expected, paged.size(), () -> url + " returned " + paged);
+        assertEquals(paged, ids(url + "&count=none"), url + " as a slice");
+        assertEquals(paged, ids(url + "&after="), url + " by cursor");
+    }
+    
+    private Set<Long> ids(String url) throws Exception {
+        String body = mockMvc.perform(get(url).with(user(admin)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Set<Long> ids = new TreeSet<>();
+        for (JsonNode row : objectMapper.readTree(body).get("content")) {
+            ids.add(row.get("id").asLong());
+        }
+        return ids;
+    }
+    
+    private static User newUser(String username, User.Role role, boolean enabled) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.org");
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3xE1qzQ3FZ0LwY1rL8F4x2e");
+        user.setFirstName("Modes");
+        user.setLastName(role.name());
+        user.setPhoneNumber("555-0100");
+        user.setRole(role);
+        user.setEnabled(enabled);
+        return user;
+    }
+}
@@ -0,0 +1,157 @@
+package com.library.management.search;
+
+import com.library.management.dto.BookCardDto;
+import com.library.management.repository.BookRepository;
+import com.library.management.service.BookService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the trigram index with the JPQL {@code LIKE} query it replaced: both must find
+ * the same books, and the p50/p95/p99 of each path are written to the log.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SearchBenchmarkTest {
+    
+    private static final Logger log = LoggerFactory.getLogger(SearchBenchmarkTest.class);
+    
+    private static final int BOOKS = 20000;
+    private static final int ITERATIONS = 100;
+    private static final String ISBN_PREFIX = "97800";
+    private static final String[] WORDS = {
+            "river", "shadow", "garden", "empire", "winter", "silver", "harbor", "forest", "letters",
+            "mountain", "ocean", "history", "journey", "kingdom", "machine", "memory", "night", "paper",
+            "quantum", "secret", "stone", "thunder", "valley", "whisper", "yellow", "zenith"};
+    private static final String[] CATEGORIES = {"Fiction", "History", "Science", "Poetry", "Travel", "Biography"};
+    private static final String INSERT_SQL = "INSERT INTO books (title, author, isbn, publisher, publication_date, " +
+            "category, total_copies, available_copies, hot_title, rating, review_count, status, created_at, " +
+            "updated_at) VALUES (?, ?, ?, ?, ?, ?, 1, 1, false, 0, 0, 'AVAILABLE', ?, ?)";
+    
+    @Autowired
+    private BookService bookService;
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+    
+    @Autowired
+    private BookFacetIndex bookFacetIndex;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private List<String> terms;
+    
+    @BeforeAll
+    void seedCatalog() {
+        Random random = new Random(42);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Integer> rows = IntStream.range(0, BOOKS).boxed().toList();
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, 1000, (ps, i) -> {
+            ps.setString(1, word(random) + " " + word(random) + " " + word(random));
+            ps.setString(2, capitalize(word(random)) + " " + capitalize(word(random)));
+            ps.setString(3, ISBN_PREFIX + String.format("%08d", i));
+            ps.setString(4, "Benchmark Press");
+            ps.setDate(5, Date.valueOf(LocalDate.of(1950 + i % 70, 1 + i % 12, 1)));
+            ps.setString(6, CATEGORIES[i % CATEGORIES.length]);
+            ps.setTimestamp(7, now);
+            ps.setTimestamp(8, now);
+        });
+        bookSearchIndex.rebuild();
+        bookFacetIndex.rebuild();
+        
+        terms = new ArrayList<>();
+        for (String word : WORDS) {
+            // Whole words and infix fragments, which is what LIKE '%term%' has to serve
+            terms.add(word);
+            terms.add(word.substring(1, 4));
+        }
+        terms.add("press");
+        terms.add(ISBN_PREFIX + "0001");
+    }
+    
+    @Test
+    void indexFindsTheSameBooksAsLike() {
+        for (String term : terms) {
+            long expected = bookRepository.countByFilters(term, null, null, false);
+            long actual = bookService.findBooks(term, null, null, false, ranked()).getTotalElements();
+            assertEquals(expected, actual, "matches for '" + term + "'");
+        }
+    }
+    
+    @Test
+    void indexPagesFollowTheDatabaseOrder() {
+        for (int page : new int[] {0, 7, 150}) {
+            Pageable byTitle = PageRequest.of(page, 20, Sort.by("title", "id"));
+            List<Long> expected = bookRepository.findCardsByFilters("er", "History", null, false, byTitle)
+                    .map(BookCardDto::getId).getContent();
+            List<Long> actual = bookSearchIndex.search("er", bookFacetIndex.filter("History", null, false), byTitle)
+                    .getContent();
+            assertEquals(expected, actual, "page " + page);
+        }
+    }
+    
+    @Test
+    void benchmark() {
+        Pageable byTitle = PageRequest.of(0, 10, Sort.by("title"));
+        measure("jpql  ", term -> bookRepository.findCardsByFilters(term, null, null, false, byTitle));
+        measure("index ", term -> bookService.findBooks(term, null, null, false, ranked()));
+    }
+    
+    private void measure(String label, Consumer<String> query) {
+        for (int i = 0; i < 20; i++) {
+            query.accept(terms.get(i % terms.size()));
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            query.accept(terms.get(i % terms.size()));
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        log.info("Search benchmark [{}] {} queries over {} books: p50={} us, p95={} us, p99={} us",
+                label, ITERATIONS, bookSearchIndex.size(),
+                samples[ITERATIONS / 2] / 1000,
+                samples[(int) (ITERATIONS * 0.95)] / 1000,
+                samples[(int) (ITERATIONS * 0.99)] / 1000);
+    }
+    
+    private static Pageable ranked() {
+        return PageRequest.of(0, 10, Sort.by(BookSearchIndex.RELEVANCE));
+    }
+    
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+    
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
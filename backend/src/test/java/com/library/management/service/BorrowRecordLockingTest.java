@@ -0,0 +1,95 @@
+package com.library.management.service;
+
+import com.library.management.entity.Book;
+import com.library.management.entity.BorrowRecord;
+import com.library.management.entity.User;
+import com.library.management.repository.BookRepository;
+import com.library.management.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Returns, renewals and losses read the record's status under the user's lock, so a record
+ * that has already been returned or lost cannot be changed again, even once the user has
+ * borrowed the same book anew.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BorrowRecordLockingTest {
+    
+    @Autowired
+    private BorrowService borrowService;
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void returnedRecordStaysReturnedOnceTheBookIsBorrowedAgain() {
+        String suffix = Long.toString(System.nanoTime(), 36);
+        Long userId = userRepository.save(newUser("locking-" + suffix)).getId();
+        Long bookId = bookRepository.save(book(suffix, 2)).getId();
+        
+        BorrowRecord first = borrowService.borrowBook(userId, bookId, null);
+        borrowService.returnBook(first.getId(), null);
+        BorrowRecord second = borrowService.borrowBook(userId, bookId, null);
+        
+        RuntimeException e = assertThrows(RuntimeException.class, () -> borrowService.returnBook(first.getId(), null));
+        assertEquals("Book is not currently borrowed", e.getMessage());
+        e = assertThrows(RuntimeException.class, () -> borrowService.renewBook(first.getId(), 7));
+        assertEquals("Book is not currently borrowed", e.getMessage());
+        
+        // The second loan still holds its copy
+        assertEquals(1, availableCopies(bookId));
+        assertEquals(BorrowRecord.BorrowStatus.BORROWED, borrowService.findById(second.getId()).getStatus());
+        
+        borrowService.renewBook(second.getId(), 7);
+        borrowService.markAsLost(second.getId(), null);
+        e = assertThrows(RuntimeException.class, () -> borrowService.markAsLost(second.getId(), null));
+        assertEquals("Book is already marked as lost", e.getMessage());
+        e = assertThrows(RuntimeException.class, () -> borrowService.returnBook(Long.MAX_VALUE, null));
+        assertEquals("Borrow record not found", e.getMessage());
+    }
+    
+    private int availableCopies(Long bookId) {
+        return jdbcTemplate.queryForObject("SELECT available_copies FROM books WHERE id = ?", Integer.class, bookId);
+    }
+    
+    private static User newUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.org");
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3xE1qzQ3FZ0LwY1rL8F4x2e");
+        user.setFirstName("Locking");
+        user.setLastName("Borrower");
+        user.setPhoneNumber("555-0100");
+        user.setRole(User.Role.STUDENT);
+        return user;
+    }
+    
+    private static Book book(String suffix, int copies) {
+        Book book = new Book();
+        book.setTitle("Locking " + suffix);
+        book.setAuthor("Lock Tester");
+        book.setIsbn(String.format("%-13.13s", "K" + suffix).replace(' ', '0'));
+        book.setPublisher("Test Press");
+        book.setPublicationDate(LocalDate.of(2001, 1, 1));
+        book.setCategory("Testing");
+        book.setTotalCopies(copies);
+        book.setAvailableCopies(copies);
+        return book;
+    }
+}
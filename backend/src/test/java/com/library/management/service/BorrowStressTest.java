@@ -0,0 +1,177 @@
+package com.library.management.service;
+
+import com.library.management.entity.Book;
+import com.library.management.entity.User;
+import com.library.management.repository.BookRepository;
+import com.library.management.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Many borrowers racing for the copies of one title: exactly as many borrows succeed as there
+ * were copies, and the book ends with none available. The rate at which copies are taken is
+ * written to the log, for the conditional update and for the read-then-write it replaced.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BorrowStressTest {
+    
+    private static final Logger log = LoggerFactory.getLogger(BorrowStressTest.class);
+    
+    private static final int THREADS = 32;
+    private static final int COPIES = 50;
+    private static final int BORROWERS = 400;
+    private static final int TAKES = 4000;
+    
+    @Autowired
+    private BorrowService borrowService;
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Test
+    void concurrentBorrowersNeverOversell() throws Exception {
+        String suffix = Long.toString(System.nanoTime(), 36);
+        Long bookId = bookRepository.save(book(suffix, COPIES)).getId();
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < BORROWERS; i++) {
+            userIds.add(userRepository.save(newUser("stress-" + suffix + "-" + i)).getId());
+        }
+        
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<String> unexpected = new ArrayList<>();
+        long elapsed = race(BORROWERS, i -> {
+            try {
+                borrowService.borrowBook(userIds.get(i), bookId, null);
+                accepted.incrementAndGet();
+            } catch (RuntimeException e) {
+                if ("No copies available for borrowing".equals(e.getMessage())) {
+                    rejected.incrementAndGet();
+                } else {
+                    synchronized (unexpected) {
+                        unexpected.add(e.toString());
+                    }
+                }
+            }
+        });
+        
+        assertTrue(unexpected.isEmpty(), () -> "unexpected failures: " + unexpected);
+        assertEquals(COPIES, accepted.get());
+        assertEquals(BORROWERS - COPIES, rejected.get());
+        assertEquals(0, availableCopies(bookId));
+        assertEquals(COPIES, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM borrow_records WHERE book_id = ? AND status = 'BORROWED'", Integer.class, bookId));
+        log.info("Borrow stress: {} borrowers for {} copies on {} threads, {} accepted, {} rejected in {} ms ({} requests/s)",
+                BORROWERS, COPIES, THREADS, accepted.get(), rejected.get(), elapsed / 1_000_000,
+                BORROWERS * 1_000_000_000L / elapsed);
+    }
+    
+    @Test
+    void takingCopies() throws Exception {
+        String suffix = Long.toString(System.nanoTime(), 36);
+        
+        // What borrowBook did before: read the count under a row lock, then write it back
+        Long locked = bookRepository.save(book("L" + suffix, TAKES)).getId();
+        long lockedElapsed = race(TAKES, i -> transactionTemplate.executeWithoutResult(status -> {
+            Integer available = jdbcTemplate.queryForObject(
+                    "SELECT available_copies FROM books WHERE id = ? FOR UPDATE", Integer.class, locked);
+            if (available > 0) {
+                jdbcTemplate.update("UPDATE books SET available_copies = ? WHERE id = ?", available - 1, locked);
+            }
+        }));
+        
+        Long conditional = bookRepository.save(book("C" + suffix, TAKES)).getId();
+        // BookRepository.decrementAvailableCopies, issued the same way so only the SQL differs
+        long conditionalElapsed = race(TAKES, i -> transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.update("UPDATE books SET available_copies = available_copies - 1 " +
+                        "WHERE id = ? AND available_copies > 0 AND hot_title = false", conditional)));
+        
+        assertEquals(0, availableCopies(locked));
+        assertEquals(0, availableCopies(conditional));
+        log.info("Copies taken from one title on {} threads: locked read-then-write {} /s, conditional update {} /s",
+                THREADS, TAKES * 1_000_000_000L / lockedElapsed, TAKES * 1_000_000_000L / conditionalElapsed);
+    }
+    
+    // Runs task(0) .. task(count - 1) on THREADS threads, all released at once; returns the wall time in ns
+    private static long race(int count, IntConsumer task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    task.accept(index);
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    private int availableCopies(Long bookId) {
+        return jdbcTemplate.queryForObject("SELECT available_copies FROM books WHERE id = ?", Integer.class, bookId);
+    }
+    
+    private static User newUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.org");
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3xE1qzQ3FZ0LwY1rL8F4x2e");
+        user.setFirstName("Stress");
+        user.setLastName("Borrower");
+        user.setPhoneNumber("555-0100");
+        user.setRole(User.Role.STUDENT);
+        return user;
+    }
+    
+    private static Book book(String suffix, int copies) {
+        Book book = new Book();
+        book.setTitle("Stress " + suffix);
+        book.setAuthor("Load Tester");
+        book.setIsbn(String.format("%-13.13s", "S" + suffix).replace(' ', '0'));
+        book.setPublisher("Test Press");
+        book.setPublicationDate(LocalDate.of(2001, 1, 1));
+        book.setCategory("Testing");
+        book.setTotalCopies(copies);
+        book.setAvailableCopies(copies);
+        return book;
+    }
+}
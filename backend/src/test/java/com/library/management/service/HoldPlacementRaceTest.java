@@ -0,0 +1,115 @@
+package com.library.management.service;
+
+import com.library.management.entity.Book;
+import com.library.management.entity.BorrowRecord;
+import com.library.management.entity.User;
+import com.library.management.repository.BookRepository;
+import com.library.management.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * A hold placed while the last copy comes back either sees the copy and is turned away, or
+ * is queued in time for the copy to be set aside for it. It never waits while the copy sits
+ * on the shelf.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class HoldPlacementRaceTest {
+    
+    private static final int ROUNDS = 40;
+    
+    @Autowired
+    private BorrowService borrowService;
+    
+    @Autowired
+    private HoldService holdService;
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void returnAndHoldNeverLeaveTheHoldWaitingNextToAFreeCopy() throws Exception {
+        String suffix = Long.toString(System.nanoTime(), 36);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                User borrower = userRepository.save(newUser("hold-b-" + suffix + "-" + round));
+                User patron = userRepository.save(newUser("hold-p-" + suffix + "-" + round));
+                Long bookId = bookRepository.save(book(suffix, round)).getId();
+                BorrowRecord loan = borrowService.borrowBook(borrower.getId(), bookId, null);
+                
+                CountDownLatch start = new CountDownLatch(1);
+                Future<?> returned = pool.submit(() -> {
+                    start.await();
+                    borrowService.returnBook(loan.getId(), null);
+                    return null;
+                });
+                Future<?> held = pool.submit(() -> {
+                    start.await();
+                    try {
+                        holdService.placeHold(patron, bookId);
+                    } catch (RuntimeException e) {
+                        // Turned away because the copy was already back
+                    }
+                    return null;
+                });
+                start.countDown();
+                returned.get();
+                held.get();
+                
+                int available = jdbcTemplate.queryForObject(
+                        "SELECT available_copies FROM books WHERE id = ?", Integer.class, bookId);
+                int waiting = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM holds WHERE book_id = ? AND status = 'WAITING'", Integer.class, bookId);
+                int failedRound = round;
+                assertFalse(available > 0 && waiting > 0,
+                        () -> "round " + failedRound + ": a hold waits while " + available + " copy is on the shelf");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    private static User newUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.org");
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3xE1qzQ3FZ0LwY1rL8F4x2e");
+        user.setFirstName("Hold");
+        user.setLastName("Patron");
+        user.setPhoneNumber("555-0100");
+        user.setRole(User.Role.STUDENT);
+        return user;
+    }
+    
+    private static Book book(String suffix, int round) {
+        Book book = new Book();
+        book.setTitle("Hold race " + suffix + " " + round);
+        book.setAuthor("Race Tester");
+        book.setIsbn(String.format("%-10.10s%03d", "H" + suffix, round).replace(' ', '0'));
+        book.setPublisher("Test Press");
+        book.setPublicationDate(LocalDate.of(2001, 1, 1));
+        book.setCategory("Testing");
+        book.setTotalCopies(1);
+        book.setAvailableCopies(1);
+        return book;
+    }
+}
@@ -0,0 +1,106 @@
+import { defineStore } from 'pinia'
+import type { BookChange, BorrowChange } from '../types'
+
+type ChangeHandlers = {
+  book: (change: BookChange) => void
+  borrow: (change: BorrowChange) => void
+  reset: () => void
+}
+
+type Handler = ChangeHandlers[keyof ChangeHandlers]
+
+// One Server-Sent Events connection shared by every view. EventSource cannot send the
+// Authorization header, so the stream is read with fetch and parsed here.
+export const useChangesStore = defineStore('changes', () => {
+  const handlers = new Map<string, Set<Handler>>()
+  let controller: AbortController | null = null
+  let lastEventId: string | null = null
+  let retryMs = 3000
+  let subscribers = 0
+
+  const emit = (type: string, data?: unknown) => {
+    handlers.get(type)?.forEach(handler => (handler as (data?: unknown) => void)(data))
+  }
+
+  const handleFrame = (frame: string) => {
+    let type = 'message'
+    let data = ''
+    for (const line of frame.split('\n')) {
+      if (!line || line.startsWith(':')) continue
+      const colon = line.indexOf(':')
+      const field = colon < 0 ? line : line.slice(0, colon)
+      const value = colon < 0 ? '' : line.slice(colon + 1).replace(/^ /, '')
+      if (field === 'id') lastEventId = value
+      else if (field === 'event') type = value
+      else if (field === 'data') data += value
+      else if (field === 'retry' && /^\d+$/.test(value)) retryMs = Number(value)
+    }
+    if (data) {
+      emit(type, JSON.parse(data))
+    }
+  }
+
+  const connect = async () => {
+    const token = localStorage.getItem('token')
+    if (!token) return
+    const current = new AbortController()
+    controller = current
+    try {
+      const headers: Record<string, string> = {
+        Authorization: `Bearer ${token}`,
+        Accept: 'text/event-stream'
+      }
+      if (lastEventId) headers['Last-Event-ID'] = lastEventId
+      const response = await fetch('/api/changes', { headers, signal: current.signal })
+      if (!response.ok || !response.body) throw new Error(`Change stream answered ${response.status}`)
+
+      const reader = response.body.pipeThrough(new TextDecoderStream()).getReader()
+      let buffer = ''
+      for (;;) {
+        const { value, done } = await reader.read()
+        if (done) break
+        buffer += value.replace(/\r\n?/g, '\n')
+        let end
+        while ((end = buffer.indexOf('\n\n')) >= 0) {
+          handleFrame(buffer.slice(0, end))
+          buffer = buffer.slice(end + 2)
+        }
+      }
+    } catch (error) {
+      if (current.signal.aborted) return
+      console.error('Change stream failed:', error)
+    }
+    // The server ends streams after a while; pick up where this one left off
+    if (controller === current) {
+      setTimeout(() => {
+        if (controller === current) connect()
+      }, retryMs)
+    }
+  }
+
+  // Registers handlers for as long as a view is mounted; returns the function that removes them
+  const subscribe = (views: Partial<ChangeHandlers>) => {
+    const entries = Object.entries(views) as [string, Handler][]
+    for (const [type, handler] of entries) {
+      if (!handlers.has(type)) handlers.set(type, new Set())
+      handlers.get(type)!.add(handler)
+    }
+    if (subscribers++ === 0) connect()
+
+    return () => {
+      for (const [type, handler] of entries) {
+        handlers.get(type)?.delete(handler)
+      }
+      if (--subscribers === 0) {
+        // The next view loads fresh data, so there is nothing to resume
+        controller?.abort()
+        controller = null
+        lastEventId = null
+      }
+    }
+  }
+
+  return {
+    subscribe
+  }
+})
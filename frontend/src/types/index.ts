@@ -30,10 +30,14 @@ export interface Book {
   updatedAt: string
 }
 
+export type BookCard = Pick<Book,
+  'id' | 'title' | 'author' | 'isbn' | 'category' | 'coverImageUrl' |
+  'availableCopies' | 'totalCopies' | 'status' | 'rating' | 'reviewCount'>
+
 export interface BorrowRecord {
   id: number
-  user: User
-  book: Book
+  user: Pick<User, 'id' | 'firstName' | 'lastName' | 'email'>
+  book: Pick<Book, 'id' | 'title' | 'author' | 'isbn' | 'category' | 'coverImageUrl'>
   borrowDate: string
   dueDate: string
   returnDate?: string
@@ -44,6 +48,35 @@ export interface BorrowRecord {
   updatedAt: string
 }
 
+export interface Hold {
+  id: number
+  bookId: number
+  bookTitle: string
+  bookAuthor: string
+  coverImageUrl?: string
+  status: 'WAITING' | 'READY' | 'FULFILLED' | 'CANCELLED' | 'EXPIRED'
+  position: number
+  queueLength: number
+  createdAt: string
+  readyAt?: string
+  expiresAt?: string
+}
+
+export interface BookChange {
+  id: number
+  availableCopies?: number
+  totalCopies?: number
+  deleted?: boolean
+}
+
+export interface BorrowChange {
+  id: number
+  userId: number
+  bookId: number
+  previousStatus: BorrowRecord['status'] | null
+  status: BorrowRecord['status']
+}
+
 export interface LoginRequest {
   username: string
   password: string